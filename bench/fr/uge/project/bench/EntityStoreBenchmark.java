@@ -0,0 +1,182 @@
+package fr.uge.project.bench;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.uge.project.bigAdventure.ElementDescriptor;
+import fr.uge.project.bigAdventure.ElementKind;
+import fr.uge.project.bigAdventure.EntityStore;
+import fr.uge.project.bigAdventure.Position;
+import fr.uge.project.bigAdventure.SkinRegistry;
+
+
+/**
+ * Compares the two ways of keeping the enemies of the game: one object per
+ * enemy in a HashMap of Positions, as the game did before, and an
+ * {@link EntityStore}. The loops of the benchmarks are the ones of the game:
+ * the stroll loop checks, for each enemy, if the cell at its right is in its
+ * zone, and the draw loop finds the image of the skin of each enemy and
+ * computes where it is drawn.
+ * <p>
+ * The enemies are created in a random order of positions, as they are read
+ * from a map, on a grid of 4096 x 4096 tiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class EntityStoreBenchmark {
+	private static final int SIZE = 4096;
+	private static final String[] SKINS = { "CRAB", "BADBAD", "BAT", "BEE", "BUG", "GHOST", "SKULL", "MONSTER" };
+	/**
+	 * The number of enemies.
+	 */
+	@Param({ "1000000" })
+	public int entities;
+	private HashMap<Position, ObjectEnemy> objects;
+	private HashMap<String, Object> imagesBySkin;
+	private EntityStore store;
+	private Object[] imagesBySkinId;
+
+	/**
+	 * An enemy kept as the game kept it before the entity store.
+	 *
+	 * @param skin       The skin of the enemy.
+	 * @param zone       The center of the zone of the enemy.
+	 * @param heightZone The number of rows of the zone on each side of its center.
+	 * @param widthZone  The number of columns of the zone on each side of its
+	 *                   center.
+	 * @param name       The name of the enemy.
+	 * @param behavior   The behavior of the enemy.
+	 * @param health     The health of the enemy.
+	 * @param damage     The damage of the enemy.
+	 */
+	private record ObjectEnemy(String skin, Position zone, int heightZone, int widthZone, String name, String behavior,
+			int health, int damage) {
+	}
+
+
+	/**
+	 * Creates the same enemies in the HashMap and in the store.
+	 */
+	@Setup(Level.Trial)
+	public void fill() {
+		var random = new SplittableRandom(42);
+		objects = new HashMap<>();
+		store = new EntityStore();
+		while (objects.size() < entities) {
+			var i = random.nextInt(SIZE);
+			var j = random.nextInt(SIZE);
+			var position = new Position(i, j);
+			if (objects.containsKey(position)) {
+				continue;
+			}
+			var skin = SKINS[random.nextInt(SKINS.length)];
+			var height = 1 + random.nextInt(8);
+			var width = 1 + random.nextInt(8);
+			var name = "enemy" + objects.size();
+			var health = 1 + random.nextInt(30);
+			var damage = 1 + random.nextInt(10);
+			objects.put(position, new ObjectEnemy(skin, position, height, width, name, "stroll", health, damage));
+			// the map writes the positions and the zones as a column then a row
+			store.add(new ElementDescriptor(ElementKind.ENEMY, name, skin, new Position(j, i), health, damage, "stroll",
+					new Position(j, i), width, height), i, j);
+		}
+		imagesBySkin = new HashMap<>();
+		imagesBySkinId = new Object[SkinRegistry.size()];
+		for (var skin : SKINS) {
+			var image = new Object();
+			imagesBySkin.put(skin, image);
+			imagesBySkinId[SkinRegistry.idOf(skin)] = image;
+		}
+	}
+
+
+	/**
+	 * Checks for each enemy of the HashMap if it can go one cell to the right.
+	 *
+	 * @return The number of enemies which can go to the right.
+	 */
+	@Benchmark
+	public int objectsStroll() {
+		var count = 0;
+		for (var entry : objects.entrySet()) {
+			var position = entry.getKey();
+			var enemy = entry.getValue();
+			var newY = position.j() + 1;
+			if (position.i() <= enemy.zone().i() + enemy.heightZone() && position.i() >= enemy.zone().i() - enemy.heightZone()
+					&& newY <= enemy.zone().j() + enemy.widthZone() && newY >= enemy.zone().j() - enemy.widthZone()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+
+	/**
+	 * Checks for each enemy of the store if it can go one cell to the right.
+	 *
+	 * @return The number of enemies which can go to the right.
+	 */
+	@Benchmark
+	public int storeStroll() {
+		var count = 0;
+		for (int id = 0; id < store.idCount(); id++) {
+			if (store.kindOf(id) == ElementKind.ENEMY && store.isInZone(id, store.rowOf(id), store.columnOf(id) + 1)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+
+	/**
+	 * Finds the image and the place on the screen of each enemy of the HashMap.
+	 *
+	 * @return A sum of the places, so that the loop is not removed.
+	 */
+	@Benchmark
+	public long objectsDraw() {
+		var sum = 0L;
+		for (var entry : objects.entrySet()) {
+			var image = imagesBySkin.get(entry.getValue().skin());
+			if (image != null) {
+				sum += entry.getKey().j() * 24 + entry.getKey().i() * 24;
+			}
+		}
+		return sum;
+	}
+
+
+	/**
+	 * Finds the image and the place on the screen of each enemy of the store.
+	 *
+	 * @return A sum of the places, so that the loop is not removed.
+	 */
+	@Benchmark
+	public long storeDraw() {
+		var sum = 0L;
+		for (int id = 0; id < store.idCount(); id++) {
+			if (store.kindOf(id) == ElementKind.ENEMY && imagesBySkinId[store.skinIdOf(id)] != null) {
+				sum += store.columnOf(id) * 24 + store.rowOf(id) * 24;
+			}
+		}
+		return sum;
+	}
+}
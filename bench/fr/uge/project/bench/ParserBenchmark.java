@@ -0,0 +1,171 @@
+package fr.uge.project.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.uge.project.main.MapGenerator;
+import fr.uge.project.parser.Diagnostics;
+import fr.uge.project.parser.ElementReader;
+import fr.uge.project.parser.FileAnalysis;
+import fr.uge.project.parser.GridReader;
+import fr.uge.project.parser.Lexer;
+import fr.uge.project.parser.Token;
+
+
+/**
+ * Measures the steps of the parsing of a map on generated maps of increasing
+ * size. The grid of a map has size x size tiles and the map has size x size / 16
+ * elements, so the grid and the elements grow together.
+ * <p>
+ * The benchmarks are run with the "bench" target of the build, which writes the
+ * results in JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+	/**
+	 * The number of rows and columns of the grid of the map.
+	 */
+	@Param({ "64", "512", "2048" })
+	public int size;
+	private Path path;
+	private String text;
+	private String gridText;
+	private String elementsText;
+
+
+	/**
+	 * Generates the map of the benchmark and keeps its text, the text of its grid
+	 * and the text of its elements.
+	 *
+	 * @throws IOException If an I/O error occurs while writing the map.
+	 */
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		var elements = size * size / 64;
+		path = Files.createTempFile("bench", ".map");
+		new MapGenerator(new MapGenerator.Settings(size, size, 52, elements, elements, elements, elements, 42, 0))
+				.generate(path);
+		text = Files.readString(path, StandardCharsets.ISO_8859_1);
+		var firstElement = text.indexOf("\n[element]");
+		gridText = text.substring(0, firstElement);
+		elementsText = text.substring(firstElement + 1);
+	}
+
+
+	/**
+	 * Deletes the map of the benchmark.
+	 *
+	 * @throws IOException If an I/O error occurs while deleting the map.
+	 */
+	@TearDown(Level.Trial)
+	public void delete() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+
+	/**
+	 * Reads all the tokens of the map, creating a result for each token.
+	 *
+	 * @return The number of tokens.
+	 */
+	@Benchmark
+	public int lexerNextResult() {
+		var lexer = new Lexer(text);
+		var count = 0;
+		while (lexer.nextResult() != null) {
+			count++;
+		}
+		return count;
+	}
+
+
+	/**
+	 * Reads all the tokens of the map without creating any object, to compare with
+	 * {@link #lexerNextResult()}.
+	 *
+	 * @return The number of tokens.
+	 */
+	@Benchmark
+	public int lexerNext() {
+		var lexer = new Lexer(text);
+		var count = 0;
+		while (lexer.next() != null) {
+			count++;
+		}
+		return count;
+	}
+
+
+	/**
+	 * Parses the map file from the disk, as the game does.
+	 *
+	 * @return The analysis of the map.
+	 * @throws IOException If an I/O error occurs while reading the map.
+	 */
+	@Benchmark
+	public FileAnalysis readParser() throws IOException {
+		return FileAnalysis.readParser(path, new Diagnostics());
+	}
+
+
+	/**
+	 * Reads the [grid] section of the map. Most of the time is spent in the
+	 * decoding of the data of the grid.
+	 *
+	 * @return The analysis of the grid.
+	 */
+	@Benchmark
+	public FileAnalysis gridData() {
+		var lexer = new Lexer(gridText);
+		var fileAnalysis = new FileAnalysis(lexer, new Diagnostics());
+		// the header of the section: '[', "grid" and ']'
+		lexer.next();
+		lexer.next();
+		lexer.next();
+		new GridReader().grid(lexer, fileAnalysis);
+		return fileAnalysis;
+	}
+
+
+	/**
+	 * Reads all the [element] sections of the map.
+	 *
+	 * @return The analysis of the elements.
+	 */
+	@Benchmark
+	public FileAnalysis readElements() {
+		var lexer = new Lexer(elementsText);
+		var fileAnalysis = new FileAnalysis(lexer, new Diagnostics());
+		var reader = new ElementReader();
+		lexer.next();
+		// the reading of an element stops on the '[' of the next section
+		while (lexer.next() != null) {
+			if (lexer.next() == Token.RIGHT_BRACKET) {
+				reader.readElement(lexer, fileAnalysis);
+			}
+		}
+		return fileAnalysis;
+	}
+}
@@ -0,0 +1,169 @@
+package fr.uge.project.bench;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.uge.project.bigAdventure.Position;
+import fr.uge.project.bigAdventure.PositionMap;
+
+
+/**
+ * Compares a HashMap of Positions, as the game used for its elements, with a
+ * PositionMap, for the lookups and the moves of the elements. The elements are
+ * on a grid of 1024 x 1024 tiles, half of the lookups are done on the cell of
+ * an element and the others on a random cell, and each element is moved one
+ * cell to the right then back, as the actors of the game do.
+ * <p>
+ * The allocation rate is measured by running the benchmark with the gc profiler
+ * of JMH, for example with {@code ant bench -Dbench.args="-prof gc PositionMap"}.
+ * The PositionMap benchmarks do not allocate anything, the HashMap ones allocate
+ * a Position for each lookup, and the Positions and the nodes of the map for
+ * each move.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PositionMapBenchmark {
+	private static final int SIZE = 1024;
+	private static final int LOOKUPS = 4096;
+	/**
+	 * The number of elements in the maps.
+	 */
+	@Param({ "1000", "100000" })
+	public int elements;
+	private HashMap<Position, Object> hashMap;
+	private PositionMap<Object> positionMap;
+	private int[] rows;
+	private int[] columns;
+	private int[] lookupRows;
+	private int[] lookupColumns;
+
+
+	/**
+	 * Fills the two maps with the same elements, on the even columns of the grid so
+	 * that the cell at the right of each element is free.
+	 */
+	@Setup(Level.Trial)
+	public void fill() {
+		var random = new SplittableRandom(42);
+		hashMap = new HashMap<>();
+		positionMap = new PositionMap<>();
+		rows = new int[elements];
+		columns = new int[elements];
+		for (int k = 0; k < elements;) {
+			var i = random.nextInt(SIZE);
+			var j = random.nextInt(SIZE / 2) * 2;
+			if (positionMap.get(i, j) == null) {
+				var element = new Object();
+				hashMap.put(new Position(i, j), element);
+				positionMap.put(i, j, element);
+				rows[k] = i;
+				columns[k] = j;
+				k++;
+			}
+		}
+		lookupRows = new int[LOOKUPS];
+		lookupColumns = new int[LOOKUPS];
+		for (int k = 0; k < LOOKUPS; k++) {
+			// half of the lookups are on a cell with an element
+			var element = random.nextInt(elements);
+			var onElement = random.nextBoolean();
+			lookupRows[k] = onElement ? rows[element] : random.nextInt(SIZE);
+			lookupColumns[k] = onElement ? columns[element] : random.nextInt(SIZE);
+		}
+	}
+
+
+	/**
+	 * Looks up cells in the HashMap, creating a Position for each lookup.
+	 *
+	 * @return The number of cells which have an element.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public int hashMapGet() {
+		var found = 0;
+		for (int k = 0; k < LOOKUPS; k++) {
+			if (hashMap.get(new Position(lookupRows[k], lookupColumns[k])) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+
+	/**
+	 * Looks up cells in the PositionMap.
+	 *
+	 * @return The number of cells which have an element.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public int positionMapGet() {
+		var found = 0;
+		for (int k = 0; k < LOOKUPS; k++) {
+			if (positionMap.get(lookupRows[k], lookupColumns[k]) != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+
+	/**
+	 * Moves the elements of the HashMap one cell to the right then back, as the
+	 * old changeActorPosition of the game did. One operation is one move.
+	 *
+	 * @return The number of elements of the map.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS * 2)
+	public int hashMapMove() {
+		for (int k = 0; k < LOOKUPS; k++) {
+			var element = k % elements;
+			var i = rows[element];
+			var j = columns[element];
+			hashMap.put(new Position(i, j + 1), hashMap.remove(new Position(i, j)));
+			hashMap.put(new Position(i, j), hashMap.remove(new Position(i, j + 1)));
+		}
+		return hashMap.size();
+	}
+
+
+	/**
+	 * Moves the elements of the PositionMap one cell to the right then back. One
+	 * operation is one move.
+	 *
+	 * @return The number of elements of the map.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS * 2)
+	public int positionMapMove() {
+		for (int k = 0; k < LOOKUPS; k++) {
+			var element = k % elements;
+			var i = rows[element];
+			var j = columns[element];
+			positionMap.move(i, j, i, j + 1);
+			positionMap.move(i, j + 1, i, j);
+		}
+		return positionMap.size();
+	}
+}
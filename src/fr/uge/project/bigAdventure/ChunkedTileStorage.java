@@ -0,0 +1,391 @@
+package fr.uge.project.bigAdventure;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntBinaryOperator;
+import java.util.zip.Checksum;
+
+
+/**
+ * Gives the tiles of a game grid kept in a chunk file, so that the whole grid
+ * is never in memory. The grid is cut in square chunks of tiles, for example of
+ * 64 x 64 tiles, and a chunk is read from the file the first time one of its
+ * tiles is needed. The chunks read are kept in memory until their size is
+ * bigger than a memory budget; then the chunk used the longest time ago is
+ * removed first.
+ * <p>
+ * A chunk file starts with a header (magic number and version), followed by the
+ * size of the grid, the size of the chunks and the skin table. Then come the
+ * chunks, row of chunks by row of chunks, each chunk being its tiles row by row
+ * as skin ids. The chunks at the right and at the bottom of the grid have the
+ * full size, the tiles outside of the grid are 0.
+ * <p>
+ * A ChunkedTileStorage is not thread safe.
+ */
+public final class ChunkedTileStorage implements TileStorage {
+	/**
+	 * The size of the chunks used when no size is given.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 64;
+	private static final int MAGIC = 0x54424348;
+	private static final int VERSION = 1;
+	private final FileChannel channel;
+	private final long firstChunk;
+	private final int line;
+	private final int column;
+	private final List<String> skins;
+	private final int chunkSize;
+	private final int chunkColumns;
+	private final LinkedHashMap<Long, byte[]> chunks;
+	private long lastChunk = -1;
+	private byte[] lastTiles;
+	private byte[] removedTiles = null;
+	private long loads = 0;
+
+
+	/**
+	 * Constructs a new ChunkedTileStorage on an open chunk file whose header has
+	 * been read.
+	 *
+	 * @param channel    The channel of the chunk file.
+	 * @param firstChunk The position of the first chunk in the file.
+	 * @param line       The number of rows of the grid.
+	 * @param column     The number of columns of the grid.
+	 * @param skins      The skin table of the grid.
+	 * @param chunkSize  The number of rows and of columns of a chunk.
+	 * @param budget     The memory budget of the chunks in memory, in bytes.
+	 */
+	private ChunkedTileStorage(FileChannel channel, long firstChunk, int line, int column, List<String> skins,
+			int chunkSize, long budget) {
+		this.channel = channel;
+		this.firstChunk = firstChunk;
+		this.line = line;
+		this.column = column;
+		this.skins = List.copyOf(skins);
+		this.chunkSize = chunkSize;
+		this.chunkColumns = (column + chunkSize - 1) / chunkSize;
+		var maxChunks = Math.max(1, budget / ((long) chunkSize * chunkSize));
+		this.chunks = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+				if (size() > maxChunks) {
+					// the array of the removed chunk is used to read the next one
+					removedTiles = eldest.getValue();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+
+	/**
+	 * Checks the size of a grid and of its chunks.
+	 *
+	 * @param line      The number of rows of the grid.
+	 * @param column    The number of columns of the grid.
+	 * @param skinCount The number of skins of the skin table.
+	 * @param chunkSize The number of rows and of columns of a chunk.
+	 * @throws IllegalArgumentException If a size is not valid.
+	 */
+	private static void checkSizes(int line, int column, int skinCount, int chunkSize) {
+		if (line < 1 || column < 1) {
+			throw new IllegalArgumentException("The size of the grid is not valid");
+		}
+		if (chunkSize < 1 || chunkSize > 4096) {
+			throw new IllegalArgumentException("The size of the chunks must be between 1 and 4096");
+		}
+		if (skinCount < 1 || skinCount > 256) {
+			throw new IllegalArgumentException("A grid must have between 1 and 256 skins");
+		}
+	}
+
+
+	/**
+	 * Writes a chunk file from the tiles of a grid.
+	 *
+	 * @param grid      The tiles of the grid.
+	 * @param chunkSize The number of rows and of columns of a chunk.
+	 * @param path      The path of the chunk file to write.
+	 * @throws IOException              If an I/O error occurs while writing.
+	 * @throws NullPointerException     If grid or path is null.
+	 * @throws IllegalArgumentException If the size of the chunks is not valid.
+	 */
+	public static void write(TileStorage grid, int chunkSize, Path path) throws IOException {
+		Objects.requireNonNull(grid);
+		write(grid.getLine(), grid.getColumn(), grid.getSkins(), chunkSize, grid::getTileId, path);
+	}
+
+
+	/**
+	 * Writes a chunk file from a function giving the tiles of a grid. The chunks
+	 * are written one after the other, so the grid is never in memory: the
+	 * function is called once for each tile, in the order of the chunks.
+	 *
+	 * @param line      The number of rows of the grid.
+	 * @param column    The number of columns of the grid.
+	 * @param skins     The skin table of the grid.
+	 * @param chunkSize The number of rows and of columns of a chunk.
+	 * @param tiles     Gives the id of the skin of the tile at a row and a column.
+	 * @param path      The path of the chunk file to write.
+	 * @throws IOException              If an I/O error occurs while writing.
+	 * @throws NullPointerException     If skins, tiles or path is null.
+	 * @throws IllegalArgumentException If a size is not valid or if a tile is not
+	 *                                  the id of a skin of the table.
+	 */
+	public static void write(int line, int column, List<String> skins, int chunkSize, IntBinaryOperator tiles,
+			Path path) throws IOException {
+		Objects.requireNonNull(skins);
+		Objects.requireNonNull(tiles);
+		Objects.requireNonNull(path);
+		checkSizes(line, column, skins.size(), chunkSize);
+		try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+			output.writeInt(MAGIC);
+			output.writeShort(VERSION);
+			output.writeInt(line);
+			output.writeInt(column);
+			output.writeShort(chunkSize);
+			output.writeShort(skins.size());
+			for (var skin : skins) {
+				output.writeUTF(skin);
+			}
+			var chunk = new byte[chunkSize * chunkSize];
+			for (int top = 0; top < line; top += chunkSize) {
+				for (int left = 0; left < column; left += chunkSize) {
+					var bottom = Math.min(line, top + chunkSize);
+					var right = Math.min(column, left + chunkSize);
+					if (bottom - top < chunkSize || right - left < chunkSize) {
+						// the tiles of the chunk outside of the grid are 0
+						Arrays.fill(chunk, (byte) 0);
+					}
+					for (int i = top; i < bottom; i++) {
+						for (int j = left; j < right; j++) {
+							var tile = tiles.applyAsInt(i, j);
+							if (tile < 0 || tile >= skins.size()) {
+								throw new IllegalArgumentException("The tile " + tile + " is not a skin of the table");
+							}
+							chunk[(i - top) * chunkSize + j - left] = (byte) tile;
+						}
+					}
+					output.write(chunk);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Opens a chunk file. Only its header is read, the chunks are read when they
+	 * are needed.
+	 *
+	 * @param path   The path of the chunk file.
+	 * @param budget The memory budget of the chunks kept in memory, in bytes. At
+	 *               least one chunk is kept.
+	 * @return The tiles of the grid of the chunk file.
+	 * @throws IOException              If an I/O error occurs while reading, or if
+	 *                                  the file is not a chunk file of a supported
+	 *                                  version.
+	 * @throws NullPointerException     If path is null.
+	 * @throws IllegalArgumentException If the budget is negative.
+	 */
+	public static ChunkedTileStorage open(Path path, long budget) throws IOException {
+		Objects.requireNonNull(path);
+		if (budget < 0) {
+			throw new IllegalArgumentException("The memory budget cannot be negative");
+		}
+		var channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			// the header is read without buffer, so the position of the channel is the one of the first chunk
+			var input = new DataInputStream(Channels.newInputStream(channel));
+			if (input.readInt() != MAGIC) {
+				throw new IOException(path + " is not a chunk file");
+			}
+			var version = input.readUnsignedShort();
+			if (version != VERSION) {
+				throw new IOException("Unsupported version " + version + " of chunk file");
+			}
+			var line = input.readInt();
+			var column = input.readInt();
+			var chunkSize = input.readUnsignedShort();
+			var skinCount = input.readUnsignedShort();
+			var skins = new ArrayList<String>(skinCount);
+			for (int i = 0; i < skinCount; i++) {
+				skins.add(input.readUTF());
+			}
+			try {
+				checkSizes(line, column, skinCount, chunkSize);
+			} catch (IllegalArgumentException e) {
+				throw new IOException(path + " is not a valid chunk file", e);
+			}
+			var firstChunk = channel.position();
+			var chunkRows = (line + chunkSize - 1) / chunkSize;
+			var chunkColumns = (column + chunkSize - 1) / chunkSize;
+			if (channel.size() != firstChunk + (long) chunkRows * chunkColumns * chunkSize * chunkSize) {
+				throw new IOException("The size of " + path + " does not match its grid");
+			}
+			return new ChunkedTileStorage(channel, firstChunk, line, column, skins, chunkSize, budget);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+
+	@Override
+	public int getLine() {
+		return line;
+	}
+
+
+	@Override
+	public int getColumn() {
+		return column;
+	}
+
+
+	@Override
+	public List<String> getSkins() {
+		return skins;
+	}
+
+
+	/**
+	 * Gets the number of rows and of columns of a chunk.
+	 *
+	 * @return The size of the chunks.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+
+	/**
+	 * Gets the id of the skin of the tile at the specified position. The chunk of
+	 * the tile is read from the file if it is not in memory.
+	 *
+	 * @param i The row index.
+	 * @param j The column index.
+	 * @return The id of the skin of the tile.
+	 * @throws UncheckedIOException If an I/O error occurs while reading the chunk.
+	 */
+	@Override
+	public int getTileId(int i, int j) {
+		var chunk = (long) (i / chunkSize) * chunkColumns + j / chunkSize;
+		// most of the tiles read one after the other are in the same chunk, which is still the most recently used
+		if (chunk != lastChunk) {
+			lastTiles = chunkOf(chunk);
+			lastChunk = chunk;
+		}
+		return lastTiles[i % chunkSize * chunkSize + j % chunkSize] & 0xFF;
+	}
+
+
+	/**
+	 * Gets the tiles of a chunk, read from the file if the chunk is not in
+	 * memory. The tiles of a chunk read from the file are checked.
+	 *
+	 * @param chunk The index of the chunk, row of chunks by row of chunks.
+	 * @return The tiles of the chunk.
+	 * @throws UncheckedIOException If an I/O error occurs while reading the chunk,
+	 *                              or if a tile is not a skin of the table.
+	 */
+	private byte[] chunkOf(long chunk) {
+		var tiles = chunks.get(chunk);
+		if (tiles != null) {
+			return tiles;
+		}
+		tiles = removedTiles != null ? removedTiles : new byte[chunkSize * chunkSize];
+		removedTiles = null;
+		var buffer = ByteBuffer.wrap(tiles);
+		var position = firstChunk + chunk * tiles.length;
+		try {
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) == -1) {
+					throw new EOFException("The chunk " + chunk + " is not complete");
+				}
+			}
+			for (var tile : tiles) {
+				if ((tile & 0xFF) >= skins.size()) {
+					throw new IOException("The chunk " + chunk + " has a tile which is not a skin of the table");
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		loads++;
+		chunks.put(chunk, tiles);
+		return tiles;
+	}
+
+
+	/**
+	 * Updates a checksum with all the chunks of the file, in the order of the
+	 * file, without keeping them in memory.
+	 *
+	 * @param checksum The checksum to update.
+	 * @throws UncheckedIOException If an I/O error occurs while reading the chunks.
+	 */
+	void updateChecksum(Checksum checksum) {
+		var buffer = ByteBuffer.allocate(1 << 16);
+		var position = firstChunk;
+		try {
+			int read;
+			while ((read = channel.read(buffer.clear(), position)) != -1) {
+				checksum.update(buffer.flip());
+				position += read;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+
+	/**
+	 * Gets the number of chunks in memory.
+	 *
+	 * @return The number of chunks in memory.
+	 */
+	public int residentChunks() {
+		return chunks.size();
+	}
+
+
+	/**
+	 * Gets the number of times a chunk has been read from the file.
+	 *
+	 * @return The number of chunks read.
+	 */
+	public long loads() {
+		return loads;
+	}
+
+
+	/**
+	 * Closes the chunk file. The tiles cannot be read any more.
+	 *
+	 * @throws IOException If an I/O error occurs while closing the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+		chunks.clear();
+		lastChunk = -1;
+		lastTiles = null;
+	}
+}
@@ -0,0 +1,474 @@
+package fr.uge.project.bigAdventure;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntBinaryOperator;
+
+import fr.uge.project.parser.FileAnalysis;
+
+
+/**
+ * Reads and writes maps in a compiled binary form, which can be loaded without
+ * lexing nor validating the text of the map again.
+ * <p>
+ * A compiled map starts with a header (magic number and version), followed by
+ * the size of the grid, the skin table, the tiles of the grid as skin ids and
+ * the records of the elements.
+ * <p>
+ * The grid of a chunked compiled map is not in the compiled map but in a
+ * companion chunk file, read by {@link ChunkedTileStorage}, whose name is the
+ * name of the compiled map followed by {@code .chunks}. The compiled map only
+ * has the header, with another version, the size of the grid and the records of
+ * the elements. Only the chunks of the grid near the player character are in
+ * memory, so the size of the grid is not limited by the memory.
+ * <p>
+ * The tiles of a compiled map which is not chunked can be loaded off the heap:
+ * they are then mapped from the file instead of being read.
+ */
+public class CompiledMap {
+	/**
+	 * The memory budget of the chunks of the grid of a chunked compiled map when
+	 * no budget is given, in bytes.
+	 */
+	public static final long DEFAULT_CHUNK_BUDGET = 64L << 20;
+	private static final int MAGIC = 0x54424D50;
+	private static final int VERSION = 1;
+	private static final int CHUNKED_VERSION = 2;
+	private static final ElementKind[] KINDS = ElementKind.values();
+	private static final int TEXT_FIELDS = 3;
+	private static final int NUMBER_FIELDS = 8;
+	private static final int TILES_BUFFER = 1 << 16;
+
+
+	/**
+	 * Writes a text of an element if it has been informed.
+	 *
+	 * @param output The stream to write to.
+	 * @param text   The text, null if it has not been informed.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	private static void writeText(DataOutputStream output, String text) throws IOException {
+		if (text != null) {
+			output.writeUTF(text);
+		}
+	}
+
+
+	/**
+	 * Writes a number of an element if it has been informed.
+	 *
+	 * @param output The stream to write to.
+	 * @param number The number, {@link ElementDescriptor#NOT_INFORMED} if it has
+	 *               not been informed.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	private static void writeNumber(DataOutputStream output, int number) throws IOException {
+		if (number != ElementDescriptor.NOT_INFORMED) {
+			output.writeInt(number);
+		}
+	}
+
+
+	/**
+	 * Writes the record of one element: its kind, a mask of the fields it
+	 * contains, then the values of these fields.
+	 *
+	 * @param output  The stream to write to.
+	 * @param element The description of the element.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	private static void writeElement(DataOutputStream output, ElementDescriptor element) throws IOException {
+		output.writeByte(element.kind().ordinal());
+		var position = element.position();
+		var zone = element.zone();
+		var numbers = new int[] { position == null ? ElementDescriptor.NOT_INFORMED : position.i(),
+				position == null ? ElementDescriptor.NOT_INFORMED : position.j(), element.health(), element.damage(),
+				zone == null ? ElementDescriptor.NOT_INFORMED : zone.i(),
+				zone == null ? ElementDescriptor.NOT_INFORMED : zone.j(), element.zoneLines(), element.zoneColumns() };
+		var texts = new String[] { element.name(), element.skin(), element.behavior() };
+		var mask = 0;
+		var bit = 0;
+		for (var text : texts) {
+			mask |= text != null ? 1 << bit : 0;
+			bit++;
+		}
+		for (var number : numbers) {
+			mask |= number != ElementDescriptor.NOT_INFORMED ? 1 << bit : 0;
+			bit++;
+		}
+		output.writeShort(mask);
+		for (var text : texts) {
+			writeText(output, text);
+		}
+		for (var number : numbers) {
+			writeNumber(output, number);
+		}
+	}
+
+
+	/**
+	 * Reads the record of one element written by
+	 * {@link #writeElement(DataOutputStream, ElementDescriptor)}.
+	 *
+	 * @param input The stream to read from.
+	 * @return The description of the element.
+	 * @throws IOException If an I/O error occurs while reading or if the record is
+	 *                     not valid.
+	 */
+	private static ElementDescriptor readElement(DataInputStream input) throws IOException {
+		var kind = input.readUnsignedByte();
+		if (kind >= KINDS.length) {
+			throw new IOException("Unknown kind of element " + kind);
+		}
+		var mask = input.readUnsignedShort();
+		var texts = new String[TEXT_FIELDS];
+		var numbers = new int[NUMBER_FIELDS];
+		var bit = 0;
+		for (int i = 0; i < texts.length; i++) {
+			texts[i] = (mask & 1 << bit) != 0 ? input.readUTF() : null;
+			bit++;
+		}
+		for (int i = 0; i < numbers.length; i++) {
+			numbers[i] = (mask & 1 << bit) != 0 ? input.readInt() : ElementDescriptor.NOT_INFORMED;
+			bit++;
+		}
+		try {
+			return new ElementDescriptor(KINDS[kind], texts[0], texts[1], positionOf(numbers[0], numbers[1]),
+					numbers[2], numbers[3], texts[2], positionOf(numbers[4], numbers[5]), numbers[6], numbers[7]);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("The record of an element is not valid", e);
+		}
+	}
+
+
+	/**
+	 * Creates a position from two numbers read in a record.
+	 *
+	 * @param i The first number of the position.
+	 * @param j The second number of the position.
+	 * @return The position, or null if the position has not been informed.
+	 * @throws IOException If only one of the numbers has been informed.
+	 */
+	private static Position positionOf(int i, int j) throws IOException {
+		if (i == ElementDescriptor.NOT_INFORMED && j == ElementDescriptor.NOT_INFORMED) {
+			return null;
+		}
+		if (i == ElementDescriptor.NOT_INFORMED || j == ElementDescriptor.NOT_INFORMED) {
+			throw new IOException("A position of an element is not complete");
+		}
+		return new Position(i, j);
+	}
+
+
+	/**
+	 * Writes the number of elements and their records.
+	 *
+	 * @param output   The stream to write to.
+	 * @param elements The descriptions of the elements.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	private static void writeElements(DataOutputStream output, List<ElementDescriptor> elements) throws IOException {
+		output.writeInt(elements.size());
+		for (var element : elements) {
+			writeElement(output, element);
+		}
+	}
+
+
+	/**
+	 * Reads the number of elements and their records, written by
+	 * {@link #writeElements(DataOutputStream, List)}.
+	 *
+	 * @param input The stream to read from.
+	 * @return The descriptions of the elements.
+	 * @throws IOException If an I/O error occurs while reading or if a record is
+	 *                     not valid.
+	 */
+	private static List<ElementDescriptor> readElements(DataInputStream input) throws IOException {
+		var elementCount = input.readInt();
+		if (elementCount < 0) {
+			throw new IOException("The number of elements is not valid");
+		}
+		var elements = new ArrayList<ElementDescriptor>(Math.min(elementCount, 1 << 16));
+		for (int i = 0; i < elementCount; i++) {
+			elements.add(readElement(input));
+		}
+		return elements;
+	}
+
+
+	/**
+	 * Writes the tiles of a grid, which can be off the heap.
+	 *
+	 * @param output The stream to write to.
+	 * @param tiles  The buffer of the tiles.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	private static void writeTiles(DataOutputStream output, ByteBuffer tiles) throws IOException {
+		if (tiles.hasArray()) {
+			output.write(tiles.array(), tiles.arrayOffset(), tiles.capacity());
+			return;
+		}
+		var copy = new byte[TILES_BUFFER];
+		var source = tiles.duplicate().clear();
+		while (source.hasRemaining()) {
+			var length = Math.min(copy.length, source.remaining());
+			source.get(copy, 0, length);
+			output.write(copy, 0, length);
+		}
+	}
+
+
+	/**
+	 * Gets the number of bytes of the header of a compiled map which is not
+	 * chunked, which is the position of its tiles in the file.
+	 *
+	 * @param skins The skin table of the grid.
+	 * @return The number of bytes of the header.
+	 */
+	private static long headerLength(List<String> skins) {
+		// magic number, version, size of the grid and number of skins
+		var length = 16L;
+		for (var skin : skins) {
+			// the length of a skin, then its characters in modified UTF-8
+			length += 2;
+			for (int i = 0; i < skin.length(); i++) {
+				var character = skin.charAt(i);
+				length += character >= 1 && character <= 0x7F ? 1 : character <= 0x7FF ? 2 : 3;
+			}
+		}
+		return length;
+	}
+
+
+	/**
+	 * Gets the path of the chunk file which contains the grid of a chunked
+	 * compiled map.
+	 *
+	 * @param path The path of the compiled map.
+	 * @return The path of its chunk file.
+	 * @throws NullPointerException if path is null.
+	 */
+	public static Path chunkFileOf(Path path) {
+		Objects.requireNonNull(path);
+		return path.resolveSibling(path.getFileName() + ".chunks");
+	}
+
+
+	/**
+	 * Compiles a valid map into the specified file.
+	 *
+	 * @param fileInfos The analysis of the map to compile.
+	 * @param path      The path of the compiled map to write.
+	 * @throws IOException              If an I/O error occurs while writing.
+	 * @throws IllegalArgumentException If the map cannot be played or has been
+	 *                                  parsed lazily.
+	 */
+	public static void compile(FileAnalysis fileInfos, Path path) throws IOException {
+		compile(fileInfos, path, 0);
+	}
+
+
+	/**
+	 * Compiles a valid map into the specified file. With a size of chunks, the
+	 * compiled map is chunked: its grid is written in a companion chunk file.
+	 *
+	 * @param fileInfos The analysis of the map to compile.
+	 * @param path      The path of the compiled map to write.
+	 * @param chunkSize The number of rows and of columns of a chunk of the grid, 0
+	 *                  to write the grid in the compiled map.
+	 * @throws IOException              If an I/O error occurs while writing.
+	 * @throws IllegalArgumentException If the map cannot be played or has been
+	 *                                  parsed lazily, or if the size of the chunks
+	 *                                  is not valid.
+	 */
+	public static void compile(FileAnalysis fileInfos, Path path, int chunkSize) throws IOException {
+		Objects.requireNonNull(fileInfos);
+		Objects.requireNonNull(path);
+		if (!fileInfos.canPlay()) {
+			throw new IllegalArgumentException("Only a valid map can be compiled");
+		}
+		if (fileInfos.getElementIndex() != null) {
+			throw new IllegalArgumentException("A map parsed lazily cannot be compiled");
+		}
+		var grid = fileInfos.getGrid();
+		if (chunkSize != 0) {
+			compileChunked(path, grid.getLine(), grid.getColumn(), grid.getSkins(), chunkSize, grid::getTileId,
+					fileInfos.getDataOfElements());
+			return;
+		}
+		try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			output.writeInt(MAGIC);
+			output.writeShort(VERSION);
+			output.writeInt(grid.getLine());
+			output.writeInt(grid.getColumn());
+			output.writeShort(grid.getSkins().size());
+			for (var skin : grid.getSkins()) {
+				output.writeUTF(skin);
+			}
+			writeTiles(output, grid.tiles());
+			writeElements(output, fileInfos.getDataOfElements());
+		}
+	}
+
+
+	/**
+	 * Writes a chunked compiled map and its chunk file. The grid is never in
+	 * memory: its tiles are given by a function, called once for each tile.
+	 *
+	 * @param path      The path of the compiled map to write.
+	 * @param line      The number of rows of the grid.
+	 * @param column    The number of columns of the grid.
+	 * @param skins     The skin table of the grid.
+	 * @param chunkSize The number of rows and of columns of a chunk.
+	 * @param tiles     Gives the id in the skin table of the tile at a row and a
+	 *                  column.
+	 * @param elements  The descriptions of the elements of the map.
+	 * @throws IOException              If an I/O error occurs while writing.
+	 * @throws NullPointerException     If path, skins, tiles or elements is null.
+	 * @throws IllegalArgumentException If a size is not valid or if a tile is not
+	 *                                  the id of a skin of the table.
+	 */
+	public static void compileChunked(Path path, int line, int column, List<String> skins, int chunkSize,
+			IntBinaryOperator tiles, List<ElementDescriptor> elements) throws IOException {
+		Objects.requireNonNull(path);
+		Objects.requireNonNull(elements);
+		ChunkedTileStorage.write(line, column, skins, chunkSize, tiles, chunkFileOf(path));
+		try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			output.writeInt(MAGIC);
+			output.writeShort(CHUNKED_VERSION);
+			output.writeInt(line);
+			output.writeInt(column);
+			writeElements(output, elements);
+		}
+	}
+
+
+	/**
+	 * Loads a compiled map and creates the game information it describes. The
+	 * chunks of the grid of a chunked compiled map in memory are limited to
+	 * {@link #DEFAULT_CHUNK_BUDGET}.
+	 *
+	 * @param path The path of the compiled map.
+	 * @return The game information of the map.
+	 * @throws IOException If an I/O error occurs while reading, or if the file is
+	 *                     not a compiled map of a supported version.
+	 */
+	public static GameInformation load(Path path) throws IOException {
+		return load(path, DEFAULT_CHUNK_BUDGET, false);
+	}
+
+
+	/**
+	 * Loads a compiled map and creates the game information it describes.
+	 *
+	 * @param path        The path of the compiled map.
+	 * @param chunkBudget The memory budget of the chunks of the grid kept in
+	 *                    memory, in bytes, if the compiled map is chunked.
+	 * @param offHeap     true to keep the grid off the heap, with its tiles mapped
+	 *                    from the file, if the compiled map is not chunked.
+	 * @return The game information of the map.
+	 * @throws IOException              If an I/O error occurs while reading, or if
+	 *                                  the file is not a compiled map of a
+	 *                                  supported version.
+	 * @throws IllegalArgumentException If the budget is negative.
+	 * @see GameInformation#GameInformation(boolean)
+	 */
+	public static GameInformation load(Path path, long chunkBudget, boolean offHeap) throws IOException {
+		Objects.requireNonNull(path);
+		if (chunkBudget < 0) {
+			throw new IllegalArgumentException("The memory budget cannot be negative");
+		}
+		try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (input.readInt() != MAGIC) {
+				throw new IOException(path + " is not a compiled map");
+			}
+			var version = input.readUnsignedShort();
+			if (version == CHUNKED_VERSION) {
+				return loadChunked(path, input, chunkBudget);
+			}
+			if (version != VERSION) {
+				throw new IOException("Unsupported version " + version + " of compiled map");
+			}
+			var line = input.readInt();
+			var column = input.readInt();
+			var skinCount = input.readUnsignedShort();
+			var skins = new ArrayList<String>(skinCount);
+			for (int i = 0; i < skinCount; i++) {
+				skins.add(input.readUTF());
+			}
+			if (line < 1 || column < 1 || (long) line * column > Files.size(path)) {
+				throw new IOException(path + " is not a valid compiled map");
+			}
+			var size = line * column;
+			ByteBuffer tiles;
+			if (offHeap) {
+				try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+					tiles = channel.map(FileChannel.MapMode.READ_ONLY, headerLength(skins), size);
+				}
+				input.skipNBytes(size);
+			} else {
+				var array = new byte[size];
+				// a big read would be done through a temporary direct buffer of its size, kept by the thread
+				for (int read = 0; read < size; read += TILES_BUFFER) {
+					input.readFully(array, read, Math.min(TILES_BUFFER, size - read));
+				}
+				tiles = ByteBuffer.wrap(array);
+			}
+			var elements = readElements(input);
+			var map = new GameInformation(offHeap);
+			try {
+				map.initialise(new TileGrid(line, column, skins, tiles), elements);
+			} catch (IllegalArgumentException e) {
+				throw new IOException(path + " is not a valid compiled map", e);
+			}
+			return map;
+		}
+	}
+
+
+	/**
+	 * Loads the end of a chunked compiled map, after its version, and opens its
+	 * chunk file.
+	 *
+	 * @param path        The path of the compiled map.
+	 * @param input       The stream of the compiled map.
+	 * @param chunkBudget The memory budget of the chunks of the grid kept in
+	 *                    memory, in bytes.
+	 * @return The game information of the map.
+	 * @throws IOException If an I/O error occurs while reading, or if the chunk
+	 *                     file does not match the compiled map.
+	 */
+	private static GameInformation loadChunked(Path path, DataInputStream input, long chunkBudget)
+			throws IOException {
+		var line = input.readInt();
+		var column = input.readInt();
+		var elements = readElements(input);
+		var grid = ChunkedTileStorage.open(chunkFileOf(path), chunkBudget);
+		try {
+			if (grid.getLine() != line || grid.getColumn() != column) {
+				throw new IOException("The chunk file of " + path + " does not match its size");
+			}
+			var map = new GameInformation();
+			map.initialise(grid, elements);
+			return map;
+		} catch (IllegalArgumentException e) {
+			grid.close();
+			throw new IOException(path + " is not a valid compiled map", e);
+		} catch (IOException e) {
+			grid.close();
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package fr.uge.project.bigAdventure;
+
+import java.util.Objects;
+
+
+/**
+ * Represents the description of an element read in an [element] section of a
+ * map. The numbers are already parsed, a number that has not been informed is
+ * {@link #NOT_INFORMED}, and a text or a position that has not been informed is
+ * null.
+ * <p>
+ * The positions are kept in the order in which they are written in the map,
+ * the first number being {@link Position#i()}.
+ *
+ * @param kind        The kind of the element.
+ * @param name        The name of the element.
+ * @param skin        The skin of the element.
+ * @param position    The position of the element.
+ * @param health      The health of the element.
+ * @param damage      The damage of the element.
+ * @param behavior    The behavior of the element.
+ * @param zone        The position of the zone where the element can move.
+ * @param zoneLines   The first size of the zone.
+ * @param zoneColumns The second size of the zone.
+ */
+public record ElementDescriptor(ElementKind kind, String name, String skin, Position position, int health, int damage,
+		String behavior, Position zone, int zoneLines, int zoneColumns) {
+	/**
+	 * The value of a number that has not been informed.
+	 */
+	public static final int NOT_INFORMED = -1;
+
+
+	/**
+	 * Constructs a new ElementDescriptor.
+	 *
+	 * @throws NullPointerException     If kind is null.
+	 * @throws IllegalArgumentException If a number is negative without being
+	 *                                  {@link #NOT_INFORMED}.
+	 */
+	public ElementDescriptor {
+		Objects.requireNonNull(kind);
+		if (health < NOT_INFORMED || damage < NOT_INFORMED || zoneLines < NOT_INFORMED
+				|| zoneColumns < NOT_INFORMED) {
+			throw new IllegalArgumentException("The numbers of an element cannot be negative");
+		}
+	}
+
+
+	/**
+	 * Gets the position of the element, which must have been informed.
+	 *
+	 * @return The position of the element.
+	 * @throws IllegalArgumentException If the position has not been informed.
+	 */
+	public Position requirePosition() {
+		if (position == null) {
+			throw new IllegalArgumentException("The position of the " + kind.getKeyword() + " has not been informed");
+		}
+		return position;
+	}
+}
@@ -0,0 +1,70 @@
+package fr.uge.project.bigAdventure;
+
+import java.util.Objects;
+
+
+/**
+ * Enumeration of the kinds of elements that can be described in the [element]
+ * sections of a map.
+ */
+public enum ElementKind {
+	/**
+	 * Represents an enemy, which can attack the player.
+	 */
+	ENEMY("enemy"),
+
+	/**
+	 * Represents a friend, which can move in its zone.
+	 */
+	FRIEND("friend"),
+
+	/**
+	 * Represents an item that can be picked up.
+	 */
+	ITEM("item"),
+
+	/**
+	 * Represents an obstacle that blocks the way.
+	 */
+	OBSTACLE("obstacle"),
+
+	/**
+	 * Represents the character played by the user.
+	 */
+	PLAYER("player");
+
+	private final String keyword;
+
+	ElementKind(String keyword) {
+		this.keyword = keyword;
+	}
+
+
+	/**
+	 * Gets the keyword used for this kind in the map files.
+	 *
+	 * @return The keyword of the kind.
+	 */
+	public String getKeyword() {
+		return keyword;
+	}
+
+
+	/**
+	 * Finds the kind that is written with the specified keyword in the map files.
+	 *
+	 * @param keyword The keyword of the kind.
+	 * @return The kind of the keyword, or null if there is no kind with this
+	 *         keyword.
+	 * @throws NullPointerException if keyword is null.
+	 */
+	public static ElementKind fromKeyword(String keyword) {
+		Objects.requireNonNull(keyword);
+		for (var kind : values()) {
+			if (kind.keyword.equals(keyword)) {
+				return kind;
+			}
+		}
+		return null;
+	}
+}
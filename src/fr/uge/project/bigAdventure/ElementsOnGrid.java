@@ -1,7 +1,6 @@
 package fr.uge.project.bigAdventure;
 
 import java.util.Objects;
-import java.util.Set;
 
 
 /**
@@ -9,12 +8,7 @@ import java.util.Set;
  * ElementsOnGrid can be obstacles in the game environment.
  */
 public record ElementsOnGrid(String skin) {
-	private static Set<String> obstacles = Set.of("BED", "BOG", "BOMB", "BRICK", "CHAIR", "CLIFF", "FENCE", "FORT",
-			"HEDGE", "HUSK", "HUSKS", "LOCK", "MONITOR", "PIANO", "PILLAR", "PIPE", "ROCK", "RUBBLE", "SHELL", "SIGN",
-			"SPIKE", "STATUE", "STUMP", "TABLE", "TREE", "TREES", "WALL", "ICE", "LAVA", "WATER", "DOOR", "GATE", "HOUSE",
-			"TOWER");
-	
-	
+
 	/**
 	 * Represents an obstacle on the game grid with a specific visual representation (skin).
 	 */
@@ -24,12 +18,13 @@ public record ElementsOnGrid(String skin) {
 
 	
 	/**
-   * Checks whether the element is an obstacle.
+   * Checks whether the element is an obstacle, with the mask of the
+   * {@link SkinRegistry}.
    *
-   * @return true if the element isn't an obstacle, false if it is in the set.
+   * @return true if the element isn't an obstacle, false if it is one.
    */
 	public boolean canWalk() {
-		return !obstacles.contains(skin);
+		return SkinRegistry.canWalk(skin);
 	}
 
 }
@@ -1,59 +1,38 @@
 package fr.uge.project.bigAdventure;
 
-import java.util.HashMap;
 import java.util.Objects;
 
 
 /**
  * Represents an enemy within the game.
  * Enemies are actors that can interact and move within the game environment.
+ * An Enemy is a view on the data of the enemy kept in an {@link EntityStore}.
  */
 public class Enemy implements AnyElement, ActorOfTheGame {
-	private String skin;
-	private Position zone;
-	private int heightZone;
-	private int widthZone;
-	private String name;
-	private String behavior;
-	private int health;
-	private int maxHelth = -1;
-	private int damage;
+	private final EntityStore store;
+	private final int id;
 
 	
 	/**
-   * Constructs an Enemy object using the provided map of attributes.
+   * Constructs a view on an enemy of an entity store.
    *
-   * @param map A HashMap containing attributes for initializing the enemy.
-   * @throws NullPointerException If the map parameter is null.
+   * @param store The store which keeps the data of the enemy.
+   * @param id    The id of the enemy in the store.
+   * @throws NullPointerException If the store parameter is null.
    */
-	public Enemy(HashMap<String, String> map) {
-		Objects.requireNonNull(map);
-		createNewElemnt(map);
+	Enemy(EntityStore store, int id) {
+		this.store = Objects.requireNonNull(store);
+		this.id = id;
 	}
 
-	
+
 	/**
-	 * Creates a new Enemy element based on the provided attributes in the map.
+	 * Gets the id of the enemy in its entity store.
 	 *
-	 * @param map A HashMap containing attributes for initializing the enemy.
-	 * @throws NullPointerException If the map parameter is null.
+	 * @return The id of the enemy.
 	 */
-	private void createNewElemnt(HashMap<String, String> map) {
-		Objects.requireNonNull(map);
-		if (map.get("zoneX") != null) {
-			int zoneX = Integer.parseInt(map.get("zoneX"));
-			int zoneY = Integer.parseInt(map.get("zoneY"));
-			heightZone = Integer.parseInt(map.get("colonne"));
-			widthZone = Integer.parseInt(map.get("ligne"));
-			zone = new Position(zoneY, zoneX);
-		} else {
-			zone = null;
-		}
-		name = map.get("name");
-		skin = map.get("skin");
-		maxHelth = health = Integer.parseInt(map.get("health"));
-		damage = Integer.parseInt(map.get("damage"));
-		behavior = map.get("behavior");
+	public int getId() {
+		return id;
 	}
 	
 	
@@ -67,16 +46,7 @@ public class Enemy implements AnyElement, ActorOfTheGame {
 	 */
 	@Override
 	public boolean canMooveAtNewPosition(int newX, int newY, GameInformation map) {
-		if (newX < 1 || newX >= map.getLine() || newY < 1 || newY >= map.getColumn()) {
-			return false;
-		}
-		if (newX <= (zone.i() + heightZone) && newX >= (zone.i() - heightZone) && newY <= (zone.j() + widthZone)
-				&& newY >= (zone.j() - widthZone) && map.getElementInGrid(newX, newY).canWalk()
-				&& map.getEnemies().get(new Position(newX, newY)) == null
-				&& map.getObstacles().get(new Position(newX, newY)) == null) {
-			return true;
-		}
-		return false;
+		return store.canMoveTo(id, newX, newY, map);
 	}
 
 	
@@ -87,7 +57,7 @@ public class Enemy implements AnyElement, ActorOfTheGame {
 	 */
 	@Override
 	public String getSkin() {
-		return skin;
+		return SkinRegistry.skinOf(store.skinIdOf(id));
 	}
 
 	
@@ -98,10 +68,7 @@ public class Enemy implements AnyElement, ActorOfTheGame {
 	 */
 	@Override
 	public boolean canMoove() {
-		if (zone == null) {
-			return false;
-		}
-		return true;
+		return store.canMove(id);
 	}
 
 	
@@ -111,7 +78,7 @@ public class Enemy implements AnyElement, ActorOfTheGame {
 	 * @return The damage inflicted by the enemy.
 	 */
 	public int getDamage() {
-		return damage;
+		return store.damageOf(id);
 	}
 
 	
@@ -121,7 +88,7 @@ public class Enemy implements AnyElement, ActorOfTheGame {
 	 * @return The behavior of the enemy.
 	 */
 	public String getBehavior() {
-		return behavior;
+		return store.behaviorOf(id);
 	}
 
 	
@@ -131,7 +98,7 @@ public class Enemy implements AnyElement, ActorOfTheGame {
 	 * @return The name of the enemy.
 	 */
 	public String getName() {
-		return name;
+		return store.nameOf(id);
 	}
 
 	
@@ -141,7 +108,7 @@ public class Enemy implements AnyElement, ActorOfTheGame {
 	 * @return The current health of the enemy.
 	 */
 	public int getHealth() {
-		return health;
+		return store.healthOf(id);
 	}
 
 	
@@ -151,9 +118,9 @@ public class Enemy implements AnyElement, ActorOfTheGame {
 	 * @return The maximum health of the enemy.
 	 */
 	public int getMaxHelth() {
-		return maxHelth;
+		return store.maxHealthOf(id);
 	}
 
 	
 
-}
+}
\ No newline at end of file
@@ -0,0 +1,411 @@
+package fr.uge.project.bigAdventure;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+
+/**
+ * Keeps the data of the elements of the game, the enemies, the friends, the
+ * items, the obstacles and the player, in parallel arrays: one array for each
+ * field, indexed by the id of the element. The loops of the game which go
+ * through all the elements, like the moves of the actors and the drawing, read
+ * these arrays one after the other instead of going from object to object.
+ * <p>
+ * The id of an element does not change while it is in the store; the id of a
+ * removed element can be given to a new element. {@link Enemy}, {@link Friend},
+ * {@link Item} and {@link Obstacle} are views on one id of a store. An
+ * EntityStore is not thread safe.
+ */
+public final class EntityStore {
+	private static final ElementKind[] KINDS = ElementKind.values();
+	/**
+	 * The kind of a removed element in the array of the kinds.
+	 */
+	static final byte REMOVED = -1;
+	private static final byte HAS_ZONE = 1;
+	private static final byte HAS_HEALTH = 2;
+	private int idCount = 0;
+	private int size = 0;
+	private int[] freeIds = new int[16];
+	private int freeCount = 0;
+	private byte[] kinds = new byte[16];
+	private byte[] flags = new byte[16];
+	private int[] rows = new int[16];
+	private int[] columns = new int[16];
+	private int[] skinIds = new int[16];
+	private int[] healths = new int[16];
+	private int[] maxHealths = new int[16];
+	private int[] damages = new int[16];
+	private int[] zoneTops = new int[16];
+	private int[] zoneBottoms = new int[16];
+	private int[] zoneLefts = new int[16];
+	private int[] zoneRights = new int[16];
+	private String[] names = new String[16];
+	private String[] behaviors = new String[16];
+
+
+	/**
+	 * Doubles the size of all the arrays.
+	 */
+	private void grow() {
+		var length = kinds.length * 2;
+		kinds = Arrays.copyOf(kinds, length);
+		flags = Arrays.copyOf(flags, length);
+		rows = Arrays.copyOf(rows, length);
+		columns = Arrays.copyOf(columns, length);
+		skinIds = Arrays.copyOf(skinIds, length);
+		healths = Arrays.copyOf(healths, length);
+		maxHealths = Arrays.copyOf(maxHealths, length);
+		damages = Arrays.copyOf(damages, length);
+		zoneTops = Arrays.copyOf(zoneTops, length);
+		zoneBottoms = Arrays.copyOf(zoneBottoms, length);
+		zoneLefts = Arrays.copyOf(zoneLefts, length);
+		zoneRights = Arrays.copyOf(zoneRights, length);
+		names = Arrays.copyOf(names, length);
+		behaviors = Arrays.copyOf(behaviors, length);
+	}
+
+
+	/**
+	 * Adds an element to the store.
+	 *
+	 * @param descriptor The description of the element read in the map.
+	 * @param i          The row of the element on the grid.
+	 * @param j          The column of the element on the grid.
+	 * @return The id of the element.
+	 * @throws NullPointerException     If descriptor is null.
+	 * @throws IllegalArgumentException If the description misses an information
+	 *                                  required by the kind of the element, or if
+	 *                                  its skin is not in the {@link SkinRegistry}.
+	 */
+	public int add(ElementDescriptor descriptor, int i, int j) {
+		Objects.requireNonNull(descriptor);
+		var kind = descriptor.kind();
+		if (kind == ElementKind.ENEMY && (descriptor.health() == ElementDescriptor.NOT_INFORMED
+				|| descriptor.damage() == ElementDescriptor.NOT_INFORMED)) {
+			throw new IllegalArgumentException("An enemy must have a health and a damage");
+		}
+		if (kind == ElementKind.FRIEND && descriptor.zone() == null) {
+			throw new IllegalArgumentException("A friend must have a zone");
+		}
+		var skinId = SkinRegistry.idOf(Objects.requireNonNull(descriptor.skin()));
+		if (skinId == SkinRegistry.UNKNOWN) {
+			throw new IllegalArgumentException("The skin " + descriptor.skin() + " is not a skin of the game");
+		}
+		int id;
+		if (freeCount > 0) {
+			id = freeIds[--freeCount];
+		} else {
+			if (idCount == kinds.length) {
+				grow();
+			}
+			id = idCount++;
+		}
+		size++;
+		kinds[id] = (byte) kind.ordinal();
+		flags[id] = 0;
+		rows[id] = i;
+		columns[id] = j;
+		skinIds[id] = skinId;
+		names[id] = descriptor.name();
+		behaviors[id] = kind == ElementKind.ENEMY ? descriptor.behavior() : null;
+		healths[id] = 0;
+		maxHealths[id] = -1;
+		if (descriptor.health() != ElementDescriptor.NOT_INFORMED && kind != ElementKind.ITEM
+				&& kind != ElementKind.OBSTACLE) {
+			flags[id] |= HAS_HEALTH;
+			healths[id] = maxHealths[id] = descriptor.health();
+		}
+		damages[id] = descriptor.damage() != ElementDescriptor.NOT_INFORMED
+				&& (kind == ElementKind.ENEMY || kind == ElementKind.ITEM) ? descriptor.damage() : 0;
+		var zone = descriptor.zone();
+		if (zone != null && (kind == ElementKind.ENEMY || kind == ElementKind.FRIEND)) {
+			flags[id] |= HAS_ZONE;
+			if (kind == ElementKind.ENEMY) {
+				// the zone is written in the map as a column then a row
+				setZone(id, zone.j(), zone.i(), descriptor.zoneColumns(), descriptor.zoneLines());
+			} else {
+				// the zone of a friend is read in the order in which it is written
+				setZone(id, zone.i(), zone.j(), descriptor.zoneLines(), descriptor.zoneColumns());
+			}
+		}
+		return id;
+	}
+
+
+	/**
+	 * Sets the bounds of the zone where an actor can move.
+	 *
+	 * @param id     The id of the actor.
+	 * @param row    The row of the center of the zone.
+	 * @param column The column of the center of the zone.
+	 * @param height The number of rows on each side of the center.
+	 * @param width  The number of columns on each side of the center.
+	 */
+	private void setZone(int id, int row, int column, int height, int width) {
+		zoneTops[id] = row - height;
+		zoneBottoms[id] = row + height;
+		zoneLefts[id] = column - width;
+		zoneRights[id] = column + width;
+	}
+
+
+	/**
+	 * Removes an element from the store. Its id can be given to a next element.
+	 *
+	 * @param id The id of the element.
+	 * @throws IllegalArgumentException If there is no element with this id.
+	 */
+	public void remove(int id) {
+		checkId(id);
+		kinds[id] = REMOVED;
+		names[id] = null;
+		behaviors[id] = null;
+		if (freeCount == freeIds.length) {
+			freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+		}
+		freeIds[freeCount++] = id;
+		size--;
+	}
+
+
+	/**
+	 * Checks that an id is the id of an element of the store.
+	 *
+	 * @param id The id.
+	 * @throws IllegalArgumentException If there is no element with this id.
+	 */
+	private void checkId(int id) {
+		if (id < 0 || id >= idCount || kinds[id] == REMOVED) {
+			throw new IllegalArgumentException("There is no element with the id " + id);
+		}
+	}
+
+
+	/**
+	 * Gets the number of elements of the store.
+	 *
+	 * @return The number of elements.
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * Gets the number of ids given by the store. All the ids are smaller than
+	 * this number, so the loops on the elements go from 0 to this number and skip
+	 * the ids whose kind is null.
+	 *
+	 * @return The number of ids given.
+	 */
+	public int idCount() {
+		return idCount;
+	}
+
+
+	/**
+	 * Gets the kind of an element.
+	 *
+	 * @param id The id, smaller than {@link #idCount()}.
+	 * @return The kind of the element, or null if the element has been removed.
+	 */
+	public ElementKind kindOf(int id) {
+		var kind = kinds[id];
+		return kind == REMOVED ? null : KINDS[kind];
+	}
+
+
+	/**
+	 * Gets the row of an element on the grid.
+	 *
+	 * @param id The id of the element.
+	 * @return The row of the element.
+	 */
+	public int rowOf(int id) {
+		return rows[id];
+	}
+
+
+	/**
+	 * Gets the column of an element on the grid.
+	 *
+	 * @param id The id of the element.
+	 * @return The column of the element.
+	 */
+	public int columnOf(int id) {
+		return columns[id];
+	}
+
+
+	/**
+	 * Changes the position of an element on the grid.
+	 *
+	 * @param id The id of the element.
+	 * @param i  The new row of the element.
+	 * @param j  The new column of the element.
+	 * @throws IllegalArgumentException If there is no element with this id.
+	 */
+	public void moveTo(int id, int i, int j) {
+		checkId(id);
+		rows[id] = i;
+		columns[id] = j;
+	}
+
+
+	/**
+	 * Gets the id of the skin of an element in the {@link SkinRegistry}.
+	 *
+	 * @param id The id of the element.
+	 * @return The id of the skin.
+	 */
+	public int skinIdOf(int id) {
+		return skinIds[id];
+	}
+
+
+	/**
+	 * Gets the name of an element.
+	 *
+	 * @param id The id of the element.
+	 * @return The name of the element.
+	 */
+	public String nameOf(int id) {
+		return names[id];
+	}
+
+
+	/**
+	 * Gets the behavior of an enemy.
+	 *
+	 * @param id The id of the enemy.
+	 * @return The behavior of the enemy, or null if it has not been informed.
+	 */
+	public String behaviorOf(int id) {
+		return behaviors[id];
+	}
+
+
+	/**
+	 * Gets the current health of an actor.
+	 *
+	 * @param id The id of the actor.
+	 * @return The health of the actor, 0 if it has no health.
+	 */
+	public int healthOf(int id) {
+		return healths[id];
+	}
+
+
+	/**
+	 * Changes the current health of an actor.
+	 *
+	 * @param id     The id of the actor.
+	 * @param health The new health of the actor.
+	 * @throws IllegalArgumentException If there is no element with this id.
+	 */
+	public void changeHealth(int id, int health) {
+		checkId(id);
+		healths[id] = health;
+	}
+
+
+	/**
+	 * Gets the maximum health of an actor.
+	 *
+	 * @param id The id of the actor.
+	 * @return The maximum health of the actor, -1 if it has no health.
+	 */
+	public int maxHealthOf(int id) {
+		return maxHealths[id];
+	}
+
+
+	/**
+	 * Checks if the health of an actor has been informed in the map.
+	 *
+	 * @param id The id of the actor.
+	 * @return true if the actor has a health, false otherwise.
+	 */
+	public boolean hasHealth(int id) {
+		return (flags[id] & HAS_HEALTH) != 0;
+	}
+
+
+	/**
+	 * Gets the damage of an enemy or an item.
+	 *
+	 * @param id The id of the element.
+	 * @return The damage of the element, 0 if it has no damage.
+	 */
+	public int damageOf(int id) {
+		return damages[id];
+	}
+
+
+	/**
+	 * Checks if an actor can move, which is when it has a zone.
+	 *
+	 * @param id The id of the actor.
+	 * @return true if the actor can move, false otherwise.
+	 */
+	public boolean canMove(int id) {
+		return (flags[id] & HAS_ZONE) != 0;
+	}
+
+
+	/**
+	 * Checks if a cell is in the zone where an actor can move.
+	 *
+	 * @param id The id of the actor.
+	 * @param i  The row of the cell.
+	 * @param j  The column of the cell.
+	 * @return true if the actor has a zone and the cell is in it, false otherwise.
+	 */
+	public boolean isInZone(int id, int i, int j) {
+		return (flags[id] & HAS_ZONE) != 0 && i >= zoneTops[id] && i <= zoneBottoms[id] && j >= zoneLefts[id]
+				&& j <= zoneRights[id];
+	}
+
+
+	/**
+	 * Copies the kinds, the positions and the healths of all the ids of the store
+	 * in arrays of at least {@link #idCount()} values. A kind is the ordinal of an
+	 * {@link ElementKind}, or {@link #REMOVED}.
+	 *
+	 * @param kinds   The array receiving the kinds.
+	 * @param rows    The array receiving the rows.
+	 * @param columns The array receiving the columns.
+	 * @param healths The array receiving the current healths.
+	 */
+	void copyState(byte[] kinds, int[] rows, int[] columns, int[] healths) {
+		System.arraycopy(this.kinds, 0, kinds, 0, idCount);
+		System.arraycopy(this.rows, 0, rows, 0, idCount);
+		System.arraycopy(this.columns, 0, columns, 0, idCount);
+		System.arraycopy(this.healths, 0, healths, 0, idCount);
+	}
+
+
+	/**
+	 * Checks if an actor can move to the specified cell: the cell must be in the
+	 * grid without being on its first row or column, in the zone of the actor,
+	 * walkable, and free of enemies, friends and obstacles. A friend cannot go on
+	 * the player either.
+	 *
+	 * @param id  The id of the actor.
+	 * @param i   The row of the cell.
+	 * @param j   The column of the cell.
+	 * @param map The game information providing the grid.
+	 * @return true if the actor can move to the cell, false otherwise.
+	 */
+	public boolean canMoveTo(int id, int i, int j, GameInformation map) {
+		if (i < 1 || i >= map.getLine() || j < 1 || j >= map.getColumn() || !isInZone(id, i, j)) {
+			return false;
+		}
+		var blocking = GameInformation.ENEMY | GameInformation.FRIEND | GameInformation.OBSTACLE;
+		if (kinds[id] != ElementKind.ENEMY.ordinal()) {
+			blocking |= GameInformation.PLAYER;
+		}
+		return map.canWalkUnchecked(i, j) && !map.isOccupiedUnchecked(i, j, blocking);
+	}
+}
@@ -1,60 +1,41 @@
 package fr.uge.project.bigAdventure;
 
-import java.util.HashMap;
 import java.util.Objects;
 
 
 /**
  * Represents a friend within the game.
  * Friends are actors that can interact and move within the game environment.
+ * A Friend is a view on the data of the friend, or of the player, kept in an
+ * {@link EntityStore}.
  */
 public class Friend implements AnyElement, ActorOfTheGame {
-	private String skin;
-	private Position zone;
-	private int heightZone;
-	private int widthZone;
-	private String name;
-	private int health;
-	private int maxHelth = -1;
-	private boolean haveHealth = false;
+	private final EntityStore store;
+	private final int id;
+
 
-	
 	/**
-	 * Constructs a new Friend based on the provided information.
+	 * Constructs a view on a friend of an entity store.
 	 *
-	 * @param map A HashMap containing information about the friend.
-	 * @throws NullPointerException If the map parameter is null.
+	 * @param store The store which keeps the data of the friend.
+	 * @param id    The id of the friend in the store.
+	 * @throws NullPointerException If the store parameter is null.
 	 */
-	public Friend(HashMap<String, String> map) {
-		Objects.requireNonNull(map);
-		createNewElemnt(map);
+	Friend(EntityStore store, int id) {
+		this.store = Objects.requireNonNull(store);
+		this.id = id;
 	}
 
-	
+
 	/**
-	 * Creates a new Friend element based on the information provided in the map.
+	 * Gets the id of the friend in its entity store.
 	 *
-	 * @param map A HashMap containing information about the friend.
-	 * @throws NullPointerException If the map parameter is null.
+	 * @return The id of the friend.
 	 */
-	private void createNewElemnt(HashMap<String, String> map) {
-		Objects.requireNonNull(map);
-		if (!map.get("kind").equals("player")) {
-			int zoneX = Integer.parseInt(map.get("zoneX"));
-			int zoneY = Integer.parseInt(map.get("zoneY"));
-			heightZone = Integer.parseInt(map.get("ligne"));
-			widthZone = Integer.parseInt(map.get("colonne"));
-			zone = new Position(zoneX, zoneY);
-		}
-		name = map.get("name");
-		skin = map.get("skin");
-		if (map.get("health") != null) {
-			haveHealth = true;
-			maxHelth = health = Integer.parseInt(map.get("health"));
-		}
+	public int getId() {
+		return id;
 	}
 
-	
 	/**
 	 * Checks if the Friend can move.
 	 *
@@ -62,10 +43,7 @@ public class Friend implements AnyElement, ActorOfTheGame {
 	 */
 	@Override
 	public boolean canMoove() {
-		if (zone == null) {
-			return false;
-		}
-		return true;
+		return store.canMove(id);
 	}
 
 	
@@ -79,16 +57,7 @@ public class Friend implements AnyElement, ActorOfTheGame {
 	 */
 	@Override
 	public boolean canMooveAtNewPosition(int newX, int newY, GameInformation map) {
-		if (newX < 1 || newX >= map.getLine() || newY < 1 || newY >= map.getColumn()) {
-			return false;
-		}
-		if (newX <= (zone.i() + heightZone) && newX >= (zone.i() - heightZone) && newY <= (zone.j() + widthZone)
-				&& newY >= (zone.j() - widthZone) && map.getElementInGrid(newX, newY).canWalk()
-				&& map.getEnemies().get(new Position(newX, newY)) == null
-				&& map.getObstacles().get(new Position(newX, newY)) == null) {
-			return true;
-		}
-		return false;
+		return store.canMoveTo(id, newX, newY, map);
 	}
 
 	
@@ -99,7 +68,7 @@ public class Friend implements AnyElement, ActorOfTheGame {
 	 */
 	@Override
 	public String getSkin() {
-		return skin;
+		return SkinRegistry.skinOf(store.skinIdOf(id));
 	}
 
 	/**
@@ -108,7 +77,7 @@ public class Friend implements AnyElement, ActorOfTheGame {
 	 * @return The name of the Friend.
 	 */
 	public String getName() {
-	    return name;
+	    return store.nameOf(id);
 	}
 
 
@@ -118,7 +87,7 @@ public class Friend implements AnyElement, ActorOfTheGame {
 	 * @return The current health of the Friend.
 	 */
 	public int getHealth() {
-	    return health;
+	    return store.healthOf(id);
 	}
 
 
@@ -128,7 +97,7 @@ public class Friend implements AnyElement, ActorOfTheGame {
 	 * @param newHealth The new health value for the Friend.
 	 */
 	public void changeHelth(int newHealth) {
-	    health = newHealth;
+	    store.changeHealth(id, newHealth);
 	}
 
 
@@ -138,7 +107,7 @@ public class Friend implements AnyElement, ActorOfTheGame {
 	 * @return The maximum health of the Friend.
 	 */
 	public int getMaxHelth() {
-		return maxHelth;
+		return store.maxHealthOf(id);
 	}
 
 	/**
@@ -147,7 +116,7 @@ public class Friend implements AnyElement, ActorOfTheGame {
 	 * @return True if the Friend has health information, false otherwise.
 	 */
 	public boolean haveHealth() {
-		return haveHealth;
+		return store.hasHealth(id);
 	}
 
 }
@@ -1,13 +1,23 @@
 package fr.uge.project.bigAdventure;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
 
+import fr.uge.project.parser.ElementIndex;
 import fr.uge.project.parser.FileAnalysis;
 
 
@@ -15,16 +25,46 @@ import fr.uge.project.parser.FileAnalysis;
  * Constructs a new GameInformation object, initializing empty collections for enemies, friends,
  * items, obstacles, and images.
  */
-public class GameInformation {
+public class GameInformation implements AutoCloseable {
+	/**
+	 * The layer of the cells containing an enemy.
+	 */
+	public static final int ENEMY = 1;
+	/**
+	 * The layer of the cells containing a friend.
+	 */
+	public static final int FRIEND = 2;
+	/**
+	 * The layer of the cells containing an item.
+	 */
+	public static final int ITEM = 4;
+	/**
+	 * The layer of the cells containing an obstacle.
+	 */
+	public static final int OBSTACLE = 8;
+	/**
+	 * The layer of the cell containing the player character.
+	 */
+	public static final int PLAYER = 16;
 	private int gridColumn, gridLine;
-	private ElementsOnGrid[][] array;
-	private final Map<Position, Enemy> enemies;
-	private final Map<Position, Friend> friends;
-	private final Map<Position, Item> items;
-	private final Map<Position, Obstacle> obstacles;
+	private TileStorage grid;
+	private int[] skinIdOfTileId;
+	private BufferedImage[] imageOfSkinId;
+	private LongBuffer walkableTiles;
+	private ByteBuffer occupancy;
+	private PositionMap<Byte> occupiedCells;
+	private final PositionMap<Enemy> enemies;
+	private final PositionMap<Friend> friends;
+	private final PositionMap<Item> items;
+	private final PositionMap<Obstacle> obstacles;
+	private final EntityStore entities;
+	private final ArrayList<ElementDescriptor> descriptors = new ArrayList<>();
 	private final Map<String, BufferedImage> allImages;
 	private Friend perso = null;
 	private Position positionOfPerso;
+	private ElementIndex lazyElements = null;
+	private final boolean offHeap;
+	private long gridHash = -1;
 
 	
 	/**
@@ -32,41 +72,31 @@ public class GameInformation {
 	 * items, obstacles, and images.
 	 */
 	public GameInformation() {
-		enemies = new HashMap<>();
-		friends = new HashMap<>();
-		items = new HashMap<>();
-		obstacles = new HashMap<>();
-		allImages = new HashMap<>();
+		this(false);
 	}
 
-	
-	/**
-   * Creates a 2D array to represent the game grid with the specified number of rows and columns.
-   *
-   * @param line   The number of rows in the grid.
-   * @param column The number of columns in the grid.
-   */
-	private void createMapArray(int line, int column) {
-		if (line < 1 || column < 1) {
-			throw new IllegalArgumentException("The row and column must be greater than 1");
-		}
-		gridColumn = column;
-		gridLine = line;
-		array = new ElementsOnGrid[line][column];
-	}
 
 	/**
-   * Adds an element to the grid at the specified position i,j.
-   *
-   * @param i        The row index.
-   * @param j        The column index.
-   * @param elements The ElementsOnGrid object to add.
-   */
-  private void addOnGrid(int i, int j, ElementsOnGrid elements) {
-      Objects.requireNonNull(elements);
-      array[i][j] = elements;
-  }
+	 * Constructs a new GameInformation object whose grid can be kept off the heap:
+	 * its tiles, its walkability bitmap and its occupancy are then in direct
+	 * buffers, or in a buffer mapped from the compiled map file for the tiles, so
+	 * the garbage collector does not see them. This has no effect on a grid read
+	 * from a chunk file, which is never all in memory.
+	 *
+	 * @param offHeap true to keep the grid off the heap, false to keep it on the
+	 *                heap.
+	 */
+	public GameInformation(boolean offHeap) {
+		this.offHeap = offHeap;
+		enemies = new PositionMap<>();
+		friends = new PositionMap<>();
+		items = new PositionMap<>();
+		obstacles = new PositionMap<>();
+		entities = new EntityStore();
+		allImages = new HashMap<>();
+	}
 
+	
   /**
    * Gets the player character.
    *
@@ -78,6 +108,7 @@ public class GameInformation {
 
   /**
    * Adds a BufferedImage to the allImages Map based on the specified skin identifier.
+   * The image of a skin of the {@link SkinRegistry} can also be found from its id.
    *
    * @param skin The skin identifier.
    * @throws IOException If an I/O error occurs while reading the image.
@@ -87,6 +118,10 @@ public class GameInformation {
 			var input = GameInformation.class.getResourceAsStream("/images/" + skin + ".png");
 			var image = ImageIO.read(input);
 			allImages.put(skin, image);
+			var skinId = SkinRegistry.idOf(skin);
+			if (skinId > SkinRegistry.NOTHING) {
+				imageOfSkinId[skinId] = image;
+			}
 		}
 	}
 	
@@ -102,141 +137,284 @@ public class GameInformation {
 	
 	
 	/**
-	 * Initializes the game grid based on the information provided in the FileAnalysis object.
-	 *
-	 * @param fileInfos The FileAnalysis object containing game grid data(String).
-	 * @throws IOException If an I/O error occurs while reading the grid data.
-	 */
-	private void initialiseGrid(FileAnalysis fileInfos) throws IOException {
-		int line = 0;
-		int column = 0;
-		var map = fileInfos.getMapToRead();
-		int length = map.length();
-		int read = 3 + fileInfos.getToReadMargin();
-		while (read < length) {
-			char current = map.charAt(read);
-			switch (current) {
-			case '\n':
-				line++;
-				column = 0;
-				read += fileInfos.getToReadMargin();
-				break;
-			case '"':
-				return;
-			case ' ':
-				addOnGrid(line, column, new ElementsOnGrid("NOTHING"));
-				column++;
-				read++;
-				break;
-			default:
-				var skin = fileInfos.getGridEncoding().get(current);
-				addOnGrid(line, column, new ElementsOnGrid(skin));
+	 * Initializes the game grid from its tiles. The tiles are kept as they are, not
+	 * copied: the id of a tile in the skin table of the grid is translated to the
+	 * id of its skin in the {@link SkinRegistry} when it is read. When all the
+	 * tiles are in memory, the walkability of the tiles is computed once, in a
+	 * bitmap with one bit per tile, and the occupancy of the grid has one byte per
+	 * tile; off the heap, the tiles are copied in a direct buffer if they are in an
+	 * array. When the tiles are read from a chunk file, nothing is created for each
+	 * tile: the walkability is found from the skin of the tile, and the occupancy
+	 * is only kept for the cells which contain an element.
+	 *
+	 * @param grid The tiles of the grid.
+	 * @throws IOException              If an I/O error occurs while reading the
+	 *                                  images of the skins.
+	 * @throws IllegalArgumentException If a skin of the grid is not in the
+	 *                                  registry.
+	 */
+	private void initialiseGrid(TileStorage grid) throws IOException {
+		Objects.requireNonNull(grid);
+		var tileGrid = grid instanceof TileGrid flat ? flat : null;
+		if (offHeap && tileGrid != null && !tileGrid.isOffHeap()) {
+			tileGrid = tileGrid.toOffHeap();
+			grid = tileGrid;
+		}
+		this.grid = grid;
+		gridColumn = grid.getColumn();
+		gridLine = grid.getLine();
+		var skins = grid.getSkins();
+		// the tiles of a chunk file are not all read to find the skins they use
+		var used = tileGrid != null ? tileGrid.usedSkinIds() : null;
+		skinIdOfTileId = new int[skins.size()];
+		imageOfSkinId = new BufferedImage[SkinRegistry.size()];
+		for (int id = 0; id < skins.size(); id++) {
+			var skin = skins.get(id);
+			skinIdOfTileId[id] = SkinRegistry.idOf(skin);
+			if (skinIdOfTileId[id] == SkinRegistry.UNKNOWN) {
+				throw new IllegalArgumentException("The skin " + skin + " is not a skin of the game");
+			}
+			if ((used == null || used[id]) && skinIdOfTileId[id] != SkinRegistry.NOTHING) {
 				addBufferedImage(skin);
-				column++;
-				read++;
 			}
 		}
+		if (tileGrid == null) {
+			walkableTiles = null;
+			occupancy = null;
+			occupiedCells = new PositionMap<>();
+			return;
+		}
+		occupiedCells = null;
+		var tiles = tileGrid.tiles();
+		var size = tiles.capacity();
+		var words = (size + 63) / 64;
+		occupancy = offHeap ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+		walkableTiles = offHeap ? ByteBuffer.allocateDirect(words * 8).order(ByteOrder.nativeOrder()).asLongBuffer()
+				: LongBuffer.allocate(words);
+		for (int word = 0; word < words; word++) {
+			var bits = 0L;
+			for (int index = word * 64; index < Math.min(size, word * 64 + 64); index++) {
+				if (SkinRegistry.canWalk(skinIdOfTileId[tiles.get(index) & 0xFF])) {
+					bits |= 1L << index;
+				}
+			}
+			walkableTiles.put(word, bits);
+		}
+	}
+
+	/**
+	 * Gets the position on the grid of the described element. The position is
+	 * written in the map as a column then a row.
+	 *
+	 * @param descriptor The description of the element.
+	 * @return The position of the element on the grid.
+	 * @throws IllegalArgumentException If the position has not been informed.
+	 */
+	private static Position positionOnGrid(ElementDescriptor descriptor) {
+		var position = descriptor.requirePosition();
+		return new Position(position.j(), position.i());
+	}
+
+
+	/**
+	 * Adds the specified layers to a cell of the occupancy of the grid. A position
+	 * outside of the grid is ignored.
+	 *
+	 * @param i      The row of the cell.
+	 * @param j      The column of the cell.
+	 * @param layers The layers to add, for example {@link #ENEMY}.
+	 */
+	private void occupy(int i, int j, int layers) {
+		if (i >= 0 && j >= 0 && i < gridLine && j < gridColumn) {
+			if (occupancy != null) {
+				var index = i * gridColumn + j;
+				occupancy.put(index, (byte) (occupancy.get(index) | layers));
+			} else {
+				// the Bytes are cached, so no object is created
+				occupiedCells.put(i, j, (byte) (occupancyOf(i, j) | layers));
+			}
+		}
+	}
+
+
+	/**
+	 * Gets the occupancy of a cell of the grid.
+	 *
+	 * @param i The row of the cell, in the grid.
+	 * @param j The column of the cell, in the grid.
+	 * @return The layers of the elements in the cell.
+	 */
+	private int occupancyOf(int i, int j) {
+		if (occupancy != null) {
+			return occupancy.get(i * gridColumn + j);
+		}
+		var layers = occupiedCells.get(i, j);
+		return layers == null ? 0 : layers;
 	}
 
+
+	/**
+	 * Removes the specified layers from a cell of the occupancy of the grid. A
+	 * position outside of the grid is ignored.
+	 *
+	 * @param i      The row of the cell.
+	 * @param j      The column of the cell.
+	 * @param layers The layers to remove, for example {@link #ENEMY}.
+	 */
+	private void leave(int i, int j, int layers) {
+		if (i >= 0 && j >= 0 && i < gridLine && j < gridColumn) {
+			if (occupancy != null) {
+				var index = i * gridColumn + j;
+				occupancy.put(index, (byte) (occupancy.get(index) & ~layers));
+				return;
+			}
+			var left = occupancyOf(i, j) & ~layers;
+			if (left == 0) {
+				occupiedCells.remove(i, j);
+			} else {
+				occupiedCells.put(i, j, (byte) left);
+			}
+		}
+	}
+
+
+	/**
+	 * Keeps the description of the element of an id, so that the state of the
+	 * element can be carried over to a new version of the map.
+	 *
+	 * @param id         The id of the element.
+	 * @param descriptor The description of the element.
+	 */
+	private void describe(int id, ElementDescriptor descriptor) {
+		while (descriptors.size() <= id) {
+			descriptors.add(null);
+		}
+		descriptors.set(id, descriptor);
+	}
+
+
 	/**
 	 * Adds a new enemy to the enemies map.
 	 *
-	 * @param newEnemy A HashMap containing information about the new enemy.
+	 * @param newEnemy The description of the new enemy.
 	 * @throws NullPointerException If the newEnemy parameter is null.
 	 */
-	private void addEnemy(HashMap<String, String> newEnemy) {
+	private void addEnemy(ElementDescriptor newEnemy) {
 		Objects.requireNonNull(newEnemy);
-		var positionX = Integer.parseInt(newEnemy.get("positionX"));
-		var positionY = Integer.parseInt(newEnemy.get("positionY"));
-		enemies.put(new Position(positionY, positionX), new Enemy(newEnemy));
+		var position = positionOnGrid(newEnemy);
+		var id = entities.add(newEnemy, position.i(), position.j());
+		describe(id, newEnemy);
+		var replaced = enemies.put(position.i(), position.j(), new Enemy(entities, id));
+		if (replaced != null) {
+			entities.remove(replaced.getId());
+			descriptors.set(replaced.getId(), null);
+		}
+		occupy(position.i(), position.j(), ENEMY);
 	}
 
 	
 	/**
 	 * Adds a new friend to the Friends map.
 	 *
-	 * @param newFriend A HashMap containing information about the new friend.
+	 * @param newFriend The description of the new friend.
 	 * @throws NullPointerException If the newFriend parameter is null.
 	 */
-	private void addFriend(HashMap<String, String> newFriend) {
+	private void addFriend(ElementDescriptor newFriend) {
 		Objects.requireNonNull(newFriend);
-		var positionX = Integer.parseInt(newFriend.get("positionX"));
-		var positionY = Integer.parseInt(newFriend.get("positionY"));
-		friends.put(new Position(positionY, positionX), new Friend(newFriend));
+		var position = positionOnGrid(newFriend);
+		var id = entities.add(newFriend, position.i(), position.j());
+		describe(id, newFriend);
+		var replaced = friends.put(position.i(), position.j(), new Friend(entities, id));
+		if (replaced != null) {
+			entities.remove(replaced.getId());
+			descriptors.set(replaced.getId(), null);
+		}
+		occupy(position.i(), position.j(), FRIEND);
 	}
 
 	/**
 	 * Adds a new obstacle to the Obstacles map.
 	 *
-	 * @param newObstacle A HashMap containing information about the new obstacle.
+	 * @param newObstacle The description of the new obstacle.
 	 * @throws NullPointerException If the newObstacle parameter is null.
 	 */
-	private void addObstacle(HashMap<String, String> newObstacle) {
+	private void addObstacle(ElementDescriptor newObstacle) {
 		Objects.requireNonNull(newObstacle);
-		var positionX = Integer.parseInt(newObstacle.get("positionX"));
-		var positionY = Integer.parseInt(newObstacle.get("positionY"));
-		obstacles.put(new Position(positionY, positionX), new Obstacle(newObstacle));
+		var position = positionOnGrid(newObstacle);
+		var id = entities.add(newObstacle, position.i(), position.j());
+		describe(id, newObstacle);
+		var replaced = obstacles.put(position.i(), position.j(), new Obstacle(entities, id));
+		if (replaced != null) {
+			entities.remove(replaced.getId());
+			descriptors.set(replaced.getId(), null);
+		}
+		occupy(position.i(), position.j(), OBSTACLE);
 	}
 
 	
 	/**
 	 * Adds a new item to the Items map.
 	 *
-	 * @param newItem A HashMap containing information about the new item.
+	 * @param newItem The description of the new item.
 	 * @throws NullPointerException If the newItem parameter is null.
 	 */
-	private void addItem(HashMap<String, String> newItem) {
+	private void addItem(ElementDescriptor newItem) {
 		Objects.requireNonNull(newItem);
-		var positionX = Integer.parseInt(newItem.get("positionX"));
-		var positionY = Integer.parseInt(newItem.get("positionY"));
-		items.put(new Position(positionY, positionX), new Item(newItem));
+		var position = positionOnGrid(newItem);
+		var id = entities.add(newItem, position.i(), position.j());
+		describe(id, newItem);
+		var replaced = items.put(position.i(), position.j(), new Item(entities, id));
+		if (replaced != null) {
+			entities.remove(replaced.getId());
+			descriptors.set(replaced.getId(), null);
+		}
+		occupy(position.i(), position.j(), ITEM);
 	}
 
 	
 	/**
 	 * Adds a new player character to the game.
 	 *
-	 * @param newPlayer A HashMap containing information about the new player character.
+	 * @param newPlayer The description of the new player character.
 	 * @throws NullPointerException If the newPlayer parameter is null.
 	 */
-	private void addPlayer(HashMap<String, String> newPlayer) {
+	private void addPlayer(ElementDescriptor newPlayer) {
 		Objects.requireNonNull(newPlayer);
-		var positionX = Integer.parseInt(newPlayer.get("positionX"));
-		var positionY = Integer.parseInt(newPlayer.get("positionY"));
-		positionOfPerso = new Position(positionY, positionX);
-		perso = new Friend(newPlayer);
+		positionOfPerso = positionOnGrid(newPlayer);
+		perso = new Friend(entities, entities.add(newPlayer, positionOfPerso.i(), positionOfPerso.j()));
+		describe(perso.getId(), newPlayer);
+		occupy(positionOfPerso.i(), positionOfPerso.j(), PLAYER);
 	}
 
 	
 	/**
-	 * Initializes various game elements based on the information provided in the list of HashMaps.
+	 * Initializes various game elements based on the provided descriptions.
 	 *
-	 * @param allElements A List of HashMaps, where each HashMap contains information about a game element.
-	 *                    Each HashMap must include a "kind" key indicating the type of the element and a "skin" key
-	 *                    indicating the visual representation of the element. The specific keys required depend on the
-	 *                    type of element.
-	 * @throws IOException           If an I/O error occurs while processing image data.
-	 * @throws NullPointerException  If any element in the list or its required information is null.
-	 * @throws IllegalArgumentException If the "kind" key is missing or has an unsupported value.
+	 * @param allElements The descriptions of the game elements. The kind of each
+	 *                    description selects the type of element that is created.
+	 * @throws IOException              If an I/O error occurs while processing
+	 *                                  image data.
+	 * @throws NullPointerException     If any element in the list is null.
+	 * @throws IllegalArgumentException If the description of an element misses a
+	 *                                  required information.
 	 */
-
-	private void initialiseOtherElements(List<HashMap<String, String>> allElements) throws IOException {
+	private void initialiseOtherElements(List<ElementDescriptor> allElements) throws IOException {
 		for (var informations : allElements) {
-			addBufferedImage(informations.get("skin"));
-			switch (informations.get("kind")) {
-			case "enemy":
+			addBufferedImage(informations.skin());
+			switch (informations.kind()) {
+			case ENEMY:
 				addEnemy(informations);
 				break;
-			case "item":
+			case ITEM:
 				addItem(informations);
 				break;
-			case "obstacle":
+			case OBSTACLE:
 				addObstacle(informations);
 				break;
-			case "friend":
+			case FRIEND:
 				addFriend(informations);
 				break;
-			case "player":
+			case PLAYER:
 				addPlayer(informations);
 				break;
 			}
@@ -246,14 +424,53 @@ public class GameInformation {
 	
 	/**
 	 * Initializes the game information based on the parsing results from a FileAnalysis object.
+	 * If the map has been parsed lazily, only the elements near the player
+	 * character are created, the others are created when the player character
+	 * comes near them.
 	 *
 	 * @param fileInfos The FileAnalysis object containing parsed game information.
 	 * @throws IOException If an I/O error occurs while processing grid or element data.
 	 */
 	public void initialiseFromParseur(FileAnalysis fileInfos) throws IOException {
-		createMapArray(fileInfos.getLine(), fileInfos.getColumn());
-		initialiseGrid(fileInfos);
-		initialiseOtherElements(fileInfos.getDataOfElements());
+		initialise(fileInfos.getGrid(), fileInfos.getDataOfElements());
+		lazyElements = fileInfos.getElementIndex();
+		if (lazyElements != null) {
+			materializeAround(positionOfPerso);
+		}
+	}
+
+
+	/**
+	 * Creates the elements of the chunks around the specified position which have
+	 * not been created yet. The chunk of the position and the eight chunks around
+	 * it are created.
+	 *
+	 * @param position The position on the grid.
+	 * @throws IOException If an I/O error occurs while reading the images of the
+	 *                     elements.
+	 */
+	private void materializeAround(Position position) throws IOException {
+		var chunkRow = position.i() / ElementIndex.CHUNK_SIZE;
+		var chunkColumn = position.j() / ElementIndex.CHUNK_SIZE;
+		for (int i = chunkRow - 1; i <= chunkRow + 1; i++) {
+			for (int j = chunkColumn - 1; j <= chunkColumn + 1; j++) {
+				initialiseOtherElements(lazyElements.materialize(i, j));
+			}
+		}
+	}
+
+
+	/**
+	 * Initializes the game information from the tiles of the grid and the data of
+	 * the other elements.
+	 *
+	 * @param grid        The tiles of the grid, in memory or in a chunk file.
+	 * @param allElements The descriptions of the elements of the game.
+	 * @throws IOException If an I/O error occurs while processing image data.
+	 */
+	void initialise(TileStorage grid, List<ElementDescriptor> allElements) throws IOException {
+		initialiseGrid(grid);
+		initialiseOtherElements(allElements);
 	}
 
 	
@@ -268,7 +485,8 @@ public class GameInformation {
 
 	
 	/**
-	 * Retrieves the game element at the specified grid coordinates.
+	 * Retrieves the game element at the specified grid coordinates. The tiles
+	 * with the same skin share the same element.
 	 *
 	 * @param i The row index.
 	 * @param j The column index.
@@ -276,10 +494,131 @@ public class GameInformation {
 	 * @throws IllegalArgumentException If the provided indices are outside the valid range.
 	 */
 	public ElementsOnGrid getElementInGrid(int i, int j) {
+		return SkinRegistry.elementOf(getSkinIdInGrid(i, j));
+	}
+
+
+	/**
+	 * Gets the id in the {@link SkinRegistry} of the skin of the tile at the
+	 * specified grid coordinates, without creating any object.
+	 *
+	 * @param i The row index.
+	 * @param j The column index.
+	 * @return The id of the skin of the tile.
+	 * @throws IllegalArgumentException If the provided indices are outside the valid range.
+	 */
+	public int getSkinIdInGrid(int i, int j) {
+		if (i < 0 || j < 0 || i > gridLine - 1 || j > gridColumn - 1) {
+			throw new IllegalArgumentException("i or j is false for the array");
+		}
+		return getSkinIdInGridUnchecked(i, j);
+	}
+
+
+	/**
+	 * Gets the id in the {@link SkinRegistry} of the skin of the tile at the
+	 * specified grid coordinates, without checking that they are in the grid. It
+	 * is used by the loops which only go through the cells of the grid.
+	 *
+	 * @param i The row index, in the grid.
+	 * @param j The column index, in the grid.
+	 * @return The id of the skin of the tile.
+	 */
+	public int getSkinIdInGridUnchecked(int i, int j) {
+		return skinIdOfTileId[grid.getTileId(i, j)];
+	}
+
+
+	/**
+	 * Checks if the characters can walk on the tile at the specified grid
+	 * coordinates, with a single access to the walkability bitmap of the grid, or
+	 * to the tile when the grid is read from a chunk file.
+	 *
+	 * @param i The row index.
+	 * @param j The column index.
+	 * @return true if the skin of the tile is not an obstacle, false otherwise.
+	 * @throws IllegalArgumentException If the provided indices are outside the valid range.
+	 */
+	public boolean canWalk(int i, int j) {
+		if (i < 0 || j < 0 || i > gridLine - 1 || j > gridColumn - 1) {
+			throw new IllegalArgumentException("i or j is false for the array");
+		}
+		return canWalkUnchecked(i, j);
+	}
+
+
+	/**
+	 * Checks if the characters can walk on the tile at the specified grid
+	 * coordinates, without checking that they are in the grid.
+	 *
+	 * @param i The row index, in the grid.
+	 * @param j The column index, in the grid.
+	 * @return true if the skin of the tile is not an obstacle, false otherwise.
+	 */
+	public boolean canWalkUnchecked(int i, int j) {
+		if (walkableTiles == null) {
+			return SkinRegistry.canWalk(skinIdOfTileId[grid.getTileId(i, j)]);
+		}
+		var index = i * gridColumn + j;
+		return (walkableTiles.get(index >>> 6) & 1L << index) != 0;
+	}
+
+
+	/**
+	 * Checks if the cell at the specified grid coordinates contains an element of
+	 * one of the specified layers, with a single read of the occupancy of the
+	 * grid.
+	 *
+	 * @param i      The row index.
+	 * @param j      The column index.
+	 * @param layers The layers to check, for example {@code ENEMY | OBSTACLE}.
+	 * @return true if the cell contains an element of one of the layers, false
+	 *         otherwise.
+	 * @throws IllegalArgumentException If the provided indices are outside the valid range.
+	 */
+	public boolean isOccupied(int i, int j, int layers) {
 		if (i < 0 || j < 0 || i > gridLine - 1 || j > gridColumn - 1) {
 			throw new IllegalArgumentException("i or j is false for the array");
 		}
-		return array[i][j];
+		return isOccupiedUnchecked(i, j, layers);
+	}
+
+
+	/**
+	 * Checks if the cell at the specified grid coordinates contains an element of
+	 * one of the specified layers, without checking that they are in the grid.
+	 *
+	 * @param i      The row index, in the grid.
+	 * @param j      The column index, in the grid.
+	 * @param layers The layers to check, for example {@code ENEMY | OBSTACLE}.
+	 * @return true if the cell contains an element of one of the layers, false
+	 *         otherwise.
+	 */
+	public boolean isOccupiedUnchecked(int i, int j, int layers) {
+		return (occupancyOf(i, j) & layers) != 0;
+	}
+
+
+	/**
+	 * Gets the image of the skin with the specified id, if a tile of the grid or
+	 * an element uses it.
+	 *
+	 * @param skinId The id of the skin in the {@link SkinRegistry}.
+	 * @return The image of the skin, or null if no tile of the grid and no element
+	 *         uses it or if it is NOTHING.
+	 */
+	public BufferedImage getSkinImage(int skinId) {
+		return imageOfSkinId[skinId];
+	}
+
+	/**
+	 * Checks if the tiles of the grid are read from a chunk file, when they are
+	 * needed, instead of being all in memory.
+	 *
+	 * @return true if the grid is read from a chunk file, false otherwise.
+	 */
+	public boolean isChunked() {
+		return occupiedCells != null;
 	}
 
 	/**
@@ -295,9 +634,20 @@ public class GameInformation {
 	/**
 	 * Retrieves the collection of enemies in the game, mapped by their positions.
 	 *
-	 * @return The map containing enemy positions as keys and corresponding Enemy objects.
+	 * @return A read only view of the enemies, with their positions as keys.
 	 */
 	public Map<Position, Enemy> getEnemies() {
+		return enemies.asMap();
+	}
+
+
+	/**
+	 * Gets the enemies of the game, mapped by their rows and columns, to find or go
+	 * through them without creating Position objects.
+	 *
+	 * @return The map of the enemies.
+	 */
+	public PositionMap<Enemy> getEnemyMap() {
 		return enemies;
 	}
 
@@ -305,9 +655,20 @@ public class GameInformation {
 	/**
 	 * Retrieves the collection of friends in the game, mapped by their positions.
 	 *
-	 * @return The map containing friend positions as keys and corresponding Friend objects.
+	 * @return A read only view of the friends, with their positions as keys.
 	 */
 	public Map<Position, Friend> getFriends() {
+		return friends.asMap();
+	}
+
+
+	/**
+	 * Gets the friends of the game, mapped by their rows and columns, to find or go
+	 * through them without creating Position objects.
+	 *
+	 * @return The map of the friends.
+	 */
+	public PositionMap<Friend> getFriendMap() {
 		return friends;
 	}
 
@@ -315,22 +676,55 @@ public class GameInformation {
 	/**
 	 * Retrieves the collection of items in the game, mapped by their positions.
 	 *
-	 * @return The map containing item positions as keys and corresponding Item objects.
+	 * @return A read only view of the items, with their positions as keys.
 	 */
 	public Map<Position, Item> getItems() {
+		return items.asMap();
+	}
+
+
+	/**
+	 * Gets the items of the game, mapped by their rows and columns, to find or go
+	 * through them without creating Position objects.
+	 *
+	 * @return The map of the items.
+	 */
+	public PositionMap<Item> getItemMap() {
 		return items;
 	}
 
 	/**
 	 * Retrieves the collection of obstacles in the game, mapped by their positions.
 	 *
-	 * @return The map containing obstacle positions as keys and corresponding Obstacle objects.
+	 * @return A read only view of the obstacles, with their positions as keys.
 	 */
 	public Map<Position, Obstacle> getObstacles() {
+		return obstacles.asMap();
+	}
+
+
+	/**
+	 * Gets the obstacles of the game, mapped by their rows and columns, to find or go
+	 * through them without creating Position objects.
+	 *
+	 * @return The map of the obstacles.
+	 */
+	public PositionMap<Obstacle> getObstacleMap() {
 		return obstacles;
 	}
 
 	
+	/**
+	 * Gets the store which keeps the data of all the elements of the game, to go
+	 * through them without going from object to object.
+	 *
+	 * @return The store of the elements.
+	 */
+	public EntityStore getEntities() {
+		return entities;
+	}
+
+
 	/**
 	 * Gets the current position of the player character.
 	 *
@@ -341,31 +735,66 @@ public class GameInformation {
 	}
 
 	/**
-	 * Changes the position of the player character.
+	 * Changes the position of the player character. The elements near the new
+	 * position which have not been created yet are created.
 	 *
 	 * @param newPosition The new Position object representing the desired position.
 	 */
 	public void changePlayerPosition(Position newPosition) {
+		leave(positionOfPerso.i(), positionOfPerso.j(), PLAYER);
 		positionOfPerso = newPosition;
+		entities.moveTo(perso.getId(), newPosition.i(), newPosition.j());
+		occupy(newPosition.i(), newPosition.j(), PLAYER);
+		if (lazyElements != null) {
+			try {
+				materializeAround(newPosition);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
 	}
 
 	
 	/**
 	 * Changes the position of an enemy or a friend in the game.
 	 *
-	 * @param oldPosition The current Position of the character.
+	 * @param id          The id of the character in the entity store.
 	 * @param newPosition The new Position to move the character to.
+	 * @throws IllegalArgumentException If the id is not the id of an enemy or a
+	 *                                  friend.
+	 */
+	public void changeActorPosition(int id, Position newPosition) {
+		changeActorPosition(id, newPosition.i(), newPosition.j());
+	}
+
+
+	/**
+	 * Changes the position of an enemy or a friend in the game, without creating
+	 * any object. The character is found by its id, since an enemy and a friend
+	 * can be on the same cell.
+	 *
+	 * @param id   The id of the character in the entity store.
+	 * @param newI The new row of the character.
+	 * @param newJ The new column of the character.
+	 * @throws IllegalArgumentException If the id is not the id of an enemy or a
+	 *                                  friend.
 	 */
-	public void changeActorPosition(Position oldPosition, Position newPosition) {
-		if (enemies.get(oldPosition) != null) {
-			var enemy = enemies.get(oldPosition);
-			enemies.remove(oldPosition);
-			enemies.put(newPosition, enemy);
+	public void changeActorPosition(int id, int newI, int newJ) {
+		var kind = entities.kindOf(id);
+		if (kind != ElementKind.ENEMY && kind != ElementKind.FRIEND) {
+			throw new IllegalArgumentException("The element " + id + " is not an enemy or a friend");
+		}
+		var oldI = entities.rowOf(id);
+		var oldJ = entities.columnOf(id);
+		var layer = kind == ElementKind.ENEMY ? ENEMY : FRIEND;
+		if (kind == ElementKind.ENEMY) {
+			enemies.move(oldI, oldJ, newI, newJ);
 		} else {
-			var friend = friends.get(oldPosition);
-			friends.remove(oldPosition);
-			friends.put(newPosition, friend);
+			friends.move(oldI, oldJ, newI, newJ);
 		}
+		entities.moveTo(id, newI, newJ);
+		leave(oldI, oldJ, layer);
+		occupy(newI, newJ, layer);
 	}
 	
 	/**
@@ -374,7 +803,281 @@ public class GameInformation {
 	 * @param position The Position of the item to be removed.
 	 */
 	public void removeItem(Position position) {
-		items.remove(position);
+		removeItem(position.i(), position.j());
 	}
 
+
+	/**
+	 * Removes an item from the game at the specified row and column, without
+	 * creating any object.
+	 *
+	 * @param i The row of the item to be removed.
+	 * @param j The column of the item to be removed.
+	 */
+	public void removeItem(int i, int j) {
+		var item = items.remove(i, j);
+		if (item != null) {
+			entities.remove(item.getId());
+			leave(i, j, ITEM);
+		}
+	}
+
+
+	/**
+	 * Checks if the elements of the map are created only when the player character
+	 * comes near them.
+	 *
+	 * @return true if the map has been parsed lazily, false otherwise.
+	 */
+	boolean isLazy() {
+		return lazyElements != null;
+	}
+
+
+	/**
+	 * Gets a hash of the grid: the CRC32C of its skin table and of its tiles. The
+	 * hash is computed the first time it is asked, then kept, since the grid does
+	 * not change. The tiles of a chunk file are hashed as they are in the file, so
+	 * the hash of a grid in a chunk file is not the hash of the same grid in
+	 * memory.
+	 *
+	 * @return The hash of the grid.
+	 * @throws UncheckedIOException If an I/O error occurs while reading the chunks
+	 *                              of the grid.
+	 */
+	long gridHash() {
+		if (gridHash == -1) {
+			var checksum = new CRC32C();
+			for (var skin : grid.getSkins()) {
+				checksum.update(skin.getBytes(StandardCharsets.UTF_8));
+				checksum.update(0);
+			}
+			if (grid instanceof TileGrid tileGrid) {
+				checksum.update(tileGrid.tiles().duplicate().clear());
+			} else {
+				((ChunkedTileStorage) grid).updateChecksum(checksum);
+			}
+			gridHash = checksum.getValue();
+		}
+		return gridHash;
+	}
+
+
+	/**
+	 * Checks if a kind of element is the kind of an actor whose position and
+	 * health are saved: an enemy, a friend or the player character.
+	 *
+	 * @param kind The ordinal of the kind, or {@link EntityStore#REMOVED}.
+	 * @return true if the kind is the kind of an actor, false otherwise.
+	 */
+	static boolean isActorKind(int kind) {
+		return kind == ElementKind.ENEMY.ordinal() || kind == ElementKind.FRIEND.ordinal()
+				|| kind == ElementKind.PLAYER.ordinal();
+	}
+
+
+	/**
+	 * Checks that a saved state matches the elements of the game: each element
+	 * must have the same kind, except the items which have been removed, and each
+	 * actor which has moved must be in the grid.
+	 *
+	 * @param kinds   The saved kinds, indexed by the id of the elements.
+	 * @param rows    The saved rows of the actors.
+	 * @param columns The saved columns of the actors.
+	 * @throws IllegalArgumentException If the state does not match the game.
+	 */
+	private void checkState(byte[] kinds, int[] rows, int[] columns) {
+		if (kinds.length != entities.idCount()) {
+			throw new IllegalArgumentException("The saved state does not have the elements of the map");
+		}
+		for (int id = 0; id < kinds.length; id++) {
+			var kind = entities.kindOf(id);
+			var saved = kinds[id];
+			if (kind == null ? saved != EntityStore.REMOVED
+					: saved != kind.ordinal() && !(saved == EntityStore.REMOVED && kind == ElementKind.ITEM)) {
+				throw new IllegalArgumentException("The saved state of the element " + id + " does not match the map");
+			}
+			if (isActorKind(saved) && (rows[id] != entities.rowOf(id) || columns[id] != entities.columnOf(id))
+					&& (rows[id] < 0 || columns[id] < 0 || rows[id] >= gridLine || columns[id] >= gridColumn)) {
+				throw new IllegalArgumentException("The saved position of the element " + id + " is not in the grid");
+			}
+		}
+	}
+
+
+	/**
+	 * Puts the game in a saved state: the items which have been removed are
+	 * removed, and the actors get their saved positions and healths. The state is
+	 * checked before the game is changed, so the game is not changed if it does
+	 * not match. The actors which have moved are first removed from the grid, then
+	 * put at their new positions, so that an actor can take the former cell of
+	 * another one.
+	 *
+	 * @param kinds   The saved kinds, indexed by the id of the elements. A kind is
+	 *                the ordinal of an {@link ElementKind}, or
+	 *                {@link EntityStore#REMOVED}.
+	 * @param rows    The saved rows of the actors, indexed by their ids.
+	 * @param columns The saved columns of the actors, indexed by their ids.
+	 * @param healths The saved healths of the actors, indexed by their ids.
+	 * @throws IllegalArgumentException If the map has been parsed lazily or if the
+	 *                                  state does not match the game.
+	 */
+	void restore(byte[] kinds, int[] rows, int[] columns, int[] healths) {
+		if (lazyElements != null) {
+			throw new IllegalArgumentException("A map parsed lazily cannot be restored");
+		}
+		checkState(kinds, rows, columns);
+		var moved = new AnyElement[kinds.length];
+		for (int id = 0; id < kinds.length; id++) {
+			var i = entities.rowOf(id);
+			var j = entities.columnOf(id);
+			if (kinds[id] == EntityStore.REMOVED && entities.kindOf(id) == ElementKind.ITEM) {
+				removeItem(i, j);
+			} else if (isActorKind(kinds[id]) && entities.hasHealth(id)) {
+				entities.changeHealth(id, healths[id]);
+			}
+			if (!isActorKind(kinds[id]) || rows[id] == i && columns[id] == j) {
+				continue;
+			}
+			if (kinds[id] == ElementKind.ENEMY.ordinal()) {
+				moved[id] = enemies.remove(i, j);
+				leave(i, j, ENEMY);
+			} else if (kinds[id] == ElementKind.FRIEND.ordinal()) {
+				moved[id] = friends.remove(i, j);
+				leave(i, j, FRIEND);
+			} else if (id == perso.getId()) {
+				leave(i, j, PLAYER);
+			}
+		}
+		for (int id = 0; id < kinds.length; id++) {
+			if (!isActorKind(kinds[id]) || rows[id] == entities.rowOf(id) && columns[id] == entities.columnOf(id)) {
+				continue;
+			}
+			var i = rows[id];
+			var j = columns[id];
+			entities.moveTo(id, i, j);
+			if (moved[id] instanceof Enemy enemy) {
+				enemies.put(i, j, enemy);
+				occupy(i, j, ENEMY);
+			} else if (moved[id] instanceof Friend friend) {
+				friends.put(i, j, friend);
+				occupy(i, j, FRIEND);
+			} else if (id == perso.getId()) {
+				positionOfPerso = new Position(i, j);
+				occupy(i, j, PLAYER);
+			}
+		}
+	}
+
+	/**
+	 * Carries the state of a running game over to this game, which has just been
+	 * loaded from a new version of the same map. An element whose description has
+	 * not changed, because its section has not been edited, keeps its state: an
+	 * item which has been picked stays picked, and an enemy, a friend or the player
+	 * character keeps its health and its position. A position is only kept if the
+	 * actor can still walk on its cell and if no other actor of the same kind ends
+	 * on it; the actors which start where the new version puts them come first.
+	 * The other elements start as the new version describes them.
+	 *
+	 * @param previous The running game, loaded from the previous version of the
+	 *                 map.
+	 * @return The number of elements whose state has been carried over, 0 if one
+	 *         of the maps has been parsed lazily.
+	 * @throws NullPointerException If previous is null.
+	 */
+	public int carryStateFrom(GameInformation previous) {
+		Objects.requireNonNull(previous);
+		if (isLazy() || previous.isLazy()) {
+			return 0;
+		}
+		var unchanged = new HashMap<ElementDescriptor, ArrayDeque<Integer>>();
+		for (int id = 0; id < previous.descriptors.size(); id++) {
+			var descriptor = previous.descriptors.get(id);
+			if (descriptor != null) {
+				unchanged.computeIfAbsent(descriptor, key -> new ArrayDeque<>()).add(id);
+			}
+		}
+		var count = entities.idCount();
+		var kinds = new byte[count];
+		var rows = new int[count];
+		var columns = new int[count];
+		var healths = new int[count];
+		entities.copyState(kinds, rows, columns, healths);
+		var moved = new boolean[count];
+		var carried = 0;
+		for (int id = 0; id < count; id++) {
+			var descriptor = id < descriptors.size() ? descriptors.get(id) : null;
+			var ids = descriptor == null ? null : unchanged.get(descriptor);
+			if (ids == null || ids.isEmpty()) {
+				continue;
+			}
+			var old = ids.poll();
+			carried++;
+			// only the items are removed while the game runs
+			if (previous.entities.kindOf(old) == null) {
+				kinds[id] = EntityStore.REMOVED;
+				continue;
+			}
+			if (!isActorKind(kinds[id])) {
+				continue;
+			}
+			healths[id] = previous.entities.healthOf(old);
+			var i = previous.entities.rowOf(old);
+			var j = previous.entities.columnOf(old);
+			if ((i != rows[id] || j != columns[id]) && i < gridLine && j < gridColumn && canWalkUnchecked(i, j)) {
+				rows[id] = i;
+				columns[id] = j;
+				moved[id] = true;
+			}
+		}
+		// an actor which cannot keep its position goes back to its start, which can be taken by another one
+		var taken = new HashSet<Long>();
+		var conflict = true;
+		while (conflict) {
+			conflict = false;
+			taken.clear();
+			for (int id = 0; id < count; id++) {
+				if (isActorKind(kinds[id]) && !moved[id]) {
+					taken.add(cellOf(kinds[id], rows[id], columns[id]));
+				}
+			}
+			for (int id = 0; id < count; id++) {
+				if (moved[id] && !taken.add(cellOf(kinds[id], rows[id], columns[id]))) {
+					rows[id] = entities.rowOf(id);
+					columns[id] = entities.columnOf(id);
+					moved[id] = false;
+					conflict = true;
+				}
+			}
+		}
+		restore(kinds, rows, columns, healths);
+		return carried;
+	}
+
+
+	/**
+	 * Gets a number telling apart the cells of the grid for each kind of element.
+	 *
+	 * @param kind The ordinal of the kind of the element.
+	 * @param i    The row of the cell.
+	 * @param j    The column of the cell.
+	 * @return The number of the cell for this kind.
+	 */
+	private long cellOf(int kind, int i, int j) {
+		return ((long) kind * gridLine + i) * gridColumn + j;
+	}
+
+
+	/**
+	 * Closes the game: the chunk file of its grid, if the grid is read from a
+	 * chunk file, is closed. The grid cannot be read any more.
+	 *
+	 * @throws IOException If an I/O error occurs while closing the chunk file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (grid != null) {
+			grid.close();
+		}
+	}
 }
@@ -1,52 +1,45 @@
 package fr.uge.project.bigAdventure;
 
-import java.util.HashMap;
 import java.util.Objects;
 
 /**
  * Represents an item within the game.
+ * An Item is a view on the data of the item kept in an {@link EntityStore}.
  */
 public class Item implements AnyElement {
-	private String name;
-	private String skin;
-	private int damage;
+	private final EntityStore store;
+	private final int id;
+
 
-	
 	/**
-   * Constructs an Item based on the provided information.
-   *
-   * @param map A HashMap containing information about the Item.
-   * @throws NullPointerException If the provided map is null.
-   */
-	public Item(HashMap<String, String> map) {
-		Objects.requireNonNull(map);
-		createNewElemnt(map);
+	 * Constructs a view on an item of an entity store.
+	 *
+	 * @param store The store which keeps the data of the item.
+	 * @param id    The id of the item in the store.
+	 * @throws NullPointerException If the store parameter is null.
+	 */
+	Item(EntityStore store, int id) {
+		this.store = Objects.requireNonNull(store);
+		this.id = id;
 	}
 
-	
+
 	/**
-	 * Initializes the attributes of the Item based on the provided information.
+	 * Gets the id of the item in its entity store.
 	 *
-	 * @param map A HashMap containing information about the Item.
-	 * @throws NullPointerException If the provided map is null.
+	 * @return The id of the item.
 	 */
-	private void createNewElemnt(HashMap<String, String> map) {
-		Objects.requireNonNull(map);
-		name = map.get("name");
-		skin = map.get("skin");
-		if (map.get("damage") != null) {
-			damage = Integer.parseInt(map.get("damage"));
-		}
+	public int getId() {
+		return id;
 	}
-	
-	
+
 	/**
    * Gets the name of the Item.
    *
    * @return The name of the Item.
    */
 	public String getName() {
-		return name;
+		return store.nameOf(id);
 	}
 
 	
@@ -57,7 +50,7 @@ public class Item implements AnyElement {
 	 */
 	@Override
 	public String getSkin() {
-		return skin;
+		return SkinRegistry.skinOf(store.skinIdOf(id));
 	}
 
 	
@@ -67,7 +60,7 @@ public class Item implements AnyElement {
    * @return The damage value of the Item.
    */
 	public int getDamage() {
-		return damage;
+		return store.damageOf(id);
 	}
 
 }
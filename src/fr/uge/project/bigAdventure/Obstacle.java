@@ -1,55 +1,47 @@
 package fr.uge.project.bigAdventure;
 
-import java.util.HashMap;
 import java.util.Objects;
 
 /**
  * Represents an obstacle within the game.
+ * An Obstacle is a view on the data of the obstacle kept in an
+ * {@link EntityStore}. The locks and the teleports are not described in the
+ * maps yet, so they are null.
  */
 public class Obstacle implements AnyElement {
-	private String name;
-	private String skin;
-	private String lockedType;
-	private String lockedName;
-	private String teleport;
+	private final EntityStore store;
+	private final int id;
+
 
-	
 	/**
-	 * Constructs a new Obstacle object based on the information provided in the map.
+	 * Constructs a view on an obstacle of an entity store.
 	 *
-	 * @param map A HashMap containing information about the Obstacle.
-	 * @throws NullPointerException If the map parameter is null.
+	 * @param store The store which keeps the data of the obstacle.
+	 * @param id    The id of the obstacle in the store.
+	 * @throws NullPointerException If the store parameter is null.
 	 */
-	public Obstacle(HashMap<String, String> map) {
-		Objects.requireNonNull(map);
-		createNewElemnt(map);
+	Obstacle(EntityStore store, int id) {
+		this.store = Objects.requireNonNull(store);
+		this.id = id;
 	}
 
-	
+
 	/**
-	 * Initializes the Obstacle object with the information provided in the map.
+	 * Gets the id of the obstacle in its entity store.
 	 *
-	 * @param map A HashMap containing information about the Obstacle.
-	 * @throws NullPointerException If the map parameter is null.
+	 * @return The id of the obstacle.
 	 */
-	private void createNewElemnt(HashMap<String, String> map) {
-		Objects.requireNonNull(map);
-		name = map.get("name");
-		skin = map.get("skin");
-		lockedType = map.get("lockedType");
-		lockedName = map.get("lockedName");
-		teleport = map.get("teleport");
-		return;
+	public int getId() {
+		return id;
 	}
 
-	
 	/**
 	 * Gets the name of the Obstacle.
 	 *
 	 * @return The name of the Obstacle.
 	 */
 	public String getName() {
-		return name;
+		return store.nameOf(id);
 	}
 
 	
@@ -60,7 +52,7 @@ public class Obstacle implements AnyElement {
 	 */
 	@Override
 	public String getSkin() {
-		return skin;
+		return SkinRegistry.skinOf(store.skinIdOf(id));
 	}
 
 	/**
@@ -69,7 +61,7 @@ public class Obstacle implements AnyElement {
 	 * @return The type of the lock associated with the Obstacle.
 	 */
 	public String getLockedType() {
-		return lockedType;
+		return null;
 	}
 
 	/**
@@ -78,7 +70,7 @@ public class Obstacle implements AnyElement {
 	 * @return The name associated with the lock of the Obstacle.
 	 */
 	public String getLockedName() {
-		return lockedName;
+		return null;
 	}
 
 	
@@ -88,7 +80,7 @@ public class Obstacle implements AnyElement {
 	 * @return The teleport information associated with the Obstacle.
 	 */
 	public String getTeleport() {
-		return teleport;
+		return null;
 	}
 
 }
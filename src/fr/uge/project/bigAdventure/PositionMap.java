@@ -0,0 +1,397 @@
+package fr.uge.project.bigAdventure;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+
+/**
+ * A map from the positions of the grid to the elements of the game, which uses
+ * the row and the column of a position instead of a Position object. The row
+ * and the column are packed in a long, and the keys and the values are kept in
+ * two arrays with open addressing and linear probing, so get, put, remove and
+ * move do not create any object.
+ * <p>
+ * The values cannot be null. A PositionMap is not thread safe.
+ *
+ * @param <V> The type of the elements of the map.
+ */
+public final class PositionMap<V> {
+	private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+	private long[] keys;
+	private Object[] values;
+	private int size = 0;
+	private int shift;
+	private Map<Position, V> view = null;
+
+	/**
+	 * Gets the element and its position for each element of a PositionMap.
+	 *
+	 * @param <V> The type of the elements.
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+		/**
+		 * Gets an element and its position.
+		 *
+		 * @param i     The row of the element.
+		 * @param j     The column of the element.
+		 * @param value The element.
+		 */
+		void accept(int i, int j, V value);
+	}
+
+
+	/**
+	 * Constructs a new empty PositionMap.
+	 */
+	public PositionMap() {
+		this(16);
+	}
+
+
+	/**
+	 * Constructs a new empty PositionMap with room for the specified number of
+	 * slots. The number of slots is a power of 2.
+	 *
+	 * @param capacity The number of slots, at least 2.
+	 */
+	private PositionMap(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+	}
+
+
+	/**
+	 * Packs a row and a column in a long key.
+	 *
+	 * @param i The row.
+	 * @param j The column.
+	 * @return The key of the position.
+	 */
+	private static long pack(int i, int j) {
+		return (long) i << 32 | j & 0xFFFFFFFFL;
+	}
+
+
+	/**
+	 * Gets the slot where the search of a key starts.
+	 *
+	 * @param key The key.
+	 * @return The first slot of the key.
+	 */
+	private int slotOf(long key) {
+		return (int) (key * GOLDEN_RATIO >>> shift);
+	}
+
+
+	/**
+	 * Finds the slot of a key.
+	 *
+	 * @param key The key.
+	 * @return The slot of the key, or -1 if the key is not in the map.
+	 */
+	private int find(long key) {
+		var mask = values.length - 1;
+		for (var slot = slotOf(key);; slot = slot + 1 & mask) {
+			if (values[slot] == null) {
+				return -1;
+			}
+			if (keys[slot] == key) {
+				return slot;
+			}
+		}
+	}
+
+
+	/**
+	 * Gets the element at the specified position.
+	 *
+	 * @param i The row.
+	 * @param j The column.
+	 * @return The element, or null if there is no element at this position.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int i, int j) {
+		var slot = find(pack(i, j));
+		return slot == -1 ? null : (V) values[slot];
+	}
+
+
+	/**
+	 * Checks if there is an element at the specified position.
+	 *
+	 * @param i The row.
+	 * @param j The column.
+	 * @return true if there is an element at this position, false otherwise.
+	 */
+	public boolean containsKey(int i, int j) {
+		return find(pack(i, j)) != -1;
+	}
+
+
+	/**
+	 * Puts an element at the specified position, in place of the element which was
+	 * there.
+	 *
+	 * @param i     The row.
+	 * @param j     The column.
+	 * @param value The element.
+	 * @return The element which was at this position, or null if there was none.
+	 * @throws NullPointerException     if value is null.
+	 * @throws IllegalArgumentException if the row or the column is negative.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int i, int j, V value) {
+		Objects.requireNonNull(value);
+		if (i < 0 || j < 0) {
+			throw new IllegalArgumentException("Arguments for position are wrong");
+		}
+		var key = pack(i, j);
+		var mask = values.length - 1;
+		var slot = slotOf(key);
+		for (; values[slot] != null; slot = slot + 1 & mask) {
+			if (keys[slot] == key) {
+				var old = (V) values[slot];
+				values[slot] = value;
+				return old;
+			}
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+		// the map is kept at most half full so that the searches stay short
+		if (size * 2 > values.length) {
+			resize();
+		}
+		return null;
+	}
+
+
+	/**
+	 * Doubles the number of slots and puts again all the elements.
+	 */
+	private void resize() {
+		var oldKeys = keys;
+		var oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new Object[oldValues.length * 2];
+		shift--;
+		var mask = values.length - 1;
+		for (int old = 0; old < oldValues.length; old++) {
+			if (oldValues[old] != null) {
+				var slot = slotOf(oldKeys[old]);
+				while (values[slot] != null) {
+					slot = slot + 1 & mask;
+				}
+				keys[slot] = oldKeys[old];
+				values[slot] = oldValues[old];
+			}
+		}
+	}
+
+
+	/**
+	 * Removes the element at the specified position.
+	 *
+	 * @param i The row.
+	 * @param j The column.
+	 * @return The removed element, or null if there was no element at this
+	 *         position.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int i, int j) {
+		var slot = find(pack(i, j));
+		if (slot == -1) {
+			return null;
+		}
+		var old = (V) values[slot];
+		removeSlot(slot);
+		return old;
+	}
+
+
+	/**
+	 * Empties a slot. The elements after it which cannot be found any more are
+	 * moved back, so that no mark of removed slot is needed.
+	 *
+	 * @param slot The slot to empty.
+	 */
+	private void removeSlot(int slot) {
+		var mask = values.length - 1;
+		values[slot] = null;
+		size--;
+		for (var next = slot + 1 & mask; values[next] != null; next = next + 1 & mask) {
+			// the element can be moved back if its first slot is not between the empty
+			// slot and its slot
+			if ((next - slotOf(keys[next]) & mask) >= (next - slot & mask)) {
+				keys[slot] = keys[next];
+				values[slot] = values[next];
+				values[next] = null;
+				slot = next;
+			}
+		}
+	}
+
+
+	/**
+	 * Moves the element at a position to another position, in place of the
+	 * element which was there.
+	 *
+	 * @param oldI The row of the element.
+	 * @param oldJ The column of the element.
+	 * @param newI The new row of the element.
+	 * @param newJ The new column of the element.
+	 * @return The moved element, or null if there was no element at the old
+	 *         position.
+	 * @throws IllegalArgumentException if the new row or the new column is
+	 *                                  negative.
+	 */
+	public V move(int oldI, int oldJ, int newI, int newJ) {
+		if (newI < 0 || newJ < 0) {
+			throw new IllegalArgumentException("Arguments for position are wrong");
+		}
+		var value = remove(oldI, oldJ);
+		if (value != null) {
+			put(newI, newJ, value);
+		}
+		return value;
+	}
+
+
+	/**
+	 * Gets the number of elements of the map.
+	 *
+	 * @return The number of elements.
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * Gives each element of the map and its position to the specified action. The
+	 * map must not be changed by the action; to change it while going through its
+	 * elements, go through a {@link #copy()}.
+	 *
+	 * @param action The action called for each element.
+	 * @throws NullPointerException if action is null.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryConsumer<? super V> action) {
+		Objects.requireNonNull(action);
+		for (int slot = 0; slot < values.length; slot++) {
+			if (values[slot] != null) {
+				action.accept((int) (keys[slot] >>> 32), (int) keys[slot], (V) values[slot]);
+			}
+		}
+	}
+
+
+	/**
+	 * Creates a copy of the map. The elements are not copied.
+	 *
+	 * @return The new PositionMap.
+	 */
+	public PositionMap<V> copy() {
+		var copy = new PositionMap<V>(values.length);
+		copy.keys = keys.clone();
+		copy.values = values.clone();
+		copy.size = size;
+		return copy;
+	}
+
+
+	/**
+	 * Gets a read only view of the map as a Map of Positions. The view follows the
+	 * changes of the map; its get and containsKey do not create any object, but
+	 * going through its entries creates a Position for each entry.
+	 *
+	 * @return The view of the map.
+	 */
+	public Map<Position, V> asMap() {
+		if (view == null) {
+			view = new AbstractMap<>() {
+				@Override
+				public V get(Object key) {
+					return key instanceof Position position ? PositionMap.this.get(position.i(), position.j()) : null;
+				}
+
+				@Override
+				public boolean containsKey(Object key) {
+					return key instanceof Position position && PositionMap.this.containsKey(position.i(), position.j());
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+
+				@Override
+				public Set<Entry<Position, V>> entrySet() {
+					return new AbstractSet<>() {
+						@Override
+						public Iterator<Entry<Position, V>> iterator() {
+							return entryIterator();
+						}
+
+						@Override
+						public int size() {
+							return size;
+						}
+					};
+				}
+			};
+		}
+		return view;
+	}
+
+
+	/**
+	 * Creates an iterator on the entries of the map, for its view.
+	 *
+	 * @return The iterator.
+	 */
+	private Iterator<Map.Entry<Position, V>> entryIterator() {
+		return new Iterator<>() {
+			private final long[] iteratedKeys = keys;
+			private final Object[] iteratedValues = values;
+			private int slot = nextSlot(0);
+
+			/**
+			 * Finds the next slot which has an element.
+			 *
+			 * @param from The first slot to check.
+			 * @return The slot, or the number of slots if there is none.
+			 */
+			private int nextSlot(int from) {
+				while (from < iteratedValues.length && iteratedValues[from] == null) {
+					from++;
+				}
+				return from;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return slot < iteratedValues.length;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public Map.Entry<Position, V> next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				var key = iteratedKeys[slot];
+				var entry = Map.entry(new Position((int) (key >>> 32), (int) key), (V) iteratedValues[slot]);
+				slot = nextSlot(slot + 1);
+				return entry;
+			}
+		};
+	}
+}
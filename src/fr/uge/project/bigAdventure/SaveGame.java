@@ -0,0 +1,316 @@
+package fr.uge.project.bigAdventure;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * A saved state of a game: what has changed since its map has been loaded. It
+ * is the positions and the healths of the enemies, of the friends and of the
+ * player character, and the items which have been removed. The grid and the
+ * other data of the elements are not saved: they are read again from the map,
+ * whose path is kept in the save with the size and a hash of its grid, then the
+ * saved state is put back in the game with {@link #restore(GameInformation)}.
+ * <p>
+ * A save file, which can be compressed with GZIP, starts with a header (magic
+ * number and version), followed by the path of the map, the size of the grid
+ * and its hash. Then come the number of ids of the elements, the kind of each
+ * id, and for each enemy, friend and player character, in the order of the
+ * ids, its row, its column and its health. The kind of an item which has been
+ * removed is the one of a removed element.
+ * <p>
+ * The ids of the elements are the ones given when the map is loaded, which are
+ * always the same for the same map, so a map parsed lazily, whose elements are
+ * created while the game runs, cannot be saved.
+ */
+public final class SaveGame {
+	private static final int MAGIC = 0x54425356;
+	private static final int VERSION = 1;
+	private final String map;
+	private final int line;
+	private final int column;
+	private final long gridHash;
+	private final byte[] kinds;
+	private final int[] rows;
+	private final int[] columns;
+	private final int[] healths;
+
+
+	/**
+	 * A GZIP stream which compresses at the fastest level, and whose deflater can
+	 * be ended without closing the stream it writes to.
+	 */
+	private static final class FastGZIPOutputStream extends GZIPOutputStream {
+
+		/**
+		 * Constructs a new FastGZIPOutputStream writing to a stream.
+		 *
+		 * @param output The stream to write the compressed data to.
+		 * @throws IOException If an I/O error occurs while writing the GZIP header.
+		 */
+		private FastGZIPOutputStream(OutputStream output) throws IOException {
+			super(output, 1 << 16);
+			// the fastest level is 8 times faster than the default one, for a save 15% bigger
+			def.setLevel(Deflater.BEST_SPEED);
+		}
+
+
+		/**
+		 * Frees the native memory of the deflater now, instead of leaving it to the
+		 * cleaner. The stream cannot be used anymore.
+		 */
+		private void end() {
+			def.end();
+		}
+	}
+
+
+	/**
+	 * Constructs a new SaveGame from its data. The arrays are kept, not copied.
+	 *
+	 * @param map      The absolute path of the map.
+	 * @param line     The number of rows of the grid.
+	 * @param column   The number of columns of the grid.
+	 * @param gridHash The hash of the grid.
+	 * @param kinds    The kinds of the elements, indexed by their ids.
+	 * @param rows     The rows of the actors, indexed by their ids.
+	 * @param columns  The columns of the actors, indexed by their ids.
+	 * @param healths  The healths of the actors, indexed by their ids.
+	 */
+	private SaveGame(String map, int line, int column, long gridHash, byte[] kinds, int[] rows, int[] columns,
+			int[] healths) {
+		this.map = map;
+		this.line = line;
+		this.column = column;
+		this.gridHash = gridHash;
+		this.kinds = kinds;
+		this.rows = rows;
+		this.columns = columns;
+		this.healths = healths;
+	}
+
+
+	/**
+	 * Saves the state of a game. The data of the elements are copied array by
+	 * array from the entity store of the game, so the game can go on while the
+	 * save is written.
+	 *
+	 * @param game The game to save.
+	 * @param map  The path of the map of the game.
+	 * @return The saved state of the game.
+	 * @throws NullPointerException     If game or map is null.
+	 * @throws IllegalArgumentException If the map has been parsed lazily.
+	 */
+	public static SaveGame of(GameInformation game, Path map) {
+		Objects.requireNonNull(game);
+		Objects.requireNonNull(map);
+		if (game.isLazy()) {
+			throw new IllegalArgumentException("A map parsed lazily cannot be saved");
+		}
+		var entities = game.getEntities();
+		var count = entities.idCount();
+		var kinds = new byte[count];
+		var rows = new int[count];
+		var columns = new int[count];
+		var healths = new int[count];
+		entities.copyState(kinds, rows, columns, healths);
+		return new SaveGame(map.toAbsolutePath().normalize().toString(), game.getLine(), game.getColumn(),
+				game.gridHash(), kinds, rows, columns, healths);
+	}
+
+
+	/**
+	 * Gets the path of the map of the saved game. It is absolute, so the save can
+	 * be loaded from any directory.
+	 *
+	 * @return The path of the map.
+	 */
+	public Path map() {
+		return Path.of(map);
+	}
+
+
+	/**
+	 * Writes the save in a file, without compressing it.
+	 *
+	 * @param path The path of the save file to write.
+	 * @throws IOException If an I/O error occurs while writing.
+	 * @see #write(Path, boolean)
+	 */
+	public void write(Path path) throws IOException {
+		write(path, false);
+	}
+
+
+	/**
+	 * Writes the save in a file, which can be compressed with GZIP at its fastest
+	 * level. The save is first written in a temporary file next to the save file,
+	 * forced to the disk, then renamed to the save file in a single atomic move:
+	 * if the game stops while the save is written, the save file is still the
+	 * previous one. If the save cannot be written, the temporary file is deleted.
+	 *
+	 * @param path     The path of the save file to write.
+	 * @param compress true to compress the save with GZIP, false otherwise.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	public void write(Path path, boolean compress) throws IOException {
+		Objects.requireNonNull(path);
+		var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				// the streams are not closed, since the channel is forced to the disk before being closed
+				OutputStream stream = Channels.newOutputStream(channel);
+				var gzip = compress ? new FastGZIPOutputStream(stream) : null;
+				try {
+					var output = new DataOutputStream(new BufferedOutputStream(gzip != null ? gzip : stream, 1 << 16));
+					writeData(output);
+					output.flush();
+					if (gzip != null) {
+						gzip.finish();
+					}
+				} finally {
+					if (gzip != null) {
+						gzip.end();
+					}
+				}
+				channel.force(true);
+			}
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			// the save file is still the previous one, the half written save is useless
+			try {
+				Files.deleteIfExists(temporary);
+			} catch (IOException deleteError) {
+				e.addSuppressed(deleteError);
+			}
+			throw e;
+		}
+	}
+
+
+	/**
+	 * Writes the header and the data of the save.
+	 *
+	 * @param output The stream to write to.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	private void writeData(DataOutputStream output) throws IOException {
+		output.writeInt(MAGIC);
+		output.writeShort(VERSION);
+		var name = map.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(name.length);
+		output.write(name);
+		output.writeInt(line);
+		output.writeInt(column);
+		output.writeLong(gridHash);
+		output.writeInt(kinds.length);
+		output.write(kinds);
+		for (int id = 0; id < kinds.length; id++) {
+			if (GameInformation.isActorKind(kinds[id])) {
+				output.writeInt(rows[id]);
+				output.writeInt(columns[id]);
+				output.writeInt(healths[id]);
+			}
+		}
+	}
+
+
+	/**
+	 * Reads a save file, compressed with GZIP or not. The file is read in a single
+	 * array, and only the arrays of the saved state are created.
+	 *
+	 * @param path The path of the save file.
+	 * @return The saved state of the game.
+	 * @throws IOException If an I/O error occurs while reading, or if the file is
+	 *                     not a save file of a supported version.
+	 */
+	public static SaveGame read(Path path) throws IOException {
+		Objects.requireNonNull(path);
+		var bytes = Files.readAllBytes(path);
+		if (bytes.length >= 2 && (bytes[0] & 0xFF | (bytes[1] & 0xFF) << 8) == GZIPInputStream.GZIP_MAGIC) {
+			try (var input = new GZIPInputStream(new ByteArrayInputStream(bytes), 1 << 16)) {
+				bytes = input.readAllBytes();
+			}
+		}
+		var buffer = ByteBuffer.wrap(bytes);
+		try {
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException(path + " is not a save file");
+			}
+			var version = Short.toUnsignedInt(buffer.getShort());
+			if (version != VERSION) {
+				throw new IOException("Unsupported version " + version + " of save file");
+			}
+			var nameLength = buffer.getInt();
+			if (nameLength < 0 || nameLength > buffer.remaining()) {
+				throw new IOException(path + " is not a valid save file");
+			}
+			var map = new String(buffer.array(), buffer.position(), nameLength, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + nameLength);
+			var line = buffer.getInt();
+			var column = buffer.getInt();
+			var gridHash = buffer.getLong();
+			var count = buffer.getInt();
+			if (count < 0 || count > buffer.remaining()) {
+				throw new IOException(path + " is not a valid save file");
+			}
+			var kinds = new byte[count];
+			buffer.get(kinds);
+			var rows = new int[count];
+			var columns = new int[count];
+			var healths = new int[count];
+			for (int id = 0; id < count; id++) {
+				if (GameInformation.isActorKind(kinds[id])) {
+					rows[id] = buffer.getInt();
+					columns[id] = buffer.getInt();
+					healths[id] = buffer.getInt();
+				}
+			}
+			if (buffer.hasRemaining()) {
+				throw new IOException(path + " is not a valid save file");
+			}
+			return new SaveGame(map, line, column, gridHash, kinds, rows, columns, healths);
+		} catch (BufferUnderflowException e) {
+			throw new IOException(path + " is not complete", e);
+		}
+	}
+
+
+	/**
+	 * Puts the saved state in a game whose map has just been loaded: the items
+	 * which have been removed are removed, and the actors get their saved
+	 * positions and healths.
+	 *
+	 * @param game The game, loaded from the map of the save.
+	 * @throws NullPointerException     If game is null.
+	 * @throws IllegalArgumentException If the grid of the game is not the one of
+	 *                                  the save, if its elements do not match the
+	 *                                  save, or if its map has been parsed lazily.
+	 * @throws java.io.UncheckedIOException If an I/O error occurs while reading
+	 *                                      the chunks of the grid to hash it.
+	 */
+	public void restore(GameInformation game) {
+		Objects.requireNonNull(game);
+		if (game.getLine() != line || game.getColumn() != column || game.gridHash() != gridHash) {
+			throw new IllegalArgumentException("The grid of the map is not the one of the save");
+		}
+		game.restore(kinds, rows, columns, healths);
+	}
+}
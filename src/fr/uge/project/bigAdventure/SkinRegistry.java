@@ -0,0 +1,129 @@
+package fr.uge.project.bigAdventure;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+
+/**
+ * Gives a small id to each skin of the game, so that the tiles of a grid and
+ * the hot paths of the game can work with ints instead of Strings.
+ * <p>
+ * The ids go from 0, the id of NOTHING, to {@link #size()} - 1 and are the same
+ * during all the game. Each skin has one ElementsOnGrid shared by all the tiles
+ * of all the grids, and its walkability is computed once, as a bit of a mask
+ * of longs indexed by the ids.
+ */
+public final class SkinRegistry {
+	/**
+	 * The id of the skin of the empty tiles, NOTHING.
+	 */
+	public static final int NOTHING = 0;
+	/**
+	 * The id returned for a skin which is not in the registry.
+	 */
+	public static final int UNKNOWN = -1;
+	private static final String[] skins = { "NOTHING", "ALGAE", "CLOUD", "FLOWER", "FOLIAGE", "GRASS", "LADDER",
+			"LILY", "PLANK", "REED", "ROAD", "SPROUT", "TILE", "TRACK", "VINE", "BED", "BOG", "BOMB", "BRICK", "CHAIR",
+			"CLIFF", "DOOR", "FENCE", "FORT", "GATE", "HEDGE", "HOUSE", "HUSK", "HUSKS", "LOCK", "MONITOR", "PIANO",
+			"PILLAR", "PIPE", "ROCK", "RUBBLE", "SHELL", "SIGN", "SPIKE", "STATUE", "STUMP", "TABLE", "TOWER", "TREE",
+			"TREES", "WALL", "BUBBLE", "DUST", "BABA", "BADBAD", "BAT", "BEE", "BIRD", "BUG", "BUNNY", "CAT", "CRAB", "DOG",
+			"FISH", "FOFO", "FROG", "GHOST", "IT", "JELLY", "JIJI", "KEKE", "LIZARD", "ME", "MONSTER", "ROBOT", "SNAIL",
+			"SKULL", "TEETH", "TURTLE", "WORM", "BOOK", "BOLT", "BOX", "CASH", "CLOCK", "COG", "CRYSTAL", "CUP", "DRUM",
+			"FLAG", "GEM", "GUITAR", "HIHAT", "KEY", "LAMP", "LEAF", "MIRROR", "MOON", "ORB", "PANTS", "PAPER", "PLANET",
+			"RING", "ROSE", "SAX", "SCISSORS", "SEED", "SHIRT", "SHOVEL", "STAR", "STICK", "SUN", "SWORD", "TRUMPET",
+			"VASE", "BANANA", "BOBA", "BOTTLE", "BURGER", "CAKE", "CHEESE", "DONUT", "DRINK", "EGG", "FRUIT", "FUNGUS",
+			"FUNGI", "LOVE", "PIZZA", "POTATO", "PUMPKIN", "TURNIP", "PLANE", "ROCKET", "UFO", "CAR", "TRAIN", "CART",
+			"BOAT", "ICE", "LAVA", "WATER", "BUCKET", "FIRE", "WIND" };
+	private static final Set<String> obstacles = Set.of("BED", "BOG", "BOMB", "BRICK", "CHAIR", "CLIFF", "FENCE",
+			"FORT", "HEDGE", "HUSK", "HUSKS", "LOCK", "MONITOR", "PIANO", "PILLAR", "PIPE", "ROCK", "RUBBLE", "SHELL",
+			"SIGN", "SPIKE", "STATUE", "STUMP", "TABLE", "TREE", "TREES", "WALL", "ICE", "LAVA", "WATER", "DOOR", "GATE",
+			"HOUSE", "TOWER");
+	private static final Map<String, Integer> ids = new HashMap<>();
+	private static final ElementsOnGrid[] elements = new ElementsOnGrid[skins.length];
+	private static final long[] walkable = new long[(skins.length + 63) / 64];
+
+	static {
+		for (int id = 0; id < skins.length; id++) {
+			ids.put(skins[id], id);
+			elements[id] = new ElementsOnGrid(skins[id]);
+			if (!obstacles.contains(skins[id])) {
+				walkable[id >>> 6] |= 1L << id;
+			}
+		}
+	}
+
+
+	/**
+	 * Gets the number of skins of the registry.
+	 *
+	 * @return The number of skins, the ids are smaller than this number.
+	 */
+	public static int size() {
+		return skins.length;
+	}
+
+
+	/**
+	 * Gets the id of the specified skin.
+	 *
+	 * @param skin The skin.
+	 * @return The id of the skin, or {@link #UNKNOWN} if the skin is not in the
+	 *         registry.
+	 */
+	public static int idOf(String skin) {
+		return ids.getOrDefault(Objects.requireNonNull(skin), UNKNOWN);
+	}
+
+
+	/**
+	 * Gets the skin which has the specified id.
+	 *
+	 * @param id The id of the skin.
+	 * @return The skin.
+	 * @throws IndexOutOfBoundsException If the id is not in the registry.
+	 */
+	public static String skinOf(int id) {
+		return skins[Objects.checkIndex(id, skins.length)];
+	}
+
+
+	/**
+	 * Gets the element shared by all the tiles with the specified skin.
+	 *
+	 * @param id The id of the skin.
+	 * @return The element of the skin.
+	 * @throws IndexOutOfBoundsException If the id is not in the registry.
+	 */
+	public static ElementsOnGrid elementOf(int id) {
+		return elements[Objects.checkIndex(id, skins.length)];
+	}
+
+
+	/**
+	 * Checks if the player and the other characters can walk on a tile with the
+	 * specified skin.
+	 *
+	 * @param id The id of the skin.
+	 * @return true if the skin is not an obstacle, false otherwise.
+	 * @throws IndexOutOfBoundsException If the id is not in the registry.
+	 */
+	public static boolean canWalk(int id) {
+		Objects.checkIndex(id, skins.length);
+		return (walkable[id >>> 6] & 1L << id) != 0;
+	}
+
+
+	/**
+	 * Checks if the player and the other characters can walk on a tile with the
+	 * specified skin. A skin which is not in the registry is not an obstacle.
+	 *
+	 * @param skin The skin.
+	 * @return true if the skin is not an obstacle, false otherwise.
+	 */
+	public static boolean canWalk(String skin) {
+		var id = idOf(skin);
+		return id == UNKNOWN || canWalk(id);
+	}
+}
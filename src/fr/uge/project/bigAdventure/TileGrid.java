@@ -0,0 +1,166 @@
+package fr.uge.project.bigAdventure;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * Represents the tiles of a game grid in a compact form.
+ * Each tile is the id of a skin of the skin table, stored row by row in a
+ * single buffer of bytes. The buffer is an array on the heap, or is off the
+ * heap, allocated directly or mapped from a compiled map file, so that a big
+ * grid does not make the pauses of the garbage collector longer.
+ */
+public final class TileGrid implements TileStorage {
+	private final int line;
+	private final int column;
+	private final List<String> skins;
+	private final ByteBuffer tiles;
+
+
+	/**
+	 * Constructs a new TileGrid. The array of tiles is used as is, it is not
+	 * copied.
+	 *
+	 * @param line   The number of rows of the grid.
+	 * @param column The number of columns of the grid.
+	 * @param skins  The skin table, the id of a skin is its index in the table.
+	 * @param tiles  The ids of the skins of the tiles, row by row.
+	 * @throws NullPointerException     If skins or tiles is null.
+	 * @throws IllegalArgumentException If the sizes are not valid or if there are
+	 *                                  too many skins.
+	 */
+	public TileGrid(int line, int column, List<String> skins, byte[] tiles) {
+		this(line, column, skins, ByteBuffer.wrap(Objects.requireNonNull(tiles)));
+	}
+
+
+	/**
+	 * Constructs a new TileGrid whose tiles are in a buffer, which can be off the
+	 * heap. The buffer is used as is, it is not copied, and its tiles start at
+	 * index 0.
+	 *
+	 * @param line   The number of rows of the grid.
+	 * @param column The number of columns of the grid.
+	 * @param skins  The skin table, the id of a skin is its index in the table.
+	 * @param tiles  The ids of the skins of the tiles, row by row.
+	 * @throws NullPointerException     If skins or tiles is null.
+	 * @throws IllegalArgumentException If the sizes are not valid or if there are
+	 *                                  too many skins.
+	 */
+	public TileGrid(int line, int column, List<String> skins, ByteBuffer tiles) {
+		Objects.requireNonNull(skins);
+		Objects.requireNonNull(tiles);
+		if (line < 1 || column < 1 || (long) line * column != tiles.capacity()) {
+			throw new IllegalArgumentException("The size of the grid does not match its tiles");
+		}
+		if (skins.size() > 256) {
+			throw new IllegalArgumentException("A grid cannot have more than 256 skins");
+		}
+		this.line = line;
+		this.column = column;
+		this.skins = List.copyOf(skins);
+		this.tiles = tiles;
+	}
+
+
+	/**
+	 * Gets the number of rows of the grid.
+	 *
+	 * @return The number of rows.
+	 */
+	@Override
+	public int getLine() {
+		return line;
+	}
+
+
+	/**
+	 * Gets the number of columns of the grid.
+	 *
+	 * @return The number of columns.
+	 */
+	@Override
+	public int getColumn() {
+		return column;
+	}
+
+
+	/**
+	 * Gets the skin table of the grid.
+	 *
+	 * @return The skins, indexed by their id.
+	 */
+	@Override
+	public List<String> getSkins() {
+		return skins;
+	}
+
+
+	/**
+	 * Gets the id of the skin of the tile at the specified position.
+	 *
+	 * @param i The row index.
+	 * @param j The column index.
+	 * @return The id of the skin of the tile.
+	 */
+	@Override
+	public int getTileId(int i, int j) {
+		return tiles.get(i * column + j) & 0xFF;
+	}
+
+
+	/**
+	 * Checks if the tiles are off the heap.
+	 *
+	 * @return true if the tiles are in a direct or a mapped buffer, false if they
+	 *         are in an array.
+	 */
+	public boolean isOffHeap() {
+		return tiles.isDirect();
+	}
+
+
+	/**
+	 * Creates a copy of the grid whose tiles are off the heap.
+	 *
+	 * @return The new TileGrid.
+	 */
+	public TileGrid toOffHeap() {
+		var copy = ByteBuffer.allocateDirect(tiles.capacity());
+		copy.put(tiles.duplicate().clear());
+		return new TileGrid(line, column, skins, copy.clear());
+	}
+
+
+	/**
+	 * Finds the skins that are used by at least one tile of the grid, and checks
+	 * that every tile is the id of a skin of the table.
+	 *
+	 * @return An array telling for each id of the skin table if a tile uses it.
+	 * @throws IllegalArgumentException If a tile is not the id of a skin of the
+	 *                                  table.
+	 */
+	public boolean[] usedSkinIds() {
+		var used = new boolean[skins.size()];
+		for (int index = 0; index < tiles.capacity(); index++) {
+			var tile = tiles.get(index) & 0xFF;
+			if (tile >= used.length) {
+				throw new IllegalArgumentException("The tile " + tile + " is not a skin of the table");
+			}
+			used[tile] = true;
+		}
+		return used;
+	}
+
+
+	/**
+	 * Gets the buffer containing the tiles, row by row. The buffer is not copied.
+	 *
+	 * @return The tiles of the grid.
+	 */
+	ByteBuffer tiles() {
+		return tiles;
+	}
+}
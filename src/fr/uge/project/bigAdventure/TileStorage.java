@@ -0,0 +1,60 @@
+package fr.uge.project.bigAdventure;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+
+/**
+ * Gives the tiles of a game grid. Each tile is the id of a skin of the skin
+ * table of the grid. The tiles can be all in memory, as in a {@link TileGrid},
+ * or read from a file when they are needed, as in a {@link ChunkedTileStorage}.
+ * A storage which reads a file keeps it open until it is closed.
+ */
+public interface TileStorage extends Closeable {
+	/**
+	 * Gets the number of rows of the grid.
+	 *
+	 * @return The number of rows.
+	 */
+	int getLine();
+
+
+	/**
+	 * Gets the number of columns of the grid.
+	 *
+	 * @return The number of columns.
+	 */
+	int getColumn();
+
+
+	/**
+	 * Gets the skin table of the grid.
+	 *
+	 * @return The skins, indexed by their id.
+	 */
+	List<String> getSkins();
+
+
+	/**
+	 * Gets the id of the skin of the tile at the specified position, which must be
+	 * in the grid.
+	 *
+	 * @param i The row index.
+	 * @param j The column index.
+	 * @return The id of the skin of the tile.
+	 */
+	int getTileId(int i, int j);
+
+
+	/**
+	 * Releases the file of the tiles, if they are read from a file. The tiles
+	 * in memory have nothing to release.
+	 *
+	 * @throws IOException If an I/O error occurs while closing the file.
+	 */
+	@Override
+	default void close() throws IOException {
+		// nothing to release
+	}
+}
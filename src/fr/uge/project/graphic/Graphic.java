@@ -4,15 +4,17 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
-import fr.uge.project.bigAdventure.ActorOfTheGame;
-import fr.uge.project.bigAdventure.AnyElement;
+import fr.uge.project.bigAdventure.ElementKind;
 import fr.uge.project.bigAdventure.Friend;
 import fr.uge.project.bigAdventure.GameInformation;
 import fr.uge.project.bigAdventure.Position;
+import fr.uge.project.bigAdventure.SkinRegistry;
 import fr.umlv.zen5.Application;
 import fr.umlv.zen5.ApplicationContext;
 import fr.umlv.zen5.Event;
@@ -25,28 +27,84 @@ import fr.umlv.zen5.Event.Action;
  * The Graphic class manages the graphical aspects of the game, including rendering elements on the graphics window.
  */
 public class Graphic {
+	/**
+	 * The number of rows and of columns of the part of a chunked grid which is
+	 * drawn around the player character.
+	 */
+	private static final int VIEW_SIZE = 64;
+	/**
+	 * The number of cells around the drawn part of a chunked grid where the actors
+	 * move.
+	 */
+	private static final int ACTIVE_MARGIN = 32;
 	private int canMoovePerso = 0;
 	private float width;
 	private float height;
 	private double scale;
 	private int xOffset;
 	private int yOffset;
+	private int viewTop;
+	private int viewLeft;
+	private int viewLines;
+	private int viewColumns;
 	private ApplicationContext context;
+	private long autosavePeriod;
+	private long nextAutosave;
+
+	/**
+	 * Computes the part of the grid which is drawn. The whole grid is drawn,
+	 * except when it is read from a chunk file: then only the cells around the
+	 * player character are drawn, so only the chunks near the player character are
+	 * read.
+	 *
+	 * @param map The GameInformation object containing details about the game map.
+	 */
+	private void computeView(GameInformation map) {
+		var player = map.getPositionOfPerso();
+		viewTop = Math.max(0, Math.min(player.i() - viewLines / 2, map.getLine() - viewLines));
+		viewLeft = Math.max(0, Math.min(player.j() - viewColumns / 2, map.getColumn() - viewColumns));
+	}
+
+	/**
+	 * Checks if a cell is in the part of the grid which is drawn.
+	 *
+	 * @param i The row of the cell.
+	 * @param j The column of the cell.
+	 * @return true if the cell is drawn, false otherwise.
+	 */
+	private boolean isInView(int i, int j) {
+		return i >= viewTop && i < viewTop + viewLines && j >= viewLeft && j < viewLeft + viewColumns;
+	}
 
 	/**
-	 * Draws the grid of elements on the graphics window based on the specified
-	 * GameInformation map.
+	 * Checks if the actors in a cell move. On a grid read from a chunk file, only
+	 * the actors near the drawn part of the grid move, the other ones wait for the
+	 * player character to come near.
+	 *
+	 * @param map The GameInformation object containing details about the game map.
+	 * @param i   The row of the cell.
+	 * @param j   The column of the cell.
+	 * @return true if the actors in the cell move, false otherwise.
+	 */
+	private boolean isActive(GameInformation map, int i, int j) {
+		return !map.isChunked() || i >= viewTop - ACTIVE_MARGIN && i < viewTop + viewLines + ACTIVE_MARGIN
+				&& j >= viewLeft - ACTIVE_MARGIN && j < viewLeft + viewColumns + ACTIVE_MARGIN;
+	}
+
+	/**
+	 * Draws the drawn part of the grid of elements on the graphics window based on
+	 * the specified GameInformation map.
 	 *
 	 * @param graphics The Graphics2D object used for rendering.
 	 * @param map      The GameInformation object containing details about the game
 	 *                 map.
 	 */
 	private void drawGrid(Graphics2D graphics, GameInformation map) {
-		for (int i = 0; i < map.getLine(); i++) {
-			for (int j = 0; j < map.getColumn(); j++) {
-				var image = map.getBufferedImage(map.getElementInGrid(i, j).skin());
+		for (int i = viewTop; i < viewTop + viewLines; i++) {
+			for (int j = viewLeft; j < viewLeft + viewColumns; j++) {
+				var image = map.getSkinImage(map.getSkinIdInGridUnchecked(i, j));
 				if (image != null) {
-					graphics.drawImage(image, null, j * 24 + xOffset, i * 24 + yOffset);
+					graphics.drawImage(image, null, (j - viewLeft) * 24 + xOffset, (i - viewTop) * 24 + yOffset);
 				}
 			}
 		}
@@ -85,29 +143,33 @@ public class Graphic {
 			double fillPercentage = (double) currentHealth / maxHealth;
 			int fillWidth = (int) Math.round(fillPercentage * barWidth);
 			graphics.setColor(choicebarColor(fillPercentage));
-			graphics.fill(new Rectangle2D.Float(position.j() * 24 + xOffset, position.i() * 24 + yOffset - 2, fillWidth, 3));
+			graphics.fill(new Rectangle2D.Float((position.j() - viewLeft) * 24 + xOffset,
+					(position.i() - viewTop) * 24 + yOffset - 2, fillWidth, 3));
 		}
 	}
 
 	/**
-	 * Draws a collection of elements on the graphics window based on the specified
-	 * map of positions and corresponding elements.
+	 * Draws all the elements of one kind which are in the drawn part of the grid
+	 * on the graphics window, going through the entity store of the map.
 	 *
-	 * @param map         The GameInformation object containing details about the
-	 *                    game map.
-	 * @param elementsMap A map of positions and corresponding elements to be drawn.
-	 * @param graphics    The Graphics2D object used for rendering.
+	 * @param map      The GameInformation object containing details about the game
+	 *                 map.
+	 * @param kind     The kind of the elements to draw.
+	 * @param graphics The Graphics2D object used for rendering.
 	 */
-	private void drawElement(GameInformation map, Map<Position, ? extends AnyElement> elementsMap, Graphics2D graphics) {
-		elementsMap.entrySet().stream().forEach(entry -> {
-			var position = entry.getKey();
-			var perso = entry.getValue();
-			var image = map.getBufferedImage(perso.getSkin());
-			if (image == null) {
-				throw new IllegalArgumentException("The bufferedImage for " + perso.getSkin() + " skin was not foud");
+	private void drawElement(GameInformation map, ElementKind kind, Graphics2D graphics) {
+		var entities = map.getEntities();
+		for (int id = 0; id < entities.idCount(); id++) {
+			if (entities.kindOf(id) == kind && isInView(entities.rowOf(id), entities.columnOf(id))) {
+				var image = map.getSkinImage(entities.skinIdOf(id));
+				if (image == null) {
+					throw new IllegalArgumentException(
+							"The bufferedImage for " + SkinRegistry.skinOf(entities.skinIdOf(id)) + " skin was not foud");
+				}
+				graphics.drawImage(image, null, (entities.columnOf(id) - viewLeft) * 24 + xOffset,
+						(entities.rowOf(id) - viewTop) * 24 + yOffset);
 			}
-			graphics.drawImage(image, null, position.j() * 24 + xOffset, position.i() * 24 + yOffset);
-		});
+		}
 	}
 
 	/**
@@ -123,8 +185,8 @@ public class Graphic {
 		if (image == null) {
 			throw new IllegalArgumentException("The bufferedImage for " + map.getPerso().getSkin() + " skin was not foud");
 		}
-		graphics.drawImage(image, null, map.getPositionOfPerso().j() * 24 + xOffset,
-				map.getPositionOfPerso().i() * 24 + yOffset);
+		graphics.drawImage(image, null, (map.getPositionOfPerso().j() - viewLeft) * 24 + xOffset,
+				(map.getPositionOfPerso().i() - viewTop) * 24 + yOffset);
 		drawHealthBar(graphics, map.getPositionOfPerso(), map.getPerso());
 	}
 
@@ -138,13 +200,14 @@ public class Graphic {
 	 */
 	private void drawAll(GameInformation map, Graphics2D graphics) {
 		resetWindow(graphics);
+		computeView(map);
 		AffineTransform oldTransform = graphics.getTransform();
 		graphics.scale(scale, scale);
 		drawGrid(graphics, map);
-		drawElement(map, map.getFriends(), graphics);
-		drawElement(map, map.getEnemies(), graphics);
-		drawElement(map, map.getItems(), graphics);
-		drawElement(map, map.getObstacles(), graphics);
+		drawElement(map, ElementKind.FRIEND, graphics);
+		drawElement(map, ElementKind.ENEMY, graphics);
+		drawElement(map, ElementKind.ITEM, graphics);
+		drawElement(map, ElementKind.OBSTACLE, graphics);
 		drawPerso(map, graphics);
 		graphics.setTransform(oldTransform);
 	}
@@ -166,11 +229,13 @@ public class Graphic {
 	 * @param map The GameInformation object containing details about the game map.
 	 */
 	private void analisePersoNewCase(GameInformation map) {
-		if (map.getItems().get(map.getPositionOfPerso()) != null) {
-			map.removeItem(map.getPositionOfPerso());
+		var position = map.getPositionOfPerso();
+		if (map.getItemMap().containsKey(position.i(), position.j())) {
+			map.removeItem(position);
 		}
-		if (map.getEnemies().get(map.getPositionOfPerso()) != null) {
-			int newHealth = map.getPerso().getHealth() - map.getEnemies().get(map.getPositionOfPerso()).getDamage();
+		var enemy = map.getEnemyMap().get(position.i(), position.j());
+		if (enemy != null) {
+			int newHealth = map.getPerso().getHealth() - enemy.getDamage();
 			map.getPerso().changeHelth(newHealth);
 		}
 	}
@@ -189,27 +254,27 @@ public class Graphic {
 		switch (pressed) {
 		case UP:
 			newX -= 1;
-			if (newX > 0 && map.getElementInGrid(newX, newY).canWalk()
-					&& map.getObstacles().get(new Position(newX, newY)) == null) {
+			if (newX > 0 && map.canWalk(newX, newY)
+					&& !map.isOccupied(newX, newY, GameInformation.OBSTACLE)) {
 				map.changePlayerPosition(new Position(newX, newY));
 			}
 			break;
 		case DOWN:
 			newX += 1;
-			if (newX > 0 && map.getElementInGrid(newX, newY).canWalk()
-					&& map.getObstacles().get(new Position(newX, newY)) == null)
+			if (newX > 0 && map.canWalk(newX, newY)
+					&& !map.isOccupied(newX, newY, GameInformation.OBSTACLE))
 				map.changePlayerPosition(new Position(newX, newY));
 			break;
 		case LEFT:
 			newY -= 1;
-			if (newY > 0 && map.getElementInGrid(newX, newY).canWalk()
-					&& map.getObstacles().get(new Position(newX, newY)) == null)
+			if (newY > 0 && map.canWalk(newX, newY)
+					&& !map.isOccupied(newX, newY, GameInformation.OBSTACLE))
 				map.changePlayerPosition(new Position(newX, newY));
 			break;
 		case RIGHT:
 			newY += 1;
-			if (newY > 0 && map.getElementInGrid(newX, newY).canWalk()
-					&& map.getObstacles().get(new Position(newX, newY)) == null)
+			if (newY > 0 && map.canWalk(newX, newY)
+					&& !map.isOccupied(newX, newY, GameInformation.OBSTACLE))
 				map.changePlayerPosition(new Position(newX, newY));
 			break;
 		default:
@@ -219,72 +284,95 @@ public class Graphic {
 	}
 
 	/**
-	 * Moves all actors represented by the provided map of positions and
-	 * corresponding ActorOfTheGame objects.
+	 * Moves all the actors of one kind, going through the entity store of the map.
+	 * Each actor goes in one of the directions where it can move, all of them with
+	 * the same chance. An actor which cannot move in any direction stays in place,
+	 * as an actor which is not active.
 	 *
 	 * @param map      The GameInformation object containing details about the game
 	 *                 map.
 	 * @param graphics The Graphics2D object used for rendering.
-	 * @param actors   A map of positions and corresponding ActorOfTheGame objects
-	 *                 to be moved.
+	 * @param kind     The kind of the actors to move, enemies or friends.
 	 */
-	private void mooveAllActors(GameInformation map, Graphics2D graphics,
-			Map<Position, ? extends ActorOfTheGame> actors) {
+	private void mooveAllActors(GameInformation map, Graphics2D graphics, ElementKind kind) {
 		Random random = new Random();
-		Map<Position, ActorOfTheGame> enemiesCopy = new HashMap<>(actors);
-		enemiesCopy.entrySet().stream().forEach(entry -> {
-			var position = entry.getKey();
-			var perso = entry.getValue();
-			if (perso.canMoove()) {
-				int newY = 0, newX = 0;
-				boolean res = false;
-				while (res == false) {
-					newY = position.j();
-					newX = position.i();
-					int randomNumber = random.nextInt(4);
-					switch (randomNumber) {
+		var entities = map.getEntities();
+		// the cells where the actor can go, at most one per direction
+		int[] newXs = new int[4];
+		int[] newYs = new int[4];
+		for (int id = 0; id < entities.idCount(); id++) {
+			if (entities.kindOf(id) == kind && entities.canMove(id)
+					&& isActive(map, entities.rowOf(id), entities.columnOf(id))) {
+				int i = entities.rowOf(id), j = entities.columnOf(id);
+				int count = 0;
+				for (int direction = 0; direction < 4; direction++) {
+					int newY = j, newX = i;
+					switch (direction) {
 					case 0:
-						newY = position.j() - 1;
-						res = perso.canMooveAtNewPosition(position.i(), newY, map);
+						newY = j - 1;
 						break;
 					case 1:
-						newY = position.j() + 1;
-						res = perso.canMooveAtNewPosition(position.i(), newY, map);
+						newY = j + 1;
 						break;
 					case 2:
-						newX = position.i() - 1;
-						res = perso.canMooveAtNewPosition(newX, position.j(), map);
+						newX = i - 1;
 						break;
 					case 3:
-						newX = position.i() + 1;
-						res = perso.canMooveAtNewPosition(newX, position.j(), map);
+						newX = i + 1;
 						break;
 					default:
 						break;
 					}
+					if (entities.canMoveTo(id, newX, newY, map)) {
+						newXs[count] = newX;
+						newYs[count] = newY;
+						count++;
+					}
+				}
+				if (count > 0) {
+					int chosen = random.nextInt(count);
+					map.changeActorPosition(id, newXs[chosen], newYs[chosen]);
 				}
-				map.changeActorPosition(position, new Position(newX, newY));
 			}
-		});
+		}
 	}
 
 	/**
 	 * Initiates and runs the game loop, continuously processing events and
-	 * rendering frames until the player's character health drops to zero.
+	 * rendering frames until the player's character health drops to zero. When a
+	 * new version of the map is given by reloads, the game goes on with it.
 	 *
-	 * @param map The GameInformation object representing the game map and its
-	 *            entities.
+	 * @param map     The GameInformation object representing the game map and its
+	 *                entities.
+	 * @param reloads Gives the new version of the map from the running game, or
+	 *                null if the map has not changed.
+	 * @param saves   Saves the game, when the S key is pressed, when the game is
+	 *                quit with the Q key and at each period of autosave.
 	 */
-	private void game(GameInformation map) {
-		while (map.getPerso().getHealth() > 0) {
+	private void game(GameInformation map, UnaryOperator<GameInformation> reloads, Consumer<GameInformation> saves) {
+		var current = map;
+		nextAutosave = System.nanoTime() + autosavePeriod;
+		while (current.getPerso().getHealth() > 0) {
+			if (autosavePeriod > 0 && System.nanoTime() - nextAutosave >= 0) {
+				saves.accept(current);
+				nextAutosave = System.nanoTime() + autosavePeriod;
+			}
+			var reloaded = reloads.apply(current);
+			if (reloaded != null) {
+				current = reloaded;
+				computeScale(current);
+				canMoovePerso = 30;
+			}
+			var shown = current;
 			Event event = context.pollOrWaitEvent(10);
 			context.renderFrame(graphics -> {
 				if (canMoovePerso == 30) {
-					mooveAllActors(map, graphics, map.getEnemies());
-					mooveAllActors(map, graphics, map.getFriends());
-					analisePersoNewCase(map);
+					computeView(shown);
+					mooveAllActors(shown, graphics, ElementKind.ENEMY);
+					mooveAllActors(shown, graphics, ElementKind.FRIEND);
+					analisePersoNewCase(shown);
 					canMoovePerso = -1;
-					drawAll(map, graphics);
+					drawAll(shown, graphics);
 				}
 				if (event == null) { // no event
 					canMoovePerso++;
@@ -293,10 +381,14 @@ public class Graphic {
 				Action action = event.getAction();
 				if (action == Action.KEY_PRESSED) {
 					if (event.getKey() == KeyboardKey.Q) {
+						saves.accept(shown);
 						context.exit(0);
 					}
-					gestionKeyPressed(map, event.getKey());
-					drawAll(map, graphics);
+					if (event.getKey() == KeyboardKey.S) {
+						saves.accept(shown);
+					}
+					gestionKeyPressed(shown, event.getKey());
+					drawAll(shown, graphics);
 				}
 				canMoovePerso++;
 			});
@@ -304,6 +396,24 @@ public class Graphic {
 		context.exit(0);
 	}
 
+	/**
+	 * Computes the size of the drawn part of the grid, and the scale and the
+	 * offsets used to draw it in the middle of the screen.
+	 *
+	 * @param map The GameInformation object containing details about the game map.
+	 */
+	private void computeScale(GameInformation map) {
+		viewLines = map.isChunked() ? Math.min(map.getLine(), VIEW_SIZE) : map.getLine();
+		viewColumns = map.isChunked() ? Math.min(map.getColumn(), VIEW_SIZE) : map.getColumn();
+		int mapWidth = viewColumns * 24;
+		double scaleX = (double) width / mapWidth;
+		int mapHeight = viewLines * 24;
+		double scaleY = (double) height / mapHeight;
+		scale = Math.min(scaleX, scaleY);
+		xOffset = ((int) width - (int) (mapWidth * scale)) / 2;
+		yOffset = ((int) height - (int) (mapHeight * scale)) / 2;
+	}
+
 	/**
 	 * Creates a new game using the specified GameInformation, initializing the game
 	 * environment and rendering.
@@ -311,20 +421,69 @@ public class Graphic {
 	 * @param map The GameInformation object containing details about the game map.
 	 */
 	public void createGame(GameInformation map) {
+		createGame(map, game -> null, game -> {});
+	}
+
+	/**
+	 * Creates a new game using the specified GameInformation, which is replaced
+	 * while the game runs each time reloads gives a new version of the map.
+	 *
+	 * @param map     The GameInformation object containing details about the game
+	 *                map.
+	 * @param reloads Gives the new version of the map from the running game, or
+	 *                null if the map has not changed.
+	 */
+	public void createGame(GameInformation map, UnaryOperator<GameInformation> reloads) {
+		createGame(map, reloads, game -> {});
+	}
+
+	/**
+	 * Creates a new game using the specified GameInformation, which is replaced
+	 * while the game runs each time reloads gives a new version of the map, and
+	 * which is saved by saves when the S key is pressed and when the game is quit.
+	 *
+	 * @param map     The GameInformation object containing details about the game
+	 *                map.
+	 * @param reloads Gives the new version of the map from the running game, or
+	 *                null if the map has not changed.
+	 * @param saves   Saves the game.
+	 */
+	public void createGame(GameInformation map, UnaryOperator<GameInformation> reloads, Consumer<GameInformation> saves) {
+		createGame(map, reloads, saves, 0);
+	}
+
+	/**
+	 * Creates a new game using the specified GameInformation, which is replaced
+	 * while the game runs each time reloads gives a new version of the map, and
+	 * which is saved by saves when the S key is pressed, when the game is quit and
+	 * at each period of autosave. The saves are done by the thread of the game
+	 * between two frames, so they must be quick.
+	 *
+	 * @param map            The GameInformation object containing details about the
+	 *                       game map.
+	 * @param reloads        Gives the new version of the map from the running
+	 *                       game, or null if the map has not changed.
+	 * @param saves          Saves the game.
+	 * @param autosavePeriod The time between two autosaves, in milliseconds, or 0
+	 *                       to save only when the player asks it.
+	 * @throws IllegalArgumentException If the period is negative.
+	 */
+	public void createGame(GameInformation map, UnaryOperator<GameInformation> reloads, Consumer<GameInformation> saves,
+			long autosavePeriod) {
+		Objects.requireNonNull(map);
+		Objects.requireNonNull(reloads);
+		Objects.requireNonNull(saves);
+		if (autosavePeriod < 0) {
+			throw new IllegalArgumentException("The period of autosave cannot be negative");
+		}
+		this.autosavePeriod = TimeUnit.MILLISECONDS.toNanos(autosavePeriod);
 		Application.run(Color.BLACK, context -> {
 			this.context = context;
 			ScreenInfo screenInfo = context.getScreenInfo();
 			this.width = screenInfo.getWidth();
 			this.height = screenInfo.getHeight();
-			int mapWidth = map.getColumn() * 24;
-			double scaleX = (double) width / mapWidth;
-			int mapHeight = map.getLine() * 24;
-			double scaleY = (double) height / mapHeight;
-			scale = Math.min(scaleX, scaleY);
-			xOffset = ((int) width - (int) (mapWidth * scale)) / 2;
-			yOffset = ((int) height - (int) (mapHeight * scale)) / 2;
-			game(map);
+			computeScale(map);
+			game(map, reloads, saves);
 		});
 	}
-
-}
\ No newline at end of file
+}
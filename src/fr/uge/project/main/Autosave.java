@@ -0,0 +1,155 @@
+package fr.uge.project.main;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import fr.uge.project.bigAdventure.GameInformation;
+import fr.uge.project.bigAdventure.SaveGame;
+
+
+/**
+ * Saves a running game in a save file without stopping its frames. The thread
+ * of the game only takes a snapshot of the state of the game, with
+ * {@link SaveGame#of(GameInformation, Path)}; the snapshot is written, compressed
+ * with GZIP, forced to the disk and renamed to the save file by a daemon
+ * thread. When the writing thread is late, a new snapshot replaces the one
+ * which has not been written yet, so only the last state is written.
+ * <p>
+ * The time taken by the snapshots on the thread of the game and by the writes
+ * on the writing thread are measured, and a summary of them is printed on the
+ * standard error output when the autosave is closed; only the writes which
+ * fail are printed as they happen. The snapshots which have not been written when the JVM stops
+ * are written before it stops, and the games saved after it are not saved.
+ */
+public class Autosave {
+	private static final long STOP_TIME = 10;
+	private final Path path;
+	private final Path map;
+	private final AtomicReference<SaveGame> pending = new AtomicReference<>();
+	private final ExecutorService writer;
+	private final AtomicLong snapshots = new AtomicLong();
+	private final AtomicLong maxSnapshotTime = new AtomicLong();
+	private final AtomicLong writes = new AtomicLong();
+	private final AtomicLong maxWriteTime = new AtomicLong();
+
+
+	/**
+	 * Constructs a new Autosave which writes the saves of the games of a map in a
+	 * save file, and starts its writing thread.
+	 *
+	 * @param path The path of the save file.
+	 * @param map  The path of the map of the games.
+	 * @throws NullPointerException if path or map is null.
+	 */
+	public Autosave(Path path, Path map) {
+		this.path = Objects.requireNonNull(path);
+		this.map = Objects.requireNonNull(map);
+		writer = Executors.newSingleThreadExecutor(runnable -> {
+			var thread = new Thread(runnable, "autosave");
+			thread.setDaemon(true);
+			return thread;
+		});
+		Runtime.getRuntime().addShutdownHook(new Thread(this::close, "autosave-stop"));
+	}
+
+
+	/**
+	 * Prepares the saves of a game before it starts: the hash of its grid, which
+	 * is kept in the saves, is computed once, so that the snapshots taken while
+	 * the game runs do not read the whole grid.
+	 *
+	 * @param game The game which will be saved.
+	 */
+	public void prepare(GameInformation game) {
+		try {
+			SaveGame.of(game, map);
+		} catch (IllegalArgumentException e) {
+			System.err.println(path + ": " + e.getMessage());
+		}
+	}
+
+
+	/**
+	 * Takes a snapshot of a game and gives it to the writing thread. It is called
+	 * by the thread of the game, between two frames. Nothing is saved once the
+	 * autosave is closed.
+	 *
+	 * @param game The game to save.
+	 */
+	public void save(GameInformation game) {
+		if (writer.isShutdown()) {
+			return;
+		}
+		var start = System.nanoTime();
+		SaveGame save;
+		try {
+			save = SaveGame.of(game, map);
+		} catch (IllegalArgumentException e) {
+			System.err.println(path + ": " + e.getMessage());
+			return;
+		}
+		var time = System.nanoTime() - start;
+		snapshots.incrementAndGet();
+		maxSnapshotTime.accumulateAndGet(time, Math::max);
+		// a task is only given when no snapshot was waiting, the waiting one is replaced
+		if (pending.getAndSet(save) == null) {
+			try {
+				writer.execute(this::write);
+			} catch (RejectedExecutionException e) {
+				// the autosave has been closed since the test above
+				System.err.println(path + ": the game is not saved, the autosave is closed");
+			}
+		}
+	}
+
+
+	/**
+	 * Writes the last snapshot given to the writing thread, if it has not been
+	 * written yet. It is called by the writing thread.
+	 */
+	private void write() {
+		var save = pending.getAndSet(null);
+		if (save == null) {
+			return;
+		}
+		var start = System.nanoTime();
+		try {
+			save.write(path, true);
+		} catch (IOException e) {
+			System.err.println(path + " cannot be written: " + e);
+			return;
+		}
+		var time = System.nanoTime() - start;
+		writes.incrementAndGet();
+		maxWriteTime.accumulateAndGet(time, Math::max);
+	}
+
+
+	/**
+	 * Waits for the snapshot being written and the one waiting, then stops the
+	 * writing thread and prints the number of snapshots and writes and their
+	 * longest times. It does nothing if the autosave is already closed.
+	 */
+	public void close() {
+		if (writer.isShutdown()) {
+			return;
+		}
+		writer.shutdown();
+		try {
+			if (!writer.awaitTermination(STOP_TIME, TimeUnit.SECONDS)) {
+				System.err.println(path + ": the last save has not been written");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		System.err.printf("%s: %d snapshots, the longest in %.3f ms, %d writes, the longest in %.1f ms%n", path,
+				snapshots.get(), maxSnapshotTime.get() / 1_000_000.0, writes.get(), maxWriteTime.get() / 1_000_000.0);
+	}
+}
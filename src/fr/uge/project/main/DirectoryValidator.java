@@ -0,0 +1,168 @@
+package fr.uge.project.main;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.uge.project.parser.Diagnostics;
+import fr.uge.project.parser.FileAnalysis;
+
+
+/**
+ * Validates all the map files of a directory and its sub-directories in a
+ * single run, using one worker per available processor.
+ */
+public class DirectoryValidator {
+	private final Path directory;
+	private final PathMatcher matcher;
+	private final boolean matchFileName;
+	private final int maxErrors;
+
+	/**
+	 * Represents the result of the validation of one map file.
+	 *
+	 * @param path       The path of the map file.
+	 * @param valid      true if the map can be played, false otherwise.
+	 * @param errorCount The number of errors found in the file.
+	 * @param parseTime  The time spent to parse the file, in nanoseconds.
+	 * @param size       The size of the file, in bytes.
+	 * @param errors     The errors found in the file, one per line.
+	 */
+	private record FileReport(Path path, boolean valid, int errorCount, long parseTime, long size, String errors) {
+	}
+
+
+	/**
+	 * Constructs a new DirectoryValidator for the files of the directory matching
+	 * the glob pattern. A pattern without '/' is matched against the file names,
+	 * otherwise it is matched against the paths relative to the directory.
+	 *
+	 * @param directory The directory containing the maps to validate.
+	 * @param glob      The glob pattern selecting the files to validate.
+	 * @param maxErrors The maximum number of errors kept for each file,
+	 *                  {@link Diagnostics#UNLIMITED} to keep all of them.
+	 * @throws NullPointerException     if directory or glob is null.
+	 * @throws IllegalArgumentException if maxErrors is less than 1.
+	 */
+	public DirectoryValidator(Path directory, String glob, int maxErrors) {
+		if (maxErrors < 1) {
+			throw new IllegalArgumentException("The maximum number of errors must be at least 1");
+		}
+		this.directory = Objects.requireNonNull(directory);
+		this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + Objects.requireNonNull(glob));
+		this.matchFileName = !glob.contains("/");
+		this.maxErrors = maxErrors;
+	}
+
+
+	/**
+	 * Checks if the specified file must be validated.
+	 *
+	 * @param file The file found in the directory.
+	 * @return true if the file matches the glob pattern, false otherwise.
+	 */
+	private boolean isSelected(Path file) {
+		if (!Files.isRegularFile(file)) {
+			return false;
+		}
+		return matcher.matches(matchFileName ? file.getFileName() : directory.relativize(file));
+	}
+
+
+	/**
+	 * Parses one map file and creates its report. A file which cannot be read,
+	 * for example because it has been deleted since the directory was walked,
+	 * fails with the I/O error as its error, so the other files are still
+	 * validated.
+	 *
+	 * @param path The path of the map file.
+	 * @return The report of the validation of the file.
+	 */
+	private FileReport validateFile(Path path) {
+		var diagnostics = new Diagnostics(maxErrors);
+		var size = 0L;
+		var start = System.nanoTime();
+		try {
+			size = Files.size(path);
+			var fileAnalysis = FileAnalysis.readParser(path, diagnostics);
+			var parseTime = System.nanoTime() - start;
+			return new FileReport(path, fileAnalysis.canPlay(), fileAnalysis.getErrorCount(), parseTime, size,
+					diagnostics.toText());
+		} catch (IOException e) {
+			var parseTime = System.nanoTime() - start;
+			return new FileReport(path, false, 1, parseTime, size,
+					diagnostics.toText() + "The map cannot be read: " + e + System.lineSeparator());
+		} catch (RuntimeException e) {
+			var parseTime = System.nanoTime() - start;
+			return new FileReport(path, false, 1, parseTime, size,
+					diagnostics.toText() + "The map cannot be parsed: " + e + System.lineSeparator());
+		}
+	}
+
+
+	/**
+	 * Adds the report of one map file to the text of the reports.
+	 *
+	 * @param builder The text of the reports.
+	 * @param report  The report to add.
+	 */
+	private static void appendReport(StringBuilder builder, FileReport report) {
+		builder.append(String.format("%s %s (%d errors, %.3f ms)%n", report.valid() ? "PASS" : "FAIL", report.path(),
+				report.errorCount(), report.parseTime() / 1_000_000.0));
+		report.errors().lines().forEach(line -> builder.append("  ").append(line).append(System.lineSeparator()));
+	}
+
+
+	/**
+	 * Validates every selected map of the directory and prints the aggregated
+	 * report on the standard output.
+	 *
+	 * @return true if every map can be played, false otherwise.
+	 * @throws IOException If an I/O error occurs while walking the directory.
+	 */
+	public boolean validate() throws IOException {
+		List<Path> files;
+		try (var stream = Files.walk(directory)) {
+			files = stream.filter(this::isSelected).sorted().toList();
+		}
+		var start = System.nanoTime();
+		var reports = new ArrayList<FileReport>();
+		var executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			var futures = new ArrayList<Future<FileReport>>();
+			for (var file : files) {
+				futures.add(executor.submit(() -> validateFile(file)));
+			}
+			for (var future : futures) {
+				reports.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("The validation has been interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		var totalTime = System.nanoTime() - start;
+		var text = new StringBuilder();
+		reports.forEach(report -> appendReport(text, report));
+		System.out.print(text);
+		var passed = reports.stream().filter(FileReport::valid).count();
+		var errors = reports.stream().mapToInt(FileReport::errorCount).sum();
+		var bytes = reports.stream().mapToLong(FileReport::size).sum();
+		var seconds = totalTime / 1_000_000_000.0;
+		System.out.printf("%d files, %d passed, %d failed, %d errors in %.3f ms (%.1f files/s, %.2f MB/s)%n",
+				reports.size(), passed, reports.size() - passed, errors, totalTime / 1_000_000.0,
+				reports.size() / seconds, bytes / seconds / (1024 * 1024));
+		return passed == reports.size();
+	}
+}
@@ -1,10 +1,16 @@
 package fr.uge.project.main;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.Consumer;
 
+import fr.uge.project.bigAdventure.ChunkedTileStorage;
+import fr.uge.project.bigAdventure.CompiledMap;
 import fr.uge.project.bigAdventure.GameInformation;
+import fr.uge.project.bigAdventure.SaveGame;
 import fr.uge.project.graphic.Graphic;
+import fr.uge.project.parser.Diagnostics;
 import fr.uge.project.parser.FileAnalysis;
 
 
@@ -13,23 +19,47 @@ import fr.uge.project.parser.FileAnalysis;
  */
 public class Main {
 	private static boolean canPlay = true;
+	private static String nameMap = null;
+	private static String validateDirectory = null;
+	private static String glob = "*.map";
+	private static String compiledMap = null;
+	private static int maxErrors = Diagnostics.UNLIMITED;
+	private static boolean jsonErrors = false;
+	private static boolean serveValidate = false;
+	private static boolean watchMap = false;
+	private static boolean lazyElements = false;
+	private static String generatedMap = null;
+	private static int width = 64;
+	private static int height = 64;
+	private static int encodings = 8;
+	private static int enemies = 4;
+	private static int friends = 4;
+	private static int items = 4;
+	private static int obstacles = 4;
+	private static long seed = 0;
+	private static double brokenRate = 0;
+	private static int chunkSize = 0;
+	private static long chunkBudget = CompiledMap.DEFAULT_CHUNK_BUDGET;
+	private static boolean offHeap = false;
+	private static String saveFile = null;
+	private static int autosave = 0;
 	
 
 	
 	/**
-   * Reads the command line options to determine the map file.
+   * Reads the command line options to determine the map file, the directory
+   * of maps to validate or the map to compile.
    *
    * @param args The command line arguments.
-   * @return The name of the map file or null if there's an error.
+   * @return true if the options are valid, false if there's an error.
    */
-	private static String readOptions(String[] args) {
+	private static boolean readOptions(String[] args) {
 		int argsLenght = args.length;
-		String nameMap = null;
 		for (int i = 0; i < argsLenght; i++) {
 			if (args[i].equals("--level")) {
 				if (i + 1 >= argsLenght) {
 					System.err.println("Missing map file name");
-					return null;
+					return false;
 				}
 				nameMap = args[i + 1];
 				i++;
@@ -37,16 +67,341 @@ public class Main {
 			else if(args[i].equals("--validate")) {
 				canPlay = false;
 			}
+			else if(args[i].equals("--validate-dir")) {
+				if (i + 1 >= argsLenght) {
+					System.err.println("Missing directory name");
+					return false;
+				}
+				validateDirectory = args[i + 1];
+				i++;
+			}
+			else if(args[i].equals("--glob")) {
+				if (i + 1 >= argsLenght) {
+					System.err.println("Missing glob pattern");
+					return false;
+				}
+				glob = args[i + 1];
+				i++;
+			}
+			else if(args[i].equals("--compile")) {
+				if (i + 2 >= argsLenght) {
+					System.err.println("Missing map file name or compiled map file name");
+					return false;
+				}
+				nameMap = args[i + 1];
+				compiledMap = args[i + 2];
+				i += 2;
+			}
+			else if(args[i].equals("--max-errors")) {
+				if (i + 1 >= argsLenght) {
+					System.err.println("Missing maximum number of errors");
+					return false;
+				}
+				try {
+					maxErrors = Integer.parseInt(args[i + 1]);
+				} catch (NumberFormatException e) {
+					maxErrors = 0;
+				}
+				if (maxErrors < 1) {
+					System.err.println("The maximum number of errors must be a number greater than 0");
+					return false;
+				}
+				i++;
+			}
+			else if(args[i].equals("--fail-fast")) {
+				maxErrors = 1;
+			}
+			else if(args[i].equals("--error-format")) {
+				if (i + 1 >= argsLenght || !(args[i + 1].equals("text") || args[i + 1].equals("json"))) {
+					System.err.println("The error format must be text or json");
+					return false;
+				}
+				jsonErrors = args[i + 1].equals("json");
+				i++;
+			}
+			else if(args[i].equals("--serve-validate")) {
+				serveValidate = true;
+			}
+			else if(args[i].equals("--watch")) {
+				watchMap = true;
+			}
+			else if(args[i].equals("--lazy-elements")) {
+				lazyElements = true;
+			}
+			else if(args[i].equals("--offheap")) {
+				offHeap = true;
+			}
+			else if(args[i].equals("--save")) {
+				if (i + 1 >= argsLenght) {
+					System.err.println("Missing save file name");
+					return false;
+				}
+				saveFile = args[i + 1];
+				i++;
+			}
+			else if(args[i].equals("--autosave")) {
+				try {
+					autosave = i + 1 < argsLenght ? Integer.parseInt(args[i + 1]) : 0;
+				} catch (NumberFormatException e) {
+					autosave = 0;
+				}
+				if (autosave < 1) {
+					System.err.println("The period of autosave must be a number of seconds greater than 0");
+					return false;
+				}
+				i++;
+			}
+			else if(args[i].equals("--generate")) {
+				if (i + 1 >= argsLenght) {
+					System.err.println("Missing generated map file name");
+					return false;
+				}
+				generatedMap = args[i + 1];
+				i++;
+			}
+			else if(args[i].equals("--chunk-size")) {
+				if (i + 1 >= argsLenght || !readChunkOption(args[i], args[i + 1])) {
+					System.err.println("The size of the chunks must be a number between 1 and 4096");
+					return false;
+				}
+				i++;
+			}
+			else if(args[i].equals("--chunk-budget")) {
+				if (i + 1 >= argsLenght || !readChunkOption(args[i], args[i + 1])) {
+					System.err.println("The memory budget of the chunks must be a number of megabytes greater than 0");
+					return false;
+				}
+				i++;
+			}
+			else if(args[i].equals("--width") || args[i].equals("--height") || args[i].equals("--encodings")
+					|| args[i].equals("--enemies") || args[i].equals("--friends") || args[i].equals("--items")
+					|| args[i].equals("--obstacles") || args[i].equals("--seed") || args[i].equals("--broken")) {
+				if (i + 1 >= argsLenght || !readGeneratorOption(args[i], args[i + 1])) {
+					System.err.println("The option " + args[i] + " needs a valid number");
+					return false;
+				}
+				i++;
+			}
 			else {
 				System.err.println("The option " + args[i] + " is unknown");
-				return null;
+				return false;
 			}
 		}
-		if (nameMap == null) {
+		if (nameMap == null && validateDirectory == null && !serveValidate && generatedMap == null
+				&& saveFile == null) {
 			System.err.println("Missing map file name");
-			return null;
+			return false;
+		}
+		if (autosave != 0 && saveFile == null) {
+			System.err.println("The option --autosave needs a save file given with --save");
+			return false;
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Reads the value of an option of the map generator.
+	 *
+	 * @param option The name of the option.
+	 * @param value  The value of the option.
+	 * @return true if the value is a valid number, false otherwise.
+	 */
+	private static boolean readGeneratorOption(String option, String value) {
+		try {
+			switch (option) {
+				case "--seed" -> seed = Long.parseLong(value);
+				case "--broken" -> brokenRate = Double.parseDouble(value);
+				default -> {
+					var number = Integer.parseInt(value);
+					if (number < 0) {
+						return false;
+					}
+					switch (option) {
+						case "--width" -> width = number;
+						case "--height" -> height = number;
+						case "--encodings" -> encodings = number;
+						case "--enemies" -> enemies = number;
+						case "--friends" -> friends = number;
+						case "--items" -> items = number;
+						default -> obstacles = number;
+					}
+				}
+			}
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
 		}
-		return nameMap;
+	}
+	
+	
+	/**
+	 * Reads the value of an option of the chunks of a grid: the size of the chunks
+	 * of a chunked compiled map, or the memory budget of the chunks in memory, in
+	 * megabytes.
+	 *
+	 * @param option The name of the option.
+	 * @param value  The value of the option.
+	 * @return true if the value is a valid number, false otherwise.
+	 */
+	private static boolean readChunkOption(String option, String value) {
+		try {
+			var number = Integer.parseInt(value);
+			if (option.equals("--chunk-size")) {
+				chunkSize = number;
+				return number >= 1 && number <= 4096;
+			}
+			chunkBudget = (long) number << 20;
+			return number >= 1;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+	
+	
+	/**
+	 * Writes a synthetic map with the settings given on the command line and
+	 * prints its size and the time taken to write it. A map whose name ends with
+	 * .bmap is written as a chunked compiled map.
+	 *
+	 * @throws IOException If an I/O error occurs while writing the map.
+	 */
+	private static void generateMap() throws IOException {
+		MapGenerator.Settings settings;
+		try {
+			settings = new MapGenerator.Settings(width, height, encodings, enemies, friends, items, obstacles, seed,
+					brokenRate);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			return;
+		}
+		var start = System.nanoTime();
+		var generator = new MapGenerator(settings);
+		long size;
+		try {
+			size = generatedMap.endsWith(".bmap")
+					? generator.generateCompiled(Path.of(generatedMap),
+							chunkSize == 0 ? ChunkedTileStorage.DEFAULT_CHUNK_SIZE : chunkSize)
+					: generator.generate(Path.of(generatedMap));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			return;
+		}
+		System.err.printf("%s: %d bytes, %d elements, written in %.1f ms%n", generatedMap, size,
+				1 + enemies + friends + items + obstacles, (System.nanoTime() - start) / 1_000_000.0);
+	}
+	
+	
+	/**
+	 * Parses the map file and prints its errors in a single write at the end, as
+	 * text on the standard error output or as JSON on the standard output. With
+	 * --lazy-elements, a map which is played is parsed lazily.
+	 *
+	 * @param path The path of the map file.
+	 * @return The analysis of the map.
+	 * @throws IOException If an I/O error occurs while reading the map.
+	 */
+	private static FileAnalysis parseMap(Path path) throws IOException {
+		var diagnostics = new Diagnostics(maxErrors);
+		try {
+			if (lazyElements && compiledMap == null) {
+				return FileAnalysis.readParserLazily(path, diagnostics);
+			}
+			return FileAnalysis.readParser(path, diagnostics);
+		} finally {
+			if (jsonErrors) {
+				System.out.println(diagnostics.toJson(path.toString()));
+			} else {
+				diagnostics.printText(System.err);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Puts the state of a save file in a game which has just been loaded.
+	 *
+	 * @param map  The game.
+	 * @param save The saved state read from the save file, or null if there is no
+	 *             save file.
+	 * @return true if the game can be played, false if the save does not match
+	 *         its map.
+	 */
+	private static boolean restoreSave(GameInformation map, SaveGame save) {
+		if (save == null) {
+			return true;
+		}
+		var start = System.nanoTime();
+		try {
+			save.restore(map);
+		} catch (IllegalArgumentException e) {
+			System.err.println(saveFile + ": " + e.getMessage());
+			return false;
+		}
+		System.err.printf("%s: restored in %.1f ms%n", saveFile, (System.nanoTime() - start) / 1_000_000.0);
+		return true;
+	}
+	
+	
+	/**
+	 * Gives what saves a game in the save file given with --save, or does nothing
+	 * if there is no save file. The game is saved in the background by an
+	 * {@link Autosave}.
+	 *
+	 * @param path The path of the map of the game.
+	 * @param map  The game.
+	 * @return What saves the game.
+	 */
+	private static Consumer<GameInformation> saverOf(Path path, GameInformation map) {
+		if (saveFile == null) {
+			return game -> {};
+		}
+		var saver = new Autosave(Path.of(saveFile), path);
+		saver.prepare(map);
+		return saver::save;
+	}
+	
+	
+	/**
+	 * Plays the map and reloads it in the running game each time its file is
+	 * saved.
+	 *
+	 * @param path The path of the map file.
+	 * @param save The saved state to put in the game, or null.
+	 * @throws IOException If an I/O error occurs while reading the map.
+	 */
+	private static void playWatchedMap(Path path, SaveGame save) throws IOException {
+		var watcher = new MapWatcher(path, offHeap);
+		var mapInformations = watcher.parse();
+		if (!mapInformations.canPlay()) {
+			return;
+		}
+		var map = new GameInformation(offHeap);
+		closeOnExit(map);
+		map.initialiseFromParseur(mapInformations);
+		if (!restoreSave(map, save)) {
+			return;
+		}
+		watcher.start();
+		new Graphic().createGame(map, watcher::pollReloaded, saverOf(path, map), autosave * 1000L);
+	}
+	
+	
+	/**
+	 * Closes a game when the JVM stops, so that the chunk file of its grid is
+	 * closed. The game cannot be closed after it is played, since closing its
+	 * window stops the JVM with System.exit.
+	 *
+	 * @param map The game.
+	 */
+	private static void closeOnExit(GameInformation map) {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				map.close();
+			} catch (IOException e) {
+				System.err.println("The map cannot be closed: " + e);
+			}
+		}, "game-close"));
 	}
 	
 	
@@ -56,19 +411,63 @@ public class Main {
    * @param args The command line arguments.
    */
 	public static void main(String[] args) {
-		var nameMap = readOptions(args);
-		if (nameMap == null) {
+		if (!readOptions(args)) {
 			return;
 		}
-		var path = Path.of(nameMap);
 		FileAnalysis mapInformations = null;
 		try {
-			mapInformations = FileAnalysis.readParser(path);
+			if (generatedMap != null) {
+				generateMap();
+				return;
+			}
+			if (serveValidate) {
+				new ValidationServer(maxErrors, System.out).serve(System.in);
+				return;
+			}
+			if (validateDirectory != null) {
+				new DirectoryValidator(Path.of(validateDirectory), glob, maxErrors).validate();
+				return;
+			}
+			SaveGame save = null;
+			if (saveFile != null && Files.exists(Path.of(saveFile))) {
+				save = SaveGame.read(Path.of(saveFile));
+				if (nameMap == null) {
+					nameMap = save.map().toString();
+				}
+			}
+			if (nameMap == null) {
+				System.err.println("Missing map file name");
+				return;
+			}
+			var path = Path.of(nameMap);
+			if (nameMap.endsWith(".bmap")) {
+				// the chunk file of the grid stays open while the game runs
+				var map = CompiledMap.load(path, chunkBudget, offHeap);
+				closeOnExit(map);
+				if (canPlay && restoreSave(map, save)) {
+					new Graphic().createGame(map, game -> null, saverOf(path, map), autosave * 1000L);
+				}
+				return;
+			}
+			if (watchMap && canPlay && compiledMap == null) {
+				playWatchedMap(path, save);
+				return;
+			}
+			mapInformations = parseMap(path);
+			if (compiledMap != null) {
+				if (mapInformations.canPlay()) {
+					CompiledMap.compile(mapInformations, Path.of(compiledMap), chunkSize);
+				}
+				return;
+			}
 			if (mapInformations.canPlay() && canPlay) {
-				var map = new GameInformation();
+				var map = new GameInformation(offHeap);
+				closeOnExit(map);
 				map.initialiseFromParseur(mapInformations);
-				Graphic graphic = new Graphic();
-				graphic.createGame(map);
+				if (restoreSave(map, save)) {
+					Graphic graphic = new Graphic();
+					graphic.createGame(map, game -> null, saverOf(path, map), autosave * 1000L);
+				}
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
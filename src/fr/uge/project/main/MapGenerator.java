@@ -0,0 +1,351 @@
+package fr.uge.project.main;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+import fr.uge.project.bigAdventure.CompiledMap;
+import fr.uge.project.bigAdventure.ElementDescriptor;
+import fr.uge.project.bigAdventure.ElementKind;
+import fr.uge.project.bigAdventure.Position;
+
+
+/**
+ * Writes synthetic maps, in the syntax of the .map files, to measure how the
+ * parser and the game scale. The same settings always give the same map.
+ * <p>
+ * A valid map has a grid of the requested size, the requested number of
+ * encodings, one player and the requested number of enemies, friends, items
+ * and obstacles at random positions. In broken mode, the errors of the
+ * badGridData maps are injected at the requested rate: each row of the grid can
+ * be too short or contain a letter without encoding, and each error of the
+ * header of the grid (missing size, missing encodings, missing data, wrong
+ * height, encoding which is not a letter, unknown skin) can be present.
+ * <p>
+ * A valid map can also be written as a chunked compiled map, whose grid is
+ * written chunk by chunk without being in memory, so that its size is not
+ * limited by the memory nor by the size of a map file.
+ */
+public class MapGenerator {
+	/**
+	 * The skins used in the encodings of the grid, walkable skins and obstacles
+	 * alternate so that the grid is mixed.
+	 */
+	private static final String[] GRID_SKINS = { "GRASS", "WALL", "FLOWER", "TREE", "ROAD", "WATER", "TILE", "ROCK",
+			"PLANK", "FENCE", "LILY", "LAVA", "REED", "HEDGE", "ALGAE", "BRICK", "SPROUT", "CLIFF", "TRACK", "BOG", "VINE",
+			"ICE", "FOLIAGE", "RUBBLE", "LADDER", "PILLAR", "CLOUD", "STUMP", "DUST", "STATUE", "BUBBLE", "HOUSE", "WIND",
+			"TOWER", "FIRE", "DOOR", "LEAF", "GATE", "ROSE", "PIPE", "SEED", "SPIKE", "MOON", "SHELL", "SUN", "SIGN", "STAR",
+			"HUSK", "ORB", "HUSKS", "FUNGUS", "TREES" };
+	private static final String[] ENEMY_SKINS = { "CRAB", "BADBAD", "BAT", "BEE", "BUG", "GHOST", "SKULL", "MONSTER" };
+	private static final String[] FRIEND_SKINS = { "BUNNY", "CAT", "DOG", "FROG", "FISH", "BIRD", "TURTLE", "KEKE" };
+	private static final String[] ITEM_SKINS = { "KEY", "BOOK", "BOX", "CASH", "GEM", "CUP", "SWORD", "LAMP" };
+	private static final String[] OBSTACLE_SKINS = { "TABLE", "CHAIR", "BED", "PIANO", "STATUE", "ROCK", "STUMP" };
+	private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+	private static final int MARGIN = 2;
+	private final Settings settings;
+	private final SplittableRandom random;
+
+	/**
+	 * Represents the settings of a generated map.
+	 *
+	 * @param width      The number of columns of the grid.
+	 * @param height     The number of rows of the grid.
+	 * @param encodings  The number of encodings of the grid, at most 52.
+	 * @param enemies    The number of enemies.
+	 * @param friends    The number of friends.
+	 * @param items      The number of items.
+	 * @param obstacles  The number of obstacles.
+	 * @param seed       The seed of the random generator.
+	 * @param brokenRate The probability of each injected error, 0 for a valid
+	 *                   map.
+	 */
+	public record Settings(int width, int height, int encodings, int enemies, int friends, int items, int obstacles,
+			long seed, double brokenRate) {
+
+		/**
+		 * Constructs new Settings.
+		 *
+		 * @throws IllegalArgumentException if a setting is not valid.
+		 */
+		public Settings {
+			if (width < 1 || height < 1 || (long) width * height < 2) {
+				throw new IllegalArgumentException("The size of the grid is not valid");
+			}
+			if (encodings < 1 || encodings > GRID_SKINS.length) {
+				throw new IllegalArgumentException("The number of encodings must be between 1 and " + GRID_SKINS.length);
+			}
+			if (enemies < 0 || friends < 0 || items < 0 || obstacles < 0) {
+				throw new IllegalArgumentException("A number of elements cannot be negative");
+			}
+			if (!(brokenRate >= 0 && brokenRate <= 1)) {
+				throw new IllegalArgumentException("The rate of errors must be between 0 and 1");
+			}
+		}
+	}
+
+
+	/**
+	 * Constructs a new MapGenerator.
+	 *
+	 * @param settings The settings of the map to generate.
+	 * @throws NullPointerException if settings is null.
+	 */
+	public MapGenerator(Settings settings) {
+		this.settings = Objects.requireNonNull(settings);
+		this.random = new SplittableRandom(settings.seed());
+	}
+
+
+	/**
+	 * Checks if an error must be injected.
+	 *
+	 * @return true with the probability of the broken rate.
+	 */
+	private boolean broken() {
+		return settings.brokenRate() > 0 && random.nextDouble() < settings.brokenRate();
+	}
+
+
+	/**
+	 * Writes the [grid] section of the map.
+	 *
+	 * @param writer   The writer of the map.
+	 * @param playerX  The column of the player, its tile is left empty.
+	 * @param playerY  The row of the player, the player is not on the first tile.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	private void writeGrid(Writer writer, int playerX, int playerY) throws IOException {
+		var width = settings.width();
+		var height = settings.height();
+		writer.write("[grid]\n");
+		if (!broken()) {
+			writer.write("  size: (" + width + " x " + (broken() ? height + 1 : height) + ")\n");
+		}
+		if (!broken()) {
+			writer.write("  encodings:");
+			for (int i = 0; i < settings.encodings(); i++) {
+				writer.write(i % 8 == 7 ? "\n    " : " ");
+				var skin = broken() ? "WALDO" : GRID_SKINS[i];
+				writer.write(skin + "(" + (broken() ? "OOPS" : String.valueOf(LETTERS.charAt(i))) + ")");
+			}
+			writer.write('\n');
+		}
+		if (broken()) {
+			return;
+		}
+		writer.write("  data: \"\"\"\n");
+		var row = new char[MARGIN + width + 1];
+		for (int i = 0; i < MARGIN; i++) {
+			row[i] = ' ';
+		}
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				// half of the tiles are empty
+				var letter = random.nextInt(settings.encodings() * 2);
+				row[MARGIN + x] = letter < settings.encodings() ? LETTERS.charAt(letter) : ' ';
+			}
+			if (y == 0) {
+				// the parser finds the margin of the data with the first tile
+				row[MARGIN] = LETTERS.charAt(random.nextInt(settings.encodings()));
+			}
+			if (y == playerY) {
+				row[MARGIN + playerX] = ' ';
+			}
+			var length = MARGIN + width;
+			if (broken()) {
+				row[MARGIN + random.nextInt(width)] = settings.encodings() < LETTERS.length()
+						? LETTERS.charAt(LETTERS.length() - 1) : '?';
+			}
+			if (broken()) {
+				length--;
+			}
+			row[length] = '\n';
+			writer.write(row, 0, length + 1);
+		}
+		writer.write("  \"\"\"\n");
+	}
+
+
+	/**
+	 * Creates a name made of letters from a number.
+	 *
+	 * @param number The number of the element.
+	 * @return The name of the element.
+	 */
+	private static String nameOf(int number) {
+		var name = new StringBuilder();
+		do {
+			name.append((char) ('a' + number % 26));
+			number /= 26;
+		} while (number != 0);
+		return name.toString();
+	}
+
+
+	/**
+	 * Creates an element at a random position. The enemies and the friends have a
+	 * health and a zone around their position, the enemies have a damage.
+	 *
+	 * @param kind   The kind of the element.
+	 * @param skins  The skins that can be used by the element.
+	 * @param number The number of the element, used to name it.
+	 * @return The description of the element, with its position written as a
+	 *         column then a row, as in a map.
+	 */
+	private ElementDescriptor randomElement(ElementKind kind, String[] skins, int number) {
+		var position = new Position(random.nextInt(settings.width()), random.nextInt(settings.height()));
+		var skin = skins[random.nextInt(skins.length)];
+		if (kind != ElementKind.ENEMY && kind != ElementKind.FRIEND) {
+			return new ElementDescriptor(kind, nameOf(number), skin, position, ElementDescriptor.NOT_INFORMED,
+					ElementDescriptor.NOT_INFORMED, null, null, ElementDescriptor.NOT_INFORMED, ElementDescriptor.NOT_INFORMED);
+		}
+		var health = 1 + random.nextInt(30);
+		var zoneLines = 1 + random.nextInt(8);
+		var zoneColumns = 1 + random.nextInt(8);
+		var damage = kind == ElementKind.ENEMY ? 1 + random.nextInt(10) : ElementDescriptor.NOT_INFORMED;
+		return new ElementDescriptor(kind, nameOf(number), skin, position, health, damage, "stroll", position, zoneLines,
+				zoneColumns);
+	}
+
+
+	/**
+	 * Writes the [element] sections of one kind of element.
+	 *
+	 * @param writer The writer of the map.
+	 * @param kind   The kind of the elements.
+	 * @param skins  The skins that can be used by the elements.
+	 * @param count  The number of elements.
+	 * @param first  The number of the first element, used to name it.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	private void writeElements(Writer writer, ElementKind kind, String[] skins, int count, int first)
+			throws IOException {
+		var text = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			var element = randomElement(kind, skins, first + i);
+			var position = element.position();
+			text.setLength(0);
+			text.append("\n[element]\n  name: ").append(element.name()).append("\n  skin: ").append(element.skin())
+					.append("\n  position: (").append(position.i()).append(", ").append(position.j())
+					.append(")\n  kind: ").append(kind.getKeyword()).append('\n');
+			if (element.zone() != null) {
+				text.append("  health: ").append(element.health()).append('\n');
+				text.append("  zone: (").append(position.i()).append(", ").append(position.j()).append(") (")
+						.append(element.zoneLines()).append(" x ").append(element.zoneColumns())
+						.append(")\n  behavior: ").append(element.behavior()).append('\n');
+			}
+			if (element.damage() != ElementDescriptor.NOT_INFORMED) {
+				text.append("  damage: ").append(element.damage()).append('\n');
+			}
+			writer.append(text);
+		}
+	}
+
+
+	/**
+	 * Creates the elements of one kind and adds them to a list.
+	 *
+	 * @param elements The list of the elements.
+	 * @param kind     The kind of the elements.
+	 * @param skins    The skins that can be used by the elements.
+	 * @param count    The number of elements.
+	 */
+	private void addElements(List<ElementDescriptor> elements, ElementKind kind, String[] skins, int count) {
+		var first = elements.size() - 1;
+		for (int i = 0; i < count; i++) {
+			elements.add(randomElement(kind, skins, first + i));
+		}
+	}
+
+
+	/**
+	 * Gets the tile of a chunked grid at a row and a column. The tile only depends
+	 * on the seed, the row and the column, so the tiles can be written in any
+	 * order. Half of the tiles are empty.
+	 *
+	 * @param i The row of the tile.
+	 * @param j The column of the tile.
+	 * @return The id of the skin of the tile in the skin table, 0 for an empty
+	 *         tile.
+	 */
+	private int tileOf(int i, int j) {
+		var hash = (settings.seed() + ((long) i << 32 | j & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+		hash = (hash ^ hash >>> 31) * 0xBF58476D1CE4E5B9L;
+		hash ^= hash >>> 29;
+		var letter = (int) ((hash >>> 1) % (settings.encodings() * 2));
+		return letter < settings.encodings() ? letter + 1 : 0;
+	}
+
+
+	/**
+	 * Writes the map in the specified file.
+	 *
+	 * @param path The path of the map file to write.
+	 * @return The size of the written file, in bytes.
+	 * @throws IOException If an I/O error occurs while writing.
+	 */
+	public long generate(Path path) throws IOException {
+		Objects.requireNonNull(path);
+		if ((long) settings.width() * settings.height() > Integer.MAX_VALUE - 64) {
+			throw new IllegalArgumentException("The grid is too big for a map file, write a compiled map");
+		}
+		var playerTile = 1 + random.nextInt(settings.width() * settings.height() - 1);
+		var playerX = playerTile % settings.width();
+		var playerY = playerTile / settings.width();
+		try (var writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.ISO_8859_1), 1 << 16)) {
+			writeGrid(writer, playerX, playerY);
+			writer.write("\n[element]\n  name: baba\n  player: true\n  skin: BABA\n  position: (" + playerX + ", "
+					+ playerY + ")\n  health: 10\n");
+			var first = 0;
+			writeElements(writer, ElementKind.ENEMY, ENEMY_SKINS, settings.enemies(), first);
+			first += settings.enemies();
+			writeElements(writer, ElementKind.FRIEND, FRIEND_SKINS, settings.friends(), first);
+			first += settings.friends();
+			writeElements(writer, ElementKind.ITEM, ITEM_SKINS, settings.items(), first);
+			first += settings.items();
+			writeElements(writer, ElementKind.OBSTACLE, OBSTACLE_SKINS, settings.obstacles(), first);
+		}
+		return Files.size(path);
+	}
+
+
+	/**
+	 * Writes the map as a chunked compiled map in the specified file, and its grid
+	 * in the chunk file of the compiled map. The errors of the broken mode are not
+	 * injected.
+	 *
+	 * @param path      The path of the compiled map to write.
+	 * @param chunkSize The number of rows and of columns of a chunk of the grid.
+	 * @return The size of the written files, in bytes.
+	 * @throws IOException              If an I/O error occurs while writing.
+	 * @throws IllegalArgumentException If the size of the chunks is not valid.
+	 */
+	public long generateCompiled(Path path, int chunkSize) throws IOException {
+		Objects.requireNonNull(path);
+		var width = settings.width();
+		var playerTile = 1 + random.nextLong((long) width * settings.height() - 1);
+		var playerX = (int) (playerTile % width);
+		var playerY = (int) (playerTile / width);
+		var elements = new ArrayList<ElementDescriptor>();
+		elements.add(new ElementDescriptor(ElementKind.PLAYER, "baba", "BABA", new Position(playerX, playerY), 10,
+				ElementDescriptor.NOT_INFORMED, null, null, ElementDescriptor.NOT_INFORMED, ElementDescriptor.NOT_INFORMED));
+		addElements(elements, ElementKind.ENEMY, ENEMY_SKINS, settings.enemies());
+		addElements(elements, ElementKind.FRIEND, FRIEND_SKINS, settings.friends());
+		addElements(elements, ElementKind.ITEM, ITEM_SKINS, settings.items());
+		addElements(elements, ElementKind.OBSTACLE, OBSTACLE_SKINS, settings.obstacles());
+		var skins = new ArrayList<String>();
+		skins.add("NOTHING");
+		skins.addAll(List.of(GRID_SKINS).subList(0, settings.encodings()));
+		// the tile of the player is left empty
+		CompiledMap.compileChunked(path, settings.height(), width, skins, chunkSize,
+				(i, j) -> i == playerY && j == playerX ? 0 : tileOf(i, j), elements);
+		return Files.size(path) + Files.size(CompiledMap.chunkFileOf(path));
+	}
+}
@@ -0,0 +1,180 @@
+package fr.uge.project.main;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import fr.uge.project.bigAdventure.GameInformation;
+import fr.uge.project.parser.FileAnalysis;
+import fr.uge.project.parser.SectionCache;
+
+
+/**
+ * Watches a map file and parses it again each time it is saved, so that a
+ * running game can be reloaded without restarting the JVM.
+ * <p>
+ * The map is parsed with a {@link SectionCache}: only the sections changed by
+ * the save are read again. When the new version of the map can be played, the
+ * game information created from it is given by
+ * {@link #pollReloaded(GameInformation)}, with the state of the running game
+ * carried over to the elements whose sections have not been edited: the level
+ * goes on instead of restarting. The errors of each version are printed on the
+ * standard error output.
+ */
+public class MapWatcher {
+	private static final long SETTLE_TIME = 100;
+	private final Path path;
+	private final SectionCache cache = new SectionCache();
+	private final AtomicReference<GameInformation> reloaded = new AtomicReference<>();
+	private final boolean offHeap;
+
+
+	/**
+	 * Constructs a new MapWatcher for the specified map file.
+	 *
+	 * @param path The path of the map file.
+	 * @throws NullPointerException if path is null.
+	 */
+	public MapWatcher(Path path) {
+		this(path, false);
+	}
+
+
+	/**
+	 * Constructs a new MapWatcher for the specified map file, whose reloaded game
+	 * information can keep its grid off the heap.
+	 *
+	 * @param path    The path of the map file.
+	 * @param offHeap true to keep the grid of the reloaded game information off
+	 *                the heap.
+	 * @throws NullPointerException if path is null.
+	 * @see GameInformation#GameInformation(boolean)
+	 */
+	public MapWatcher(Path path, boolean offHeap) {
+		this.path = Objects.requireNonNull(path).toAbsolutePath();
+		this.offHeap = offHeap;
+	}
+
+
+	/**
+	 * Parses the current version of the map and prints its errors. The file is
+	 * read in memory instead of being mapped, because an editor can write it
+	 * while it is read.
+	 *
+	 * @return The analysis of the map.
+	 * @throws IOException If an I/O error occurs while reading the map.
+	 */
+	public FileAnalysis parse() throws IOException {
+		var text = Files.readString(path, StandardCharsets.ISO_8859_1);
+		synchronized (cache) {
+			var fileAnalysis = cache.parse(text);
+			fileAnalysis.getDiagnostics().printText(System.err);
+			return fileAnalysis;
+		}
+	}
+
+
+	/**
+	 * Parses the map again after a save and keeps the new game information if the
+	 * map can be played.
+	 */
+	private void reload() {
+		try {
+			var start = System.nanoTime();
+			var fileAnalysis = parse();
+			System.err.printf("%s reloaded in %.3f ms (%d sections reused, %d read)%n", path,
+					(System.nanoTime() - start) / 1_000_000.0, cache.getReusedCount(), cache.getParsedCount());
+			if (fileAnalysis.canPlay()) {
+				var map = new GameInformation(offHeap);
+				map.initialiseFromParseur(fileAnalysis);
+				reloaded.set(map);
+			}
+		} catch (IOException | RuntimeException e) {
+			System.err.println("The map " + path + " cannot be reloaded: " + e);
+		}
+	}
+
+
+	/**
+	 * Gets the game information of the last version of the map which can be
+	 * played, if it has not been taken yet. The state of the running game is
+	 * carried over to it, so it is called by the thread of the game.
+	 *
+	 * @param running The running game, loaded from the previous version of the
+	 *                map.
+	 * @return The new game information, or null if the map has not changed.
+	 * @throws NullPointerException if running is null.
+	 * @see GameInformation#carryStateFrom(GameInformation)
+	 */
+	public GameInformation pollReloaded(GameInformation running) {
+		Objects.requireNonNull(running);
+		var map = reloaded.getAndSet(null);
+		if (map != null) {
+			var carried = map.carryStateFrom(running);
+			System.err.println(path + ": the state of " + carried + " elements has been kept");
+		}
+		return map;
+	}
+
+
+	/**
+	 * Checks if the events of a watch key are about the map file, and makes the
+	 * key ready to receive new events.
+	 *
+	 * @param key The key which has received events, or null if there are none.
+	 * @return true if the map file has changed, false otherwise.
+	 */
+	private boolean hasChanged(WatchKey key) {
+		if (key == null) {
+			return false;
+		}
+		var changed = false;
+		for (var event : key.pollEvents()) {
+			if (path.getFileName().equals(event.context())) {
+				changed = true;
+			}
+		}
+		key.reset();
+		return changed;
+	}
+
+
+	/**
+	 * Starts to watch the directory of the map in a daemon thread.
+	 *
+	 * @throws IOException If the directory cannot be watched.
+	 */
+	public void start() throws IOException {
+		WatchService watchService = FileSystems.getDefault().newWatchService();
+		var directory = path.getParent();
+		directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		var thread = new Thread(() -> {
+			try (watchService) {
+				while (true) {
+					if (hasChanged(watchService.take())) {
+						// an editor can write the file in several times, the reload waits for the last write
+						while (hasChanged(watchService.poll(SETTLE_TIME, TimeUnit.MILLISECONDS))) {
+							// wait for the next write
+						}
+						reload();
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// the watcher stops with the game
+			} catch (IOException e) {
+				System.err.println("The map " + path + " is not watched anymore: " + e);
+			}
+		}, "map-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+}
@@ -0,0 +1,201 @@
+package fr.uge.project.main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import fr.uge.project.parser.Diagnostic;
+import fr.uge.project.parser.Diagnostics;
+import fr.uge.project.parser.FileAnalysis;
+
+
+/**
+ * Validates maps sent one after the other on an input stream, so that an editor
+ * pays the start of the JVM only once instead of once per map.
+ * <p>
+ * Each request is one line:
+ * <ul>
+ * <li>a path, to validate the map file at this path;</li>
+ * <li>{@code @N name}, followed by the N lines of a map which is not saved, to
+ * validate this text under the specified name.</li>
+ * </ul>
+ * Each request gets one JSON line as answer, containing its number (starting at
+ * 1), the time spent to validate it and the diagnostics of the map. The maps are
+ * validated in parallel, so the answers can come in a different order than the
+ * requests.
+ * <p>
+ * A request whose header is not {@code @N name}, or whose map is cut by the end
+ * of the input, is answered with a {@code bad-request} diagnostic. After a bad
+ * header, the server stops reading: the lines of its map cannot be told apart
+ * from the next requests.
+ */
+public class ValidationServer {
+	private final int maxErrors;
+	private final PrintStream output;
+
+
+	/**
+	 * Constructs a new ValidationServer.
+	 *
+	 * @param maxErrors The maximum number of errors kept for each map,
+	 *                  {@link Diagnostics#UNLIMITED} to keep all of them.
+	 * @param output    The stream on which the answers are written.
+	 * @throws NullPointerException     if output is null.
+	 * @throws IllegalArgumentException if maxErrors is less than 1.
+	 */
+	public ValidationServer(int maxErrors, PrintStream output) {
+		if (maxErrors < 1) {
+			throw new IllegalArgumentException("The maximum number of errors must be at least 1");
+		}
+		this.maxErrors = maxErrors;
+		this.output = Objects.requireNonNull(output);
+	}
+
+
+	/**
+	 * Validates one map and writes its answer.
+	 *
+	 * @param request The number of the request.
+	 * @param name    The name of the map, its path for a map file.
+	 * @param text    The text of the map, or null to read the map file.
+	 */
+	private void validate(long request, String name, String text) {
+		var diagnostics = new Diagnostics(maxErrors);
+		var start = System.nanoTime();
+		var valid = false;
+		var report = diagnostics;
+		try {
+			var fileAnalysis = text == null ? FileAnalysis.readParser(Path.of(name), diagnostics)
+					: FileAnalysis.readParser(text, diagnostics);
+			valid = fileAnalysis.canPlay();
+		} catch (IOException | RuntimeException e) {
+			// the failure is always reported, even if the collector is already full
+			report = new Diagnostics();
+			diagnostics.getDiagnostics().forEach(report::add);
+			report.add(new Diagnostic("cannot-parse", 0, 0, "The map cannot be parsed: " + e));
+		}
+		var time = System.nanoTime() - start;
+		var answer = "{\"request\":" + request + ",\"valid\":" + valid + ",\"micros\":" + time / 1_000
+				+ ",\"diagnostics\":" + report.toJson(name) + "}";
+		synchronized (output) {
+			output.println(answer);
+			output.flush();
+		}
+	}
+
+
+	/**
+	 * Answers a request which does not follow the protocol.
+	 *
+	 * @param request The number of the request.
+	 * @param name    The name of the map of the request.
+	 * @param message The message describing what is wrong in the request.
+	 */
+	private void reject(long request, String name, String message) {
+		var report = new Diagnostics();
+		report.add(new Diagnostic("bad-request", 0, 0, message));
+		var answer = "{\"request\":" + request + ",\"valid\":false,\"micros\":0,\"diagnostics\":"
+				+ report.toJson(name) + "}";
+		synchronized (output) {
+			output.println(answer);
+			output.flush();
+		}
+	}
+
+
+	/**
+	 * Gets the number of lines of the map of a request from its header.
+	 *
+	 * @param header The first line of the request, starting with '@'.
+	 * @return The number of lines, or -1 if the header is not valid.
+	 */
+	private static int lineCountOf(String header) {
+		var space = header.indexOf(' ');
+		try {
+			return Math.max(-1, Integer.parseInt(space == -1 ? header.substring(1) : header.substring(1, space)));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * Reads the text of a map sent in a request.
+	 *
+	 * @param reader    The reader of the requests.
+	 * @param lineCount The number of lines of the map.
+	 * @return The text of the map, or null if the input ends before the end of the
+	 *         map.
+	 * @throws IOException If an I/O error occurs while reading.
+	 */
+	private static String readText(BufferedReader reader, int lineCount) throws IOException {
+		var text = new StringBuilder();
+		for (int i = 0; i < lineCount; i++) {
+			var line = reader.readLine();
+			if (line == null) {
+				return null;
+			}
+			text.append(line).append('\n');
+		}
+		return text.toString();
+	}
+
+
+	/**
+	 * Reads the requests until the end of the input stream and validates them on
+	 * one worker per available processor. Returns when all the answers have been
+	 * written.
+	 *
+	 * @param input The stream of the requests.
+	 * @throws IOException If an I/O error occurs while reading the requests.
+	 */
+	public void serve(InputStream input) throws IOException {
+		Objects.requireNonNull(input);
+		var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			long request = 0;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				request++;
+				var number = request;
+				if (line.startsWith("@")) {
+					var space = line.indexOf(' ');
+					var name = space == -1 ? "<unsaved>" : line.substring(space + 1);
+					var lineCount = lineCountOf(line);
+					if (lineCount == -1) {
+						reject(number, name, "The header " + line + " is not @N name, the next requests are not read");
+						break;
+					}
+					var text = readText(reader, lineCount);
+					if (text == null) {
+						reject(number, name, "The input has ended before the " + lineCount + " lines of the map");
+						break;
+					}
+					executor.execute(() -> validate(number, name, text));
+				} else {
+					var path = line.strip();
+					executor.execute(() -> validate(number, path, null));
+				}
+			}
+		} finally {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package fr.uge.project.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Represents the rows of the data of a grid, found before being checked in
+ * parallel.
+ * <p>
+ * The rows are found with the same walk as the sequential analysis of the data,
+ * then ranges of rows are checked on a {@link ForkJoinPool}: the encoding of
+ * each character, the width of each row, and the ids of the tiles that are
+ * written in the grid. The errors are kept by row, so they can be reported in
+ * the order of the lines of the file.
+ */
+final class DataRows {
+	private static final int CHARACTERS_PER_TASK = 1 << 16;
+	private final CharSequence data;
+	private final int[] bounds;
+	private final List<List<Diagnostic>> errors;
+	private int[] idOfCharacter;
+	private byte[] tiles;
+	private int gridLine;
+	private int gridColumn;
+	private int firstLine;
+	private int margin;
+
+	/**
+	 * Checks a range of rows, split in smaller ranges while it contains too many
+	 * characters.
+	 */
+	private static final class RowsTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final DataRows rows;
+		private final int from;
+		private final int to;
+
+		/**
+		 * Constructs a new task checking the rows from "from" included to "to"
+		 * excluded.
+		 *
+		 * @param rows The rows of the data.
+		 * @param from The index of the first row to check.
+		 * @param to   The index after the last row to check.
+		 */
+		private RowsTask(DataRows rows, int from, int to) {
+			this.rows = rows;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1 || rows.end(to - 1) - rows.start(from) <= CHARACTERS_PER_TASK) {
+				for (int row = from; row < to; row++) {
+					rows.checkRow(row);
+				}
+				return;
+			}
+			var middle = (from + to) >>> 1;
+			invokeAll(new RowsTask(rows, from, middle), new RowsTask(rows, middle, to));
+		}
+	}
+
+
+	/**
+	 * Constructs the rows of the data from their bounds.
+	 *
+	 * @param data   The data of the grid.
+	 * @param bounds The start and the end of each row, one after the other.
+	 */
+	private DataRows(CharSequence data, int[] bounds) {
+		this.data = data;
+		this.bounds = bounds;
+		this.errors = new ArrayList<>(bounds.length / 2);
+		for (int row = 0; row < bounds.length / 2; row++) {
+			errors.add(null);
+		}
+	}
+
+
+	/**
+	 * Finds the rows of the data, in the same way as the sequential analysis
+	 * reads them: a row ends at a new line, and the margin is skipped after it.
+	 * The last row ends at the closing quotes.
+	 *
+	 * @param data   The data of the grid, including its quotes.
+	 * @param read   The index of the first character of the first row.
+	 * @param margin The margin of the data.
+	 * @return The rows of the data, or null if the data does not end with the
+	 *         closing quotes where the sequential analysis expects them.
+	 * @throws NullPointerException if data is null.
+	 */
+	static DataRows find(CharSequence data, int read, int margin) {
+		Objects.requireNonNull(data);
+		var length = data.length();
+		var bounds = new int[64];
+		var count = 0;
+		var start = read;
+		while (read < length) {
+			var current = data.charAt(read);
+			if (current == '\n' || current == '"') {
+				if (count == bounds.length) {
+					bounds = Arrays.copyOf(bounds, count * 2);
+				}
+				bounds[count++] = start;
+				bounds[count++] = read;
+				if (current == '"') {
+					return new DataRows(data, Arrays.copyOf(bounds, count));
+				}
+				read += margin;
+				start = read;
+			} else {
+				read++;
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Gets the number of rows, the last one being the row of the closing quotes.
+	 *
+	 * @return The number of rows.
+	 */
+	int size() {
+		return bounds.length / 2;
+	}
+
+
+	/**
+	 * Gets the index of the first character of a row.
+	 *
+	 * @param row The index of the row.
+	 * @return The start of the row in the data.
+	 */
+	private int start(int row) {
+		return bounds[2 * row];
+	}
+
+
+	/**
+	 * Gets the index of the character ending a row, a new line or a double quote.
+	 *
+	 * @param row The index of the row.
+	 * @return The end of the row in the data.
+	 */
+	private int end(int row) {
+		return bounds[2 * row + 1];
+	}
+
+
+	/**
+	 * Adds an error found in a row.
+	 *
+	 * @param row        The index of the row.
+	 * @param diagnostic The error.
+	 */
+	private void addError(int row, Diagnostic diagnostic) {
+		var errorsOfRow = errors.get(row);
+		if (errorsOfRow == null) {
+			errorsOfRow = new ArrayList<>();
+			errors.set(row, errorsOfRow);
+		}
+		errorsOfRow.add(diagnostic);
+	}
+
+
+	/**
+	 * Checks the characters and the width of one row, and writes its tiles. Each
+	 * row is checked by a single task, so the tasks never write the same part of
+	 * the tiles nor of the errors.
+	 *
+	 * @param row The index of the row.
+	 */
+	private void checkRow(int row) {
+		var column = 0;
+		var end = end(row);
+		for (int read = start(row); read < end; read++) {
+			var current = data.charAt(read);
+			var id = current < idOfCharacter.length ? idOfCharacter[current] : -1;
+			if (id == -1) {
+				addError(row, GridReader.noReference(current, row + firstLine, column + margin));
+			} else if (tiles != null && row < gridLine && column < gridColumn) {
+				tiles[row * gridColumn + column] = (byte) id;
+			}
+			column++;
+		}
+		if (data.charAt(end) == '\n' && gridColumn != -1 && column != gridColumn) {
+			addError(row, GridReader.wrongWidth(row + firstLine, column + margin));
+		}
+	}
+
+
+	/**
+	 * Checks all the rows in parallel and reports their errors in the order of
+	 * the rows.
+	 *
+	 * @param idOfCharacter The id of the skin of each character of the encoding.
+	 * @param tiles         The tiles to fill, or null if the grid is not created.
+	 * @param gridLine      The number of rows of the grid, -1 if it is unknown.
+	 * @param gridColumn    The number of columns of the grid, -1 if it is unknown.
+	 * @param firstLine     The line of the file of the first row.
+	 * @param margin        The margin of the data, to find the columns in the file.
+	 * @param fileAnalysis  The FileAnalysis object to update with the errors.
+	 */
+	void check(int[] idOfCharacter, byte[] tiles, int gridLine, int gridColumn, int firstLine, int margin,
+			FileAnalysis fileAnalysis) {
+		this.idOfCharacter = Objects.requireNonNull(idOfCharacter);
+		this.tiles = tiles;
+		this.gridLine = gridLine;
+		this.gridColumn = gridColumn;
+		this.firstLine = firstLine;
+		this.margin = margin;
+		ForkJoinPool.commonPool().invoke(new RowsTask(this, 0, size()));
+		for (var errorsOfRow : errors) {
+			if (errorsOfRow != null) {
+				for (var diagnostic : errorsOfRow) {
+					if (fileAnalysis.isStopped()) {
+						return;
+					}
+					fileAnalysis.reportError(diagnostic);
+				}
+			}
+		}
+	}
+}
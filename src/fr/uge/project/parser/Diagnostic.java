@@ -0,0 +1,90 @@
+package fr.uge.project.parser;
+
+import java.util.Objects;
+
+
+/**
+ * Represents an error found while analyzing a map.
+ *
+ * @param code    A short name identifying the kind of error, such as
+ *                "unexpected-token" or "width".
+ * @param line    The line of the file where the error is found, 0 if the error
+ *                is not about a line.
+ * @param column  The column of the line where the error is found, starting at
+ *                1, 0 if it is unknown.
+ * @param message The message describing the error.
+ */
+public record Diagnostic(String code, int line, int column, String message) {
+	/**
+	 * Constructs a new Diagnostic.
+	 *
+	 * @throws NullPointerException     if code or message is null.
+	 * @throws IllegalArgumentException if line or column is negative.
+	 */
+	public Diagnostic {
+		Objects.requireNonNull(code);
+		Objects.requireNonNull(message);
+		if (line < 0 || column < 0) {
+			throw new IllegalArgumentException("The line and the column cannot be negative");
+		}
+	}
+
+
+	/**
+	 * Gets the text of the error, as it is printed for the user.
+	 *
+	 * @return The message, preceded by its line if it is known.
+	 */
+	public String toText() {
+		if (line == 0) {
+			return message;
+		}
+		return "At line " + line + ": " + message;
+	}
+
+
+	/**
+	 * Adds a text to a JSON document, as a JSON string.
+	 *
+	 * @param builder The builder of the JSON document.
+	 * @param text    The text to add.
+	 */
+	static void appendJsonString(StringBuilder builder, String text) {
+		builder.append('"');
+		for (int i = 0; i < text.length(); i++) {
+			var current = text.charAt(i);
+			switch (current) {
+			case '"':
+				builder.append("\\\"");
+				break;
+			case '\\':
+				builder.append("\\\\");
+				break;
+			case '\n':
+				builder.append("\\n");
+				break;
+			default:
+				if (current < ' ') {
+					builder.append(String.format("\\u%04x", (int) current));
+				} else {
+					builder.append(current);
+				}
+			}
+		}
+		builder.append('"');
+	}
+
+
+	/**
+	 * Adds the error to a JSON document, as a JSON object.
+	 *
+	 * @param builder The builder of the JSON document.
+	 */
+	void appendJson(StringBuilder builder) {
+		builder.append("{\"code\":");
+		appendJsonString(builder, code);
+		builder.append(",\"line\":").append(line).append(",\"column\":").append(column).append(",\"message\":");
+		appendJsonString(builder, message);
+		builder.append('}');
+	}
+}
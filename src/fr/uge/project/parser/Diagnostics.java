@@ -0,0 +1,200 @@
+package fr.uge.project.parser;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * Collects the errors found while analyzing a map, so that they are printed
+ * all at once at the end of the analysis instead of one by one.
+ * <p>
+ * The number of errors can be limited: when the limit is reached, the
+ * collector is full and the next errors are not kept. The analysis stops as
+ * soon as the collector is full, and the collector is marked as stopped so that
+ * the report says that the rest of the map has not been analyzed.
+ */
+public class Diagnostics {
+	/**
+	 * The limit of a collector which keeps all the errors.
+	 */
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+	private final int maxErrors;
+	private final List<Diagnostic> diagnostics = new ArrayList<>();
+	private int droppedCount = 0;
+	private boolean stopped = false;
+
+
+	/**
+	 * Constructs a new collector keeping at most maxErrors errors.
+	 *
+	 * @param maxErrors The maximum number of errors, {@link #UNLIMITED} to keep
+	 *                  all of them.
+	 * @throws IllegalArgumentException if maxErrors is less than 1.
+	 */
+	public Diagnostics(int maxErrors) {
+		if (maxErrors < 1) {
+			throw new IllegalArgumentException("The maximum number of errors must be at least 1");
+		}
+		this.maxErrors = maxErrors;
+	}
+
+
+	/**
+	 * Constructs a new collector keeping all the errors.
+	 */
+	public Diagnostics() {
+		this(UNLIMITED);
+	}
+
+
+	/**
+	 * Adds an error if the collector is not full.
+	 *
+	 * @param diagnostic The error to add.
+	 * @return true if the error has been kept, false if the collector was full.
+	 * @throws NullPointerException if diagnostic is null.
+	 */
+	public boolean add(Diagnostic diagnostic) {
+		Objects.requireNonNull(diagnostic);
+		if (isFull()) {
+			droppedCount++;
+			return false;
+		}
+		diagnostics.add(diagnostic);
+		return true;
+	}
+
+
+	/**
+	 * Gets the maximum number of errors of this collector.
+	 *
+	 * @return The maximum number of errors, {@link #UNLIMITED} if all the errors
+	 *         are kept.
+	 */
+	public int getMaxErrors() {
+		return maxErrors;
+	}
+
+
+	/**
+	 * Checks if the maximum number of errors has been reached.
+	 *
+	 * @return true if no more errors can be kept, false otherwise.
+	 */
+	public boolean isFull() {
+		return diagnostics.size() >= maxErrors;
+	}
+
+
+	/**
+	 * Gets the number of errors that have been kept.
+	 *
+	 * @return The number of errors.
+	 */
+	public int size() {
+		return diagnostics.size();
+	}
+
+
+	/**
+	 * Gets the number of errors that have not been kept because the collector was
+	 * full.
+	 *
+	 * @return The number of dropped errors.
+	 */
+	public int getDroppedCount() {
+		return droppedCount;
+	}
+
+
+	/**
+	 * Marks the analysis as stopped before the end of the map, because the
+	 * collector is full.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+
+	/**
+	 * Checks if the analysis has been stopped before the end of the map or if an
+	 * error has not been kept because the collector was full.
+	 *
+	 * @return true if the analysis has been stopped or an error has been dropped,
+	 *         false otherwise.
+	 */
+	public boolean isStopped() {
+		return stopped || droppedCount > 0;
+	}
+
+
+	/**
+	 * Gets the errors that have been kept, in the order in which they have been
+	 * found.
+	 *
+	 * @return An unmodifiable view of the errors.
+	 */
+	public List<Diagnostic> getDiagnostics() {
+		return Collections.unmodifiableList(diagnostics);
+	}
+
+
+	/**
+	 * Gets the text of all the errors, one per line.
+	 *
+	 * @return The text of the errors, an empty text if there is no error.
+	 */
+	public String toText() {
+		var builder = new StringBuilder();
+		for (var diagnostic : diagnostics) {
+			builder.append(diagnostic.toText()).append(System.lineSeparator());
+		}
+		if (isStopped()) {
+			builder.append("The analysis has stopped after ").append(maxErrors).append(" errors")
+					.append(System.lineSeparator());
+		}
+		return builder.toString();
+	}
+
+
+	/**
+	 * Gets the errors as a JSON object containing the file, the errors and if the
+	 * analysis has been stopped by the limit.
+	 *
+	 * @param file The name of the analyzed file.
+	 * @return The JSON object, on a single line.
+	 * @throws NullPointerException if file is null.
+	 */
+	public String toJson(String file) {
+		Objects.requireNonNull(file);
+		var builder = new StringBuilder("{\"file\":");
+		Diagnostic.appendJsonString(builder, file);
+		builder.append(",\"errors\":[");
+		var separator = "";
+		for (var diagnostic : diagnostics) {
+			builder.append(separator);
+			diagnostic.appendJson(builder);
+			separator = ",";
+		}
+		builder.append("],\"stopped\":").append(isStopped()).append('}');
+		return builder.toString();
+	}
+
+
+	/**
+	 * Prints the text of all the errors in a single write.
+	 *
+	 * @param output The stream on which the errors are printed.
+	 * @throws NullPointerException if output is null.
+	 */
+	public void printText(PrintStream output) {
+		Objects.requireNonNull(output);
+		if (!diagnostics.isEmpty()) {
+			output.print(toText());
+			output.flush();
+		}
+	}
+}
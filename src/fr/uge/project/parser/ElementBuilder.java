@@ -0,0 +1,54 @@
+package fr.uge.project.parser;
+
+import fr.uge.project.bigAdventure.ElementDescriptor;
+import fr.uge.project.bigAdventure.ElementKind;
+import fr.uge.project.bigAdventure.Position;
+
+
+/**
+ * Collects the attributes of an element while its [element] section is read,
+ * then creates its {@link ElementDescriptor}.
+ * A number that has not been read is {@link ElementDescriptor#NOT_INFORMED}.
+ */
+class ElementBuilder {
+	ElementKind kind;
+	String name;
+	String skin;
+	String behavior;
+	int positionX = ElementDescriptor.NOT_INFORMED;
+	int positionY = ElementDescriptor.NOT_INFORMED;
+	int health = ElementDescriptor.NOT_INFORMED;
+	int damage = ElementDescriptor.NOT_INFORMED;
+	int zoneX = ElementDescriptor.NOT_INFORMED;
+	int zoneY = ElementDescriptor.NOT_INFORMED;
+	int zoneLines = ElementDescriptor.NOT_INFORMED;
+	int zoneColumns = ElementDescriptor.NOT_INFORMED;
+
+
+	/**
+	 * Creates a position from two numbers that may not have been read.
+	 *
+	 * @param i The first number of the position.
+	 * @param j The second number of the position.
+	 * @return The position, or null if one of the numbers has not been read.
+	 */
+	private static Position positionOf(int i, int j) {
+		if (i == ElementDescriptor.NOT_INFORMED || j == ElementDescriptor.NOT_INFORMED) {
+			return null;
+		}
+		return new Position(i, j);
+	}
+
+
+	/**
+	 * Creates the descriptor of the element from the attributes that have been
+	 * read.
+	 *
+	 * @return The descriptor of the element.
+	 * @throws NullPointerException if the kind of the element has not been read.
+	 */
+	ElementDescriptor build() {
+		return new ElementDescriptor(kind, name, skin, positionOf(positionX, positionY), health, damage, behavior,
+				positionOf(zoneX, zoneY), zoneLines, zoneColumns);
+	}
+}
@@ -0,0 +1,230 @@
+package fr.uge.project.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import fr.uge.project.bigAdventure.ElementDescriptor;
+
+
+/**
+ * Indexes the [element] sections of a map which are read only when they are
+ * needed. For each section, only its place in the text and the position of its
+ * element are kept, in arrays of ints.
+ * <p>
+ * The grid is cut in square chunks and the sections are grouped by the chunk
+ * containing their element. A chunk is materialized when it is needed: its
+ * sections are read and the descriptions of their elements are created. The
+ * errors of a section are only found at this time: they are printed on the
+ * standard error output and the element of the section is ignored.
+ */
+public class ElementIndex {
+	/**
+	 * The number of rows and columns of a chunk.
+	 */
+	public static final int CHUNK_SIZE = 32;
+	private final CharSequence text;
+	private final LineIndex lineIndex;
+	private int size = 0;
+	private int[] starts = new int[16];
+	private int[] rows = new int[16];
+	private int[] columns = new int[16];
+	private int chunkRows;
+	private int chunkColumns;
+	private int[] bucketStarts;
+	private int[] order;
+	private boolean[] materialized;
+
+
+	/**
+	 * Constructs a new empty ElementIndex for the sections of the specified text.
+	 *
+	 * @param text      The text of the map.
+	 * @param lineIndex The index of the lines of the text, used to find the lines
+	 *                  of the errors of the sections.
+	 */
+	ElementIndex(CharSequence text, LineIndex lineIndex) {
+		this.text = Objects.requireNonNull(text);
+		this.lineIndex = Objects.requireNonNull(lineIndex);
+	}
+
+
+	/**
+	 * Gets the number of sections which are indexed.
+	 *
+	 * @return The number of indexed sections.
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * Gets the number of chunks in a column of the grid.
+	 *
+	 * @return The number of rows of chunks.
+	 */
+	public int getChunkRows() {
+		return chunkRows;
+	}
+
+
+	/**
+	 * Gets the number of chunks in a row of the grid.
+	 *
+	 * @return The number of columns of chunks.
+	 */
+	public int getChunkColumns() {
+		return chunkColumns;
+	}
+
+
+	/**
+	 * Reads the position of the current [element] section and indexes the section
+	 * if it can be read later. A section can be read later if it has exactly one
+	 * position, written as "position: (x, y)", and does not speak about the
+	 * player. Otherwise, the lexer is moved back to the start of the section so
+	 * that it can be read at once.
+	 *
+	 * @param lexer The lexer of the map, its current token is the ']' of the
+	 *              header of the section.
+	 * @return true if the section has been indexed and skipped, false if it must
+	 *         be read now.
+	 */
+	boolean defer(Lexer lexer) {
+		var start = lexer.getEnd();
+		var x = -1;
+		var y = -1;
+		var deferred = true;
+		Token token;
+		while ((token = lexer.next()) != null && token != Token.LEFT_BRACKET) {
+			if (token != Token.IDENTIFIER) {
+				continue;
+			}
+			if (lexer.contentEquals("player") || (lexer.contentEquals("position") && x != -1)) {
+				deferred = false;
+				break;
+			}
+			if (lexer.contentEquals("position")) {
+				if (lexer.next() != Token.COLON || lexer.next() != Token.LEFT_PARENS || lexer.next() != Token.NUMBER
+						|| (x = readNumber(lexer)) == -1 || lexer.next() != Token.COMMA || lexer.next() != Token.NUMBER
+						|| (y = readNumber(lexer)) == -1 || lexer.next() != Token.RIGHT_PARENS) {
+					deferred = false;
+					break;
+				}
+			}
+		}
+		if (!deferred || y == -1) {
+			lexer.skip(start);
+			return false;
+		}
+		add(start, y, x);
+		return true;
+	}
+
+
+	/**
+	 * Gets the value of the number that is the current token of the lexer.
+	 *
+	 * @param lexer The lexer whose current token is a number.
+	 * @return The value of the number, or -1 if it is too big.
+	 */
+	private static int readNumber(Lexer lexer) {
+		try {
+			return lexer.getNumber();
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * Adds a section to the index.
+	 *
+	 * @param start  The index of the text just after the header of the section.
+	 * @param row    The row of the element on the grid.
+	 * @param column The column of the element on the grid.
+	 */
+	private void add(int start, int row, int column) {
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			rows = Arrays.copyOf(rows, size * 2);
+			columns = Arrays.copyOf(columns, size * 2);
+		}
+		starts[size] = start;
+		rows[size] = row;
+		columns[size] = column;
+		size++;
+	}
+
+
+	/**
+	 * Groups the sections by chunk, once the size of the grid is known. A section
+	 * whose element is outside of the grid is put in the nearest chunk.
+	 *
+	 * @param gridLine   The number of rows of the grid.
+	 * @param gridColumn The number of columns of the grid.
+	 */
+	void bucket(int gridLine, int gridColumn) {
+		chunkRows = (gridLine + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		chunkColumns = (gridColumn + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		var chunks = new int[size];
+		bucketStarts = new int[chunkRows * chunkColumns + 1];
+		for (int i = 0; i < size; i++) {
+			var chunkRow = Math.min(rows[i] / CHUNK_SIZE, chunkRows - 1);
+			var chunkColumn = Math.min(columns[i] / CHUNK_SIZE, chunkColumns - 1);
+			chunks[i] = chunkRow * chunkColumns + chunkColumn;
+			bucketStarts[chunks[i] + 1]++;
+		}
+		for (int chunk = 0; chunk < chunkRows * chunkColumns; chunk++) {
+			bucketStarts[chunk + 1] += bucketStarts[chunk];
+		}
+		order = new int[size];
+		var next = Arrays.copyOf(bucketStarts, bucketStarts.length - 1);
+		for (int i = 0; i < size; i++) {
+			order[next[chunks[i]]++] = i;
+		}
+		materialized = new boolean[chunkRows * chunkColumns];
+	}
+
+
+	/**
+	 * Reads the sections of a chunk which has not been materialized yet.
+	 *
+	 * @param chunkRow    The row of the chunk.
+	 * @param chunkColumn The column of the chunk.
+	 * @return The descriptions of the valid elements of the chunk, an empty list
+	 *         if the chunk is outside of the grid or has already been
+	 *         materialized.
+	 * @throws IllegalStateException If the size of the grid is not known.
+	 */
+	public List<ElementDescriptor> materialize(int chunkRow, int chunkColumn) {
+		if (materialized == null) {
+			throw new IllegalStateException("The grid of the map has not been decoded");
+		}
+		if (chunkRow < 0 || chunkColumn < 0 || chunkRow >= chunkRows || chunkColumn >= chunkColumns) {
+			return List.of();
+		}
+		var chunk = chunkRow * chunkColumns + chunkColumn;
+		if (materialized[chunk]) {
+			return List.of();
+		}
+		materialized[chunk] = true;
+		var elements = new ArrayList<ElementDescriptor>(bucketStarts[chunk + 1] - bucketStarts[chunk]);
+		var reader = new ElementReader();
+		for (int k = bucketStarts[chunk]; k < bucketStarts[chunk + 1]; k++) {
+			var i = order[k];
+			var lexer = new Lexer(text, lineIndex);
+			lexer.skip(starts[i]);
+			var diagnostics = new Diagnostics();
+			var fileAnalysis = new FileAnalysis(lexer, diagnostics);
+			reader.readElement(lexer, fileAnalysis);
+			diagnostics.printText(System.err);
+			if (fileAnalysis.canPlay()) {
+				elements.addAll(fileAnalysis.getDataOfElements());
+			}
+		}
+		return elements;
+	}
+}
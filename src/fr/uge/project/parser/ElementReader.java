@@ -1,7 +1,7 @@
 package fr.uge.project.parser;
 
-import java.util.HashMap;
-
+import fr.uge.project.bigAdventure.ElementDescriptor;
+import fr.uge.project.bigAdventure.ElementKind;
 import fr.uge.project.bigAdventure.ElementsSet;
 
 /**
@@ -9,78 +9,95 @@ import fr.uge.project.bigAdventure.ElementsSet;
  * Lexer.
  */
 public class ElementReader {
-	private String kind = null;
+	private ElementKind kind = null;
 
 	/**
 	 * Checks if the specified attribute has already been read.
 	 *
-	 * @param toBeChecked  The attribute to be checked.
-	 * @param element      The HashMap containing the analyzed element data.
+	 * @param toBeChecked  The name of the attribute to be checked.
+	 * @param alreadyRead  true if the attribute has a value in the element.
 	 * @param fileAnalysis The FileAnalysis object to check for already read
 	 *                     attributes.
 	 * @return True if the specified attribute has already been read, false
 	 *         otherwise.
 	 */
-	private boolean hasBeenAlreadyRed(String toBeChecked, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		if ((toBeChecked.equals("kind") && kind != null) || element.get(toBeChecked) != null) {
-			fileAnalysis.setCanPlay(false);
-			System.err.println("At line " + Lexer.getNbLines() + ": \"" + toBeChecked + "\" have alteady been read");
+	private boolean hasBeenAlreadyRed(String toBeChecked, boolean alreadyRead, FileAnalysis fileAnalysis) {
+		if (alreadyRead) {
+			fileAnalysis.reportErrorAtToken("already-read", "\"" + toBeChecked + "\" have alteady been read");
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * Checks if a number of the element has been read.
+	 *
+	 * @param number The number to check.
+	 * @return true if the number has been read, false otherwise.
+	 */
+	private static boolean isRead(int number) {
+		return number != ElementDescriptor.NOT_INFORMED;
+	}
+
+	/**
+	 * Gets the value of the number that is the current token of the lexer.
+	 *
+	 * @param lexer        The Lexer whose current token is a number.
+	 * @param fileAnalysis The FileAnalysis object to update if the number is too
+	 *                     big.
+	 * @return The value of the number, or {@link ElementDescriptor#NOT_INFORMED}
+	 *         if it is too big.
+	 */
+	private static int readNumber(Lexer lexer, FileAnalysis fileAnalysis) {
+		try {
+			return lexer.getNumber();
+		} catch (NumberFormatException e) {
+			fileAnalysis.reportErrorAtToken("number-too-big", "The number " + lexer.getContent() + " is too big");
+			return ElementDescriptor.NOT_INFORMED;
+		}
+	}
+
 	/**
 	 * Reads and processes the "name" parameter from the provided Lexer, updating
 	 * the element data and FileAnalysis.
 	 *
 	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     "name" parameter.
 	 */
-	private void readName(Lexer lexer, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		Result result;
-		if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.COLON)) {
-			if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.IDENTIFIER)) {
-				if (!hasBeenAlreadyRed("name", element, fileAnalysis)) {
-					element.put("name", result.content());
+	private void readName(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
+		if (fileAnalysis.exceptedToken(lexer.next(), Token.COLON)) {
+			if (fileAnalysis.exceptedToken(lexer.next(), Token.IDENTIFIER)) {
+				if (!hasBeenAlreadyRed("name", element.name != null, fileAnalysis)) {
+					element.name = lexer.getContent();
 					return;
 				}
 			}
 		}
-		analyseTexte(lexer, result, element, fileAnalysis);
+		analyseTexte(lexer, element, fileAnalysis);
 	}
 
 	/**
-	 * Verifies and sets the "kind" attribute based on the provided result content.
+	 * Verifies and sets the "kind" attribute based on the content of the current
+	 * token of the lexer.
 	 *
-	 * @param result       The Result object containing information about the
-	 *                     analyzed "kind" parameter.
+	 * @param lexer        The Lexer whose current token is the analyzed "kind"
+	 *                     parameter.
 	 * @param fileAnalysis The FileAnalysis object to update based on the verified
 	 *                     "kind" parameter.
 	 * @return True if the "kind" attribute is successfully verified and set, false
 	 *         otherwise.
 	 */
-	private boolean verifyKind(Result result, FileAnalysis fileAnalysis) {
-		switch (result.content()) {
-		case "enemy":
-			kind = result.content();
-			return true;
-		case "friend":
-			kind = result.content();
-			return true;
-		case "item":
-			kind = result.content();
-			return true;
-		case "obstacle":
-			kind = result.content();
-			return true;
-		default:
-			fileAnalysis.setCanPlay(false);
-			System.err.println("At line " + Lexer.getNbLines() + ": The parameter for kind is incorrect");
-			return false;
+	private boolean verifyKind(Lexer lexer, FileAnalysis fileAnalysis) {
+		for (var possibleKind : ElementKind.values()) {
+			if (possibleKind != ElementKind.PLAYER && lexer.contentEquals(possibleKind.getKeyword())) {
+				kind = possibleKind;
+				return true;
+			}
 		}
+		fileAnalysis.reportErrorAtToken("invalid-kind", "The parameter for kind is incorrect");
+		return false;
 	}
 
 	/**
@@ -88,26 +105,24 @@ public class ElementReader {
 	 * the element data and FileAnalysis.
 	 *
 	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     "kind" parameter.
 	 */
-	private void readKind(Lexer lexer, HashMap<String, String> element, FileAnalysis fileAnalysis) {
+	private void readKind(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
 		if (kind == null) {
-			Result result;
-			if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.COLON)) {
-				if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.IDENTIFIER)) {
-					if (verifyKind(result, fileAnalysis)) {
+			if (fileAnalysis.exceptedToken(lexer.next(), Token.COLON)) {
+				if (fileAnalysis.exceptedToken(lexer.next(), Token.IDENTIFIER)) {
+					if (verifyKind(lexer, fileAnalysis)) {
 						return;
 					}
 				}
-				analyseTexte(lexer, result, element, fileAnalysis);
+				analyseTexte(lexer, element, fileAnalysis);
 				return;
 			}
 		}
-		fileAnalysis.setCanPlay(false);
-		System.err.println("At line " + Lexer.getNbLines()
-				+ ": Kind has already been read or the element is a player and cannot have a kind");
+		fileAnalysis.reportErrorAtToken("kind-conflict",
+				"Kind has already been read or the element is a player and cannot have a kind");
 	}
 
 	/**
@@ -115,22 +130,21 @@ public class ElementReader {
 	 * updating the element data and FileAnalysis.
 	 *
 	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     "position" parameter.
 	 */
-	private void readPosition(Lexer lexer, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		Result result;
-		if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.COLON)) {
-			if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.LEFT_PARENS)) {
-				if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.NUMBER)
-						&& !hasBeenAlreadyRed("positionX", element, fileAnalysis)) {
-					element.put("positionX", result.content());
-					if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.COMMA)) {
-						if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.NUMBER)
-								&& !hasBeenAlreadyRed("positionY", element, fileAnalysis)) {
-							element.put("positionY", result.content());
-							if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.RIGHT_PARENS)) {
+	private void readPosition(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
+		if (fileAnalysis.exceptedToken(lexer.next(), Token.COLON)) {
+			if (fileAnalysis.exceptedToken(lexer.next(), Token.LEFT_PARENS)) {
+				if (fileAnalysis.exceptedToken(lexer.next(), Token.NUMBER)
+						&& !hasBeenAlreadyRed("positionX", isRead(element.positionX), fileAnalysis)) {
+					element.positionX = readNumber(lexer, fileAnalysis);
+					if (fileAnalysis.exceptedToken(lexer.next(), Token.COMMA)) {
+						if (fileAnalysis.exceptedToken(lexer.next(), Token.NUMBER)
+								&& !hasBeenAlreadyRed("positionY", isRead(element.positionY), fileAnalysis)) {
+							element.positionY = readNumber(lexer, fileAnalysis);
+							if (fileAnalysis.exceptedToken(lexer.next(), Token.RIGHT_PARENS)) {
 								return;
 							}
 						}
@@ -138,37 +152,34 @@ public class ElementReader {
 				}
 			}
 		}
-		analyseTexte(lexer, result, element, fileAnalysis);
+		analyseTexte(lexer, element, fileAnalysis);
 	}
 
 	/**
 	 * Analyzes the player argument provided in the "player" parameter, updating
 	 * FileAnalysis and element data.
 	 *
-	 * @param result       The Result object containing information about the
-	 *                     analyzed player argument.
+	 * @param lexer        The Lexer whose current token is the analyzed player
+	 *                     argument.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     player argument.
 	 * @return True if the player argument is valid and processed successfully,
 	 *         false otherwise.
 	 */
-	private boolean analysPlayerArgument(Result result, FileAnalysis fileAnalysis) {
-		if (result.content().equals("true")) {
+	private boolean analysPlayerArgument(Lexer lexer, FileAnalysis fileAnalysis) {
+		if (lexer.contentEquals("true")) {
 			if (kind != null) {
-				fileAnalysis.setCanPlay(false);
-				System.err.println("At line " + Lexer.getNbLines() + ": The player is true but a kind has been alrady read");
+				fileAnalysis.reportErrorAtToken("kind-conflict", "The player is true but a kind has been alrady read");
 				return false;
 			}
 			fileAnalysis.setPlayerAlreadyRead(true);
-			kind = "player";
+			kind = ElementKind.PLAYER;
 			return true;
 		}
-		if (result.content().equals("false")) {
+		if (lexer.contentEquals("false")) {
 			return true;
 		}
-		fileAnalysis.setCanPlay(false);
-		System.err
-				.println("At line " + Lexer.getNbLines() + ": Excepted true or false for player receved " + result.content());
+		fileAnalysis.reportErrorAtToken("invalid-player", "Excepted true or false for player receved " + lexer.getContent());
 		return false;
 	}
 
@@ -177,26 +188,26 @@ public class ElementReader {
 	 * the element data and FileAnalysis.
 	 *
 	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     "player" parameter.
 	 */
-	private void readPlayer(Lexer lexer, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		var result = lexer.nextResult();
+	private void readPlayer(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
+		lexer.next();
 		if (!fileAnalysis.isPlayerAlreadyRead()) {
-			if (fileAnalysis.exceptedToken(result, Token.COLON)) {
-				if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.IDENTIFIER)) {
-					if (analysPlayerArgument(result, fileAnalysis)) {
+			if (fileAnalysis.exceptedToken(lexer.getToken(), Token.COLON)) {
+				if (fileAnalysis.exceptedToken(lexer.next(), Token.IDENTIFIER)) {
+					if (analysPlayerArgument(lexer, fileAnalysis)) {
 						return;
 					}
 				}
 			}
-			analyseTexte(lexer, result = lexer.nextResult(), element, fileAnalysis);
+			lexer.next();
+			analyseTexte(lexer, element, fileAnalysis);
 			return;
 		}
-		fileAnalysis.setCanPlay(false);
-		System.err.println("At line " + Lexer.getNbLines() + ": Player has already been read");
-		analyseTexte(lexer, result, element, fileAnalysis);
+		fileAnalysis.reportErrorAtToken("player-already-read", "Player has already been read");
+		analyseTexte(lexer, element, fileAnalysis);
 	}
 
 	/**
@@ -204,19 +215,18 @@ public class ElementReader {
 	 * the element data and FileAnalysis.
 	 *
 	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     "health" parameter.
 	 */
-	private void readHealth(Lexer lexer, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		Result result;
-		if ((result = lexer.nextResult()).token() == Token.COLON) {
-			if ((result = lexer.nextResult()).token() == Token.NUMBER) {
-				element.put("health", result.content());
+	private void readHealth(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
+		if (lexer.next() == Token.COLON) {
+			if (lexer.next() == Token.NUMBER) {
+				element.health = readNumber(lexer, fileAnalysis);
 				return;
 			}
 		}
-		analyseTexte(lexer, result, element, fileAnalysis);
+		analyseTexte(lexer, element, fileAnalysis);
 	}
 
 	/**
@@ -224,21 +234,21 @@ public class ElementReader {
 	 * the element data and FileAnalysis.
 	 *
 	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     "skin" parameter.
 	 */
-	private void readSkin(Lexer lexer, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		Result result;
-		if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.COLON)) {
-			if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.IDENTIFIER)) {
-				if (ElementsSet.contains(result.content()) && !hasBeenAlreadyRed("skin", element, fileAnalysis)) {
-					element.put("skin", result.content());
+	private void readSkin(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
+		if (fileAnalysis.exceptedToken(lexer.next(), Token.COLON)) {
+			if (fileAnalysis.exceptedToken(lexer.next(), Token.IDENTIFIER)) {
+				var skin = lexer.getContent();
+				if (ElementsSet.contains(skin) && !hasBeenAlreadyRed("skin", element.skin != null, fileAnalysis)) {
+					element.skin = skin;
 					return;
 				}
 			}
 		}
-		analyseTexte(lexer, result, element, fileAnalysis);
+		analyseTexte(lexer, element, fileAnalysis);
 	}
 
 	/**
@@ -246,19 +256,18 @@ public class ElementReader {
 	 * the element data and FileAnalysis.
 	 *
 	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     "damage" parameter.
 	 */
-	private void readDamage(Lexer lexer, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		Result result;
-		if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.COLON)) {
-			if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.NUMBER)) {
-				element.put("damage", result.content());
+	private void readDamage(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
+		if (fileAnalysis.exceptedToken(lexer.next(), Token.COLON)) {
+			if (fileAnalysis.exceptedToken(lexer.next(), Token.NUMBER)) {
+				element.damage = readNumber(lexer, fileAnalysis);
 				return;
 			}
 		}
-		analyseTexte(lexer, result, element, fileAnalysis);
+		analyseTexte(lexer, element, fileAnalysis);
 	}
 
 	/**
@@ -266,19 +275,18 @@ public class ElementReader {
 	 * updating the element data and FileAnalysis.
 	 *
 	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     "behavior" parameter.
 	 */
-	private void readBehavior(Lexer lexer, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		Result result;
-		if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.COLON)) {
-			if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.IDENTIFIER)) {
-				element.put("behavior", result.content());
+	private void readBehavior(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
+		if (fileAnalysis.exceptedToken(lexer.next(), Token.COLON)) {
+			if (fileAnalysis.exceptedToken(lexer.next(), Token.IDENTIFIER)) {
+				element.behavior = lexer.getContent();
 				return;
 			}
 		}
-		analyseTexte(lexer, result, element, fileAnalysis);
+		analyseTexte(lexer, element, fileAnalysis);
 	}
 
 	/**
@@ -286,28 +294,27 @@ public class ElementReader {
 	 * the element data and FileAnalysis.
 	 *
 	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     "zone" parameter.
 	 */
-	private void readZone(Lexer lexer, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		Result result;
-		if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.COLON)) {
-			if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.LEFT_PARENS)) {
-				if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.NUMBER)) {
-					element.put("zoneX", result.content());
-					if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.COMMA)) {
-						if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.NUMBER)) {
-							element.put("zoneY", result.content());
-							if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.RIGHT_PARENS)) {
-								if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.LEFT_PARENS)) {
-									if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.NUMBER)) {
-										element.put("ligne", result.content());
-										if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.IDENTIFIER)
-												&& fileAnalysis.exceptedIdentifier(result, "x")) {
-											if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.NUMBER)) {
-												element.put("colonne", result.content());
-												if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.RIGHT_PARENS)) {
+	private void readZone(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
+		if (fileAnalysis.exceptedToken(lexer.next(), Token.COLON)) {
+			if (fileAnalysis.exceptedToken(lexer.next(), Token.LEFT_PARENS)) {
+				if (fileAnalysis.exceptedToken(lexer.next(), Token.NUMBER)) {
+					element.zoneX = readNumber(lexer, fileAnalysis);
+					if (fileAnalysis.exceptedToken(lexer.next(), Token.COMMA)) {
+						if (fileAnalysis.exceptedToken(lexer.next(), Token.NUMBER)) {
+							element.zoneY = readNumber(lexer, fileAnalysis);
+							if (fileAnalysis.exceptedToken(lexer.next(), Token.RIGHT_PARENS)) {
+								if (fileAnalysis.exceptedToken(lexer.next(), Token.LEFT_PARENS)) {
+									if (fileAnalysis.exceptedToken(lexer.next(), Token.NUMBER)) {
+										element.zoneLines = readNumber(lexer, fileAnalysis);
+										if (fileAnalysis.exceptedToken(lexer.next(), Token.IDENTIFIER)
+												&& fileAnalysis.exceptedIdentifier("x")) {
+											if (fileAnalysis.exceptedToken(lexer.next(), Token.NUMBER)) {
+												element.zoneColumns = readNumber(lexer, fileAnalysis);
+												if (fileAnalysis.exceptedToken(lexer.next(), Token.RIGHT_PARENS)) {
 													return;
 												}
 											}
@@ -320,56 +327,43 @@ public class ElementReader {
 				}
 			}
 		}
-		analyseTexte(lexer, result, element, fileAnalysis);
+		analyseTexte(lexer, element, fileAnalysis);
 	}
 
 	/**
-	 * Analyzes the content of a Lexer result and delegates the processing based on
-	 * the identified parameter.
+	 * Analyzes the content of the current token of the Lexer and delegates the
+	 * processing based on the identified parameter.
 	 *
-	 * @param lexer        The Lexer used for tokenizing input.
-	 * @param result       The Result object containing information about the
-	 *                     analyzed content.
-	 * @param element      The HashMap to store the analyzed element data.
+	 * @param lexer        The Lexer used for tokenizing input, its current token is
+	 *                     the analyzed content.
+	 * @param element      The builder storing the analyzed element data.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     content.
 	 */
-	private void analyseTexte(Lexer lexer, Result result, HashMap<String, String> element, FileAnalysis fileAnalysis) {
-		if (result != null) {
-			switch (result.content()) {
-			case "name":
-				readName(lexer, element, fileAnalysis);
-				break;
-			case "skin":
-				readSkin(lexer, element, fileAnalysis);
-				break;
-			case "player":
-				readPlayer(lexer, element, fileAnalysis);
-				break;
-			case "position":
-				readPosition(lexer, element, fileAnalysis);
-				break;
-			case "health":
-				readHealth(lexer, element, fileAnalysis);
-				break;
-			case "kind":
-				readKind(lexer, element, fileAnalysis);
-				break;
-			case "damage":
-				readDamage(lexer, element, fileAnalysis);
-				break;
-			case "zone":
-				readZone(lexer, element, fileAnalysis);
-				break;
-			case "behavior":
-				readBehavior(lexer, element, fileAnalysis);
-				break;
-			default:
-				fileAnalysis.setCanPlay(false);
-				System.err
-						.println("At line " + Lexer.getNbLines() + ": The parameter \"" + result.content() + "\" is not valid");
-				break;
-			}
+	private void analyseTexte(Lexer lexer, ElementBuilder element, FileAnalysis fileAnalysis) {
+		if (lexer.getToken() == null) {
+			return;
+		}
+		if (lexer.contentEquals("name")) {
+			readName(lexer, element, fileAnalysis);
+		} else if (lexer.contentEquals("skin")) {
+			readSkin(lexer, element, fileAnalysis);
+		} else if (lexer.contentEquals("player")) {
+			readPlayer(lexer, element, fileAnalysis);
+		} else if (lexer.contentEquals("position")) {
+			readPosition(lexer, element, fileAnalysis);
+		} else if (lexer.contentEquals("health")) {
+			readHealth(lexer, element, fileAnalysis);
+		} else if (lexer.contentEquals("kind")) {
+			readKind(lexer, element, fileAnalysis);
+		} else if (lexer.contentEquals("damage")) {
+			readDamage(lexer, element, fileAnalysis);
+		} else if (lexer.contentEquals("zone")) {
+			readZone(lexer, element, fileAnalysis);
+		} else if (lexer.contentEquals("behavior")) {
+			readBehavior(lexer, element, fileAnalysis);
+		} else {
+			fileAnalysis.reportErrorAtToken("invalid-parameter", "The parameter \"" + lexer.getContent() + "\" is not valid");
 		}
 	}
 
@@ -383,20 +377,21 @@ public class ElementReader {
 	 */
 	public void readElement(Lexer lexer, FileAnalysis fileAnalysis) {
 		kind = null;
-		Result result;
-		HashMap<String, String> element = new HashMap<>();
-		while ((result = lexer.nextResult()) != null) {
-			if (result.token() == Token.LEFT_BRACKET) {
+		var element = new ElementBuilder();
+		Token token;
+		while ((token = lexer.next()) != null) {
+			if (token == Token.LEFT_BRACKET) {
 				break;
 			}
-			analyseTexte(lexer, result, element, fileAnalysis);
+			analyseTexte(lexer, element, fileAnalysis);
 		}
 		if (kind == null) {
-			fileAnalysis.setCanPlay(false);
-			System.err.println("At line " + (Lexer.getNbLines() - 1) + ": The element must have a kind or be a player");
+			fileAnalysis.reportError("missing-kind", fileAnalysis.getNbLines() - 1, 0,
+					"The element must have a kind or be a player");
+			return;
 		}
-		element.put("kind", kind);
-		fileAnalysis.addDataOfElement(element);
+		element.kind = kind;
+		fileAnalysis.addDataOfElement(element.build());
 	}
 
 }
\ No newline at end of file
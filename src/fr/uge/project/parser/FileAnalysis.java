@@ -1,12 +1,17 @@
 package fr.uge.project.parser;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.PrintStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+
+import fr.uge.project.bigAdventure.ElementDescriptor;
+import fr.uge.project.bigAdventure.TileGrid;
 
 
 /**
@@ -15,32 +20,123 @@ import java.util.Map;
  * to initialize the game environment.
  */
 public class FileAnalysis {
+	private final Lexer lexer;
+	private final Diagnostics diagnostics;
 	private Map<Character, String> gridEncoding = new HashMap<>();
 	private boolean playerAlreadyRead = false;
 	private int line = -1, column = -1;
-	private String mapToRead = null;
+	private CharSequence mapToRead = null;
+	private TileGrid grid = null;
 	private int toReadMargin;
 	private boolean greedHasBeenRead = false;
 	private boolean canPlay = true;
-	private List<HashMap<String, String>> dataOfElements = new ArrayList<>();
+	private List<ElementDescriptor> dataOfElements = new ArrayList<>();
+	private final List<MapSection> sections = new ArrayList<>();
+	private ElementIndex elementIndex = null;
+
+
+	/**
+	 * Constructs a new FileAnalysis for the text read by the specified lexer.
+	 * The lexer keeps the line tracking of this parse, so that several files can
+	 * be analyzed at the same time.
+	 *
+	 * @param lexer       The lexer used to read the file.
+	 * @param diagnostics The collector of the errors of the file.
+	 * @throws NullPointerException if lexer or diagnostics is null.
+	 */
+	public FileAnalysis(Lexer lexer, Diagnostics diagnostics) {
+		this.lexer = Objects.requireNonNull(lexer);
+		this.diagnostics = Objects.requireNonNull(diagnostics);
+	}
+
+
+	/**
+	 * Reports an error found in the file: the error is collected and the game
+	 * cannot be played anymore. When the error makes the collector full, the
+	 * lexer is stopped so the analysis ends at this error.
+	 *
+	 * @param diagnostic The error.
+	 */
+	public void reportError(Diagnostic diagnostic) {
+		canPlay = false;
+		if (diagnostics.add(diagnostic) && diagnostics.isFull()) {
+			lexer.stop();
+			diagnostics.stop();
+		}
+	}
+
+
+	/**
+	 * Reports an error found in the file at the specified place.
+	 *
+	 * @param code    The short name of the kind of error.
+	 * @param line    The line of the error, 0 if the error is not about a line.
+	 * @param column  The column of the error, 0 if it is unknown.
+	 * @param message The message describing the error.
+	 */
+	public void reportError(String code, int line, int column, String message) {
+		reportError(new Diagnostic(code, line, column, message));
+	}
+
+
+	/**
+	 * Reports an error found at the current token of the lexer.
+	 *
+	 * @param code    The short name of the kind of error.
+	 * @param message The message describing the error.
+	 */
+	public void reportErrorAtToken(String code, String message) {
+		reportError(code, lexer.getNbLines(), lexer.getColumn(), message);
+	}
+
+
+	/**
+	 * Gets the number of errors reported during the analysis of the file.
+	 *
+	 * @return The number of errors.
+	 */
+	public int getErrorCount() {
+		return diagnostics.size();
+	}
+
+
+	/**
+	 * Gets the collector of the errors of the file.
+	 *
+	 * @return The collector of the errors.
+	 */
+	public Diagnostics getDiagnostics() {
+		return diagnostics;
+	}
+
+
+	/**
+	 * Checks if the analysis has been stopped because the maximum number of errors
+	 * has been reached.
+	 *
+	 * @return true if the analysis has been stopped, false otherwise.
+	 */
+	public boolean isStopped() {
+		return diagnostics.isStopped();
+	}
 
 	
 	/**
-	 * Checks if the result matches the expected token.
+	 * Checks if the token read by the lexer matches the expected token.
 	 *
-	 * @param result   The result obtained from the lexer.
+	 * @param received The token obtained from the lexer, or null at the end of the
+	 *                 file.
 	 * @param excepted The expected token.
-	 * @return True if the result matches the expected token, false otherwise.
+	 * @return True if the received token matches the expected token, false
+	 *         otherwise.
 	 */
-	public boolean exceptedToken(Result result, Token excepted) {
-		if (result == null) {
-			canPlay = false;
-			System.err.println("At line " + Lexer.getNbLines() + ": Excepted " + excepted + " received end of file");
+	public boolean exceptedToken(Token received, Token excepted) {
+		if (received == null) {
+			reportErrorAtToken("unexpected-end", "Excepted " + excepted + " received end of file");
 			return false;
 		}
-		if (result.token() != excepted) {
-			canPlay = false;
-			System.err.println("At line " + Lexer.getNbLines() + ": Excepted " + excepted + " received " + result.token());
+		if (received != excepted) {
+			reportErrorAtToken("unexpected-token", "Excepted " + excepted + " received " + received);
 			return false;
 		}
 		return true;
@@ -48,27 +144,36 @@ public class FileAnalysis {
 
 	
 	/**
-	 * Checks whether the expected identifier matches the content of the provided lexer result.
+	 * Checks whether the expected identifier matches the content of the current
+	 * token of the lexer.
 	 *
-	 * @param result   The result from the lexer.
 	 * @param excepted The expected identifier.
-	 * @return true if the result contains the expected identifier, false otherwise.
+	 * @return true if the current token contains the expected identifier, false
+	 *         otherwise.
 	 */
-	public boolean exceptedIdentifier(Result result, String excepted) {
-		if (result == null) {
-			canPlay = false;
-			System.err.println("At line " + Lexer.getNbLines() + ": Excepted " + excepted + " received end of file");
+	public boolean exceptedIdentifier(String excepted) {
+		if (lexer.getToken() == null) {
+			reportErrorAtToken("unexpected-end", "Excepted " + excepted + " received end of file");
 			return false;
 		}
-		if (!result.content().equals(excepted)) {
-			canPlay = false;
-			System.err.println("At line " + Lexer.getNbLines() + ": Excepted " + excepted + " received " + result.content());
+		if (!lexer.contentEquals(excepted)) {
+			reportErrorAtToken("unexpected-identifier", "Excepted " + excepted + " received " + lexer.getContent());
 			return false;
 		}
 		return true;
 	}
 	
 	
+	/**
+	 * Gets the line of the file currently read by the lexer of this analysis.
+	 *
+	 * @return The current line number.
+	 */
+	public int getNbLines() {
+		return lexer.getNbLines();
+	}
+
+
 	/**
 	 * Gets the line number associated with the current position in the parsed file.
 	 *
@@ -110,21 +215,21 @@ public class FileAnalysis {
 
 	
 	/**
-	 * Gets the name of the map file to be read.
+	 * Gets the data of the grid to be read, a view on the text of the file.
 	 *
-	 * @return The name of the map file.
+	 * @return The data of the grid.
 	 */
-	public String getMapToRead() {
+	public CharSequence getMapToRead() {
 		return mapToRead;
 	}
 
 	
 	/**
-	 * Sets the String map to be read.
+	 * Sets the data of the grid to be read.
 	 *
-	 * @param mapToRead The name of the map file to set.
+	 * @param mapToRead The data of the grid, including its quotes.
 	 */
-	public void setMapToRead(String mapToRead) {
+	public void setMapToRead(CharSequence mapToRead) {
 		this.mapToRead = mapToRead;
 	}
 
@@ -150,21 +255,22 @@ public class FileAnalysis {
 
 	
 	/**
-	 * Gets the list of hash maps containing data about game elements.
+	 * Gets the list of the descriptions of the game elements. When the map is
+	 * parsed lazily, it only contains the elements which have been read at once.
 	 *
-	 * @return The list of hash maps with element data.
+	 * @return The list of the element descriptions.
 	 */
-	public List<HashMap<String, String>> getDataOfElements() {
+	public List<ElementDescriptor> getDataOfElements() {
 		return dataOfElements;
 	}
 
 	
 	/**
-	 * Adds a hash map containing data about a game element to the list.
+	 * Adds the description of a game element to the list.
 	 *
-	 * @param dataOfElement The hash map with element data to be added.
+	 * @param dataOfElement The element description to be added.
 	 */
-	public void addDataOfElement(HashMap<String, String> dataOfElement) {
+	public void addDataOfElement(ElementDescriptor dataOfElement) {
 		dataOfElements.add(dataOfElement);
 	}
 
@@ -249,44 +355,225 @@ public class FileAnalysis {
 	}
 
 	
+	/**
+	 * Gets the tiles of the grid, decoded while the data of the grid was
+	 * validated. The skin of the empty tiles, NOTHING, has the id 0, the other
+	 * skins of the encoding follow.
+	 *
+	 * @return The tiles of the grid.
+	 * @throws IllegalStateException If the grid has not been decoded because the
+	 *                               [grid] section is not valid.
+	 */
+	public TileGrid getGrid() {
+		if (grid == null) {
+			throw new IllegalStateException("The grid of the map has not been decoded");
+		}
+		return grid;
+	}
+
+
+	/**
+	 * Checks if the tiles of the grid have been decoded.
+	 *
+	 * @return true if the grid has been decoded, false otherwise.
+	 */
+	boolean hasGrid() {
+		return grid != null;
+	}
+
+
+	/**
+	 * Gets the index of the [element] sections which have not been read yet, when
+	 * the map has been parsed with {@link #readParserLazily(Path, Diagnostics)}.
+	 *
+	 * @return The index of the sections to read later, or null if every section
+	 *         has been read.
+	 */
+	public ElementIndex getElementIndex() {
+		return elementIndex;
+	}
+
+
+	/**
+	 * Gets the places of the [grid] and [element] sections in the text of the map,
+	 * in the order of the text.
+	 *
+	 * @return The sections of the map.
+	 */
+	public List<MapSection> getSections() {
+		return Collections.unmodifiableList(sections);
+	}
+
+
+	/**
+	 * Sets the tiles of the grid decoded from its data.
+	 *
+	 * @param grid The tiles of the grid.
+	 */
+	void setGrid(TileGrid grid) {
+		this.grid = Objects.requireNonNull(grid);
+	}
+
+
 	/**
 	 * Reads the content of a file and performs the parsing of the map.
+	 * The errors found in the file are printed on the standard error output.
 	 *
 	 * @param path The path of the file to be read and parsed.
 	 * @return A FileAnalysis object containing the parsed information.
 	 * @throws IOException If an I/O error occurs while reading the file.
 	 */
 	public static FileAnalysis readParser(Path path) throws IOException {
+		return readParser(path, System.err);
+	}
+
+
+	/**
+	 * Reads the content of a file and performs the parsing of the map.
+	 * All the errors found in the file are printed at the end of the parsing, in
+	 * a single write, even if the parsing fails.
+	 *
+	 * @param path        The path of the file to be read and parsed.
+	 * @param errorOutput The stream on which the errors found in the file are
+	 *                    printed.
+	 * @return A FileAnalysis object containing the parsed information.
+	 * @throws IOException If an I/O error occurs while reading the file.
+	 */
+	public static FileAnalysis readParser(Path path, PrintStream errorOutput) throws IOException {
+		Objects.requireNonNull(errorOutput);
+		var diagnostics = new Diagnostics();
+		try {
+			return readParser(path, diagnostics);
+		} finally {
+			diagnostics.printText(errorOutput);
+		}
+	}
+
+
+	/**
+	 * Reads the content of a file and performs the parsing of the map.
+	 * The file is mapped in memory and read in place: the data of the grid is
+	 * never copied in a String. The errors are only collected, the caller decides
+	 * how to print them.
+	 *
+	 * @param path        The path of the file to be read and parsed.
+	 * @param diagnostics The collector of the errors found in the file. The
+	 *                    parsing stops when it is full.
+	 * @return A FileAnalysis object containing the parsed information.
+	 * @throws IOException If an I/O error occurs while reading the file.
+	 */
+	public static FileAnalysis readParser(Path path, Diagnostics diagnostics) throws IOException {
+		return readParser(MappedText.map(path), diagnostics);
+	}
+
+
+	/**
+	 * Reads the content of a file and performs the parsing of the map, but only
+	 * indexes the [element] sections which have a simple position and are not
+	 * the player. These sections are read when their chunk is materialized with
+	 * the {@link ElementIndex} of the analysis, so their errors are not found by
+	 * this parsing.
+	 *
+	 * @param path        The path of the file to be read and parsed.
+	 * @param diagnostics The collector of the errors found in the file. The
+	 *                    parsing stops when it is full.
+	 * @return A FileAnalysis object containing the parsed information.
+	 * @throws IOException If an I/O error occurs while reading the file.
+	 */
+	public static FileAnalysis readParserLazily(Path path, Diagnostics diagnostics) throws IOException {
+		return parse(MappedText.map(path), diagnostics, null, true);
+	}
+
+
+	/**
+	 * Performs the parsing of a map which is already in memory, for example a map
+	 * sent by an editor which has not been saved yet.
+	 *
+	 * @param text        The text of the map.
+	 * @param diagnostics The collector of the errors found in the map. The parsing
+	 *                    stops when it is full.
+	 * @return A FileAnalysis object containing the parsed information.
+	 */
+	public static FileAnalysis readParser(CharSequence text, Diagnostics diagnostics) {
+		return parse(text, diagnostics, null, false);
+	}
+
+
+	/**
+	 * Reads a section of the map and records its place in the text.
+	 *
+	 * @param text   The text of the map.
+	 * @param name   The name of the section.
+	 * @param start  The index of the '[' of the section.
+	 * @param line   The line of the '[' of the section.
+	 * @param cache  The results of the sections of the previous version of the
+	 *               map, or null to read the section.
+	 * @param reader Reads the section with the lexer of this analysis.
+	 */
+	private void readSection(CharSequence text, String name, int start, int line, SectionCache cache,
+			Runnable reader) {
+		if (cache == null) {
+			reader.run();
+		} else {
+			cache.read(text, name, start, line, lexer, this, reader);
+		}
+		sections.add(new MapSection(name, start, lexer.getEnd(), line));
+	}
+
+
+	/**
+	 * Performs the parsing of a map, reusing the sections which have not changed
+	 * if a cache is given.
+	 *
+	 * @param text        The text of the map.
+	 * @param diagnostics The collector of the errors found in the map.
+	 * @param cache       The results of the sections of the previous version of
+	 *                    the map, or null to read every section.
+	 * @param lazy        true to only index the [element] sections which can be
+	 *                    read later.
+	 * @return A FileAnalysis object containing the parsed information.
+	 */
+	static FileAnalysis parse(CharSequence text, Diagnostics diagnostics, SectionCache cache, boolean lazy) {
+		Objects.requireNonNull(text);
 		var readGrid = new GridReader();
 		var readElements = new ElementReader();
-		var text = Files.readString(path);
 		var lexer = new Lexer(text);
-		var result = lexer.nextResult();
-		var fileAnalysis = new FileAnalysis();
-		if (result.token() != Token.LEFT_BRACKET) {
+		var fileAnalysis = new FileAnalysis(lexer, diagnostics);
+		if (lexer.next() != Token.LEFT_BRACKET) {
 			throw new IllegalArgumentException("fichier map mal formate\n");
 		}
-		while ((result = lexer.nextResult()) != null) {
-			if (result.content().equals("grid")) {
-				if ((result = lexer.nextResult()).token() == Token.RIGHT_BRACKET) {
-					readGrid.grid(lexer, fileAnalysis);
-				} else {
+		var index = lazy ? new ElementIndex(text, lexer.getLineIndex()) : null;
+		fileAnalysis.elementIndex = index;
+		var bracket = lexer.getStart();
+		var bracketLine = lexer.getNbLines();
+		while (lexer.next() != null) {
+			var start = bracket != -1 ? bracket : lexer.getStart();
+			var line = bracket != -1 ? bracketLine : lexer.getNbLines();
+			if (lexer.contentEquals("grid")) {
+				if (lexer.next() != Token.RIGHT_BRACKET) {
 					throw new IllegalArgumentException("fichier map mal formate\n");
 				}
-			}
-			if (result.content().equals("element")) {
-				if ((result = lexer.nextResult()).token() == Token.RIGHT_BRACKET) {
-					readElements.readElement(lexer, fileAnalysis);
+				fileAnalysis.readSection(text, "grid", start, line, cache, () -> readGrid.grid(lexer, fileAnalysis));
+			} else if (lexer.contentEquals("element")) {
+				if (lexer.next() == Token.RIGHT_BRACKET) {
+					fileAnalysis.readSection(text, "element", start, line, cache, () -> {
+						if (index == null || !index.defer(lexer)) {
+							readElements.readElement(lexer, fileAnalysis);
+						}
+					});
 				}
 			}
+			bracket = lexer.getToken() == Token.LEFT_BRACKET ? lexer.getStart() : -1;
+			bracketLine = lexer.getNbLines();
+		}
+		if (index != null && fileAnalysis.hasGrid()) {
+			index.bucket(fileAnalysis.grid.getLine(), fileAnalysis.grid.getColumn());
 		}
 		if (!fileAnalysis.isPlayerAlreadyRead()) {
-			System.err.println("Player has not been informed or has been misinformed");
-			fileAnalysis.setCanPlay(false);
+			fileAnalysis.reportError("missing-player", 0, 0, "Player has not been informed or has been misinformed");
 		}
 		if (!fileAnalysis.isGreedHasBeenRead()) {
-			System.err.println("[grid] has not been informed or has been misinformed");
-			fileAnalysis.setCanPlay(false);
+			fileAnalysis.reportError("missing-grid", 0, 0, "[grid] has not been informed or has been misinformed");
 		}
 		return fileAnalysis;
 	}
@@ -1,12 +1,22 @@
 package fr.uge.project.parser;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import fr.uge.project.bigAdventure.ElementsSet;
+import fr.uge.project.bigAdventure.TileGrid;
 
 /**
  * Class responsible for reading and processing grid-related information from
  * the input file.
  */
 public class GridReader {
+	/**
+	 * The number of characters from which the rows of the data are checked in
+	 * parallel.
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 20;
 	private boolean sizeAlreadyRead = false;
 	private boolean encodingsAlreadyRead = false;
 	private boolean dataAlreadyRead = false;
@@ -14,39 +24,41 @@ public class GridReader {
 
 	/**
 	 * Reads special identifiers such as "encodings," "data," and "size" from the
-	 * lexer results. If the identifier is found, it triggers the corresponding
+	 * tokens of the lexer. If the identifier is found, it triggers the corresponding
 	 * method and returns true.
 	 *
-	 * @param lexer         The lexer object to retrieve the next result.
-	 * @param result        The current result from the lexer (can be null).
+	 * @param lexer         The lexer object to retrieve the next token.
+	 * @param useCurrent    true to check the current token of the lexer, false to
+	 *                      read the next one first.
 	 * @param wantRecursive A boolean indicating whether recursive calls are
 	 *                      allowed.
 	 * @param fileAnalysis  The FileAnalysis object for processing the read data.
 	 * @return True if a special identifier was successfully processed, false
 	 *         otherwise.
 	 */
-	private boolean readSpecialIdentifier(Lexer lexer, Result result, boolean wantRecursive, FileAnalysis fileAnalysis) {
-		if (result == null) {
-			result = lexer.nextResult();
+	private boolean readSpecialIdentifier(Lexer lexer, boolean useCurrent, boolean wantRecursive,
+			FileAnalysis fileAnalysis) {
+		if (!useCurrent) {
+			lexer.next();
 		}
-		if (result != null) {
-			if (result.content().equals("encodings")) {
+		if (lexer.getToken() != null) {
+			if (lexer.contentEquals("encodings")) {
 				readEncoding(lexer, fileAnalysis);
 				return true;
 			}
-			if (result.content().equals("data")) {
+			if (lexer.contentEquals("data")) {
 				readData(lexer, fileAnalysis);
 				return true;
 			}
-			if (result.content().equals("size")) {
+			if (lexer.contentEquals("size")) {
 				readSize(lexer, fileAnalysis);
 				return true;
 			}
-			if (result.token() == Token.LEFT_BRACKET) {
+			if (lexer.getToken() == Token.LEFT_BRACKET) {
 				return true;
 			}
 			if (wantRecursive) {
-				return readSpecialIdentifier(lexer, null, true, fileAnalysis);
+				return readSpecialIdentifier(lexer, false, true, fileAnalysis);
 			}
 			return false;
 		}
@@ -65,9 +77,8 @@ public class GridReader {
 	 */
 	private void checkSizeInteger(int toBeChecked, String sizeNumber, FileAnalysis fileAnalysis) {
 		if (toBeChecked < 1) {
-			fileAnalysis.setCanPlay(false);
-			System.err.println(
-					"At line " + Lexer.getNbLines() + ": The " + sizeNumber + " parameter of the size must be grater than one");
+			fileAnalysis.reportErrorAtToken("invalid-size",
+					"The " + sizeNumber + " parameter of the size must be grater than one");
 			return;
 		}
 		if (sizeNumber.equals("first")) {
@@ -91,8 +102,7 @@ public class GridReader {
 	 */
 	private boolean checkAlreadyRead(boolean toBeChecked, String type, FileAnalysis fileAnalysis) {
 		if (toBeChecked) {
-			fileAnalysis.setCanPlay(false);
-			System.err.println("At line " + Lexer.getNbLines() + ": " + type + " have alteady been read");
+			fileAnalysis.reportErrorAtToken("already-read", type + " have alteady been read");
 			return true;
 		}
 		return false;
@@ -108,17 +118,16 @@ public class GridReader {
 	private void readSize(Lexer lexer, FileAnalysis fileAnalysis) {
 		if (!checkAlreadyRead(sizeAlreadyRead, "Size", fileAnalysis)) {
 			sizeAlreadyRead = true;
-			var result = lexer.nextResult();
-			if (fileAnalysis.exceptedToken(result, Token.COLON)) {
-				if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.LEFT_PARENS)) {
-					if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.NUMBER)) {
-						checkSizeInteger(Integer.parseInt(result.content()), "first", fileAnalysis);
-						if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.IDENTIFIER)
-								&& fileAnalysis.exceptedIdentifier(result, "x")) {
-							if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.NUMBER)) {
-								checkSizeInteger(Integer.parseInt(result.content()), "second", fileAnalysis);
-								if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.RIGHT_PARENS)) {
-									readSpecialIdentifier(lexer, null, true, fileAnalysis);
+			if (fileAnalysis.exceptedToken(lexer.next(), Token.COLON)) {
+				if (fileAnalysis.exceptedToken(lexer.next(), Token.LEFT_PARENS)) {
+					if (fileAnalysis.exceptedToken(lexer.next(), Token.NUMBER)) {
+						checkSizeInteger(lexer.getNumber(), "first", fileAnalysis);
+						if (fileAnalysis.exceptedToken(lexer.next(), Token.IDENTIFIER)
+								&& fileAnalysis.exceptedIdentifier("x")) {
+							if (fileAnalysis.exceptedToken(lexer.next(), Token.NUMBER)) {
+								checkSizeInteger(lexer.getNumber(), "second", fileAnalysis);
+								if (fileAnalysis.exceptedToken(lexer.next(), Token.RIGHT_PARENS)) {
+									readSpecialIdentifier(lexer, false, true, fileAnalysis);
 									return;
 								}
 							}
@@ -126,10 +135,10 @@ public class GridReader {
 					}
 				}
 			}
-			readSpecialIdentifier(lexer, result, true, fileAnalysis);
+			readSpecialIdentifier(lexer, true, true, fileAnalysis);
 			return;
 		}
-		readSpecialIdentifier(lexer, null, true, fileAnalysis);
+		readSpecialIdentifier(lexer, false, true, fileAnalysis);
 	}
 
 	/**
@@ -145,9 +154,7 @@ public class GridReader {
 			fileAnalysis.addGridEncoding(code, element);
 			return;
 		}
-		fileAnalysis.setCanPlay(false);
-		System.err
-				.println("At line " + Lexer.getNbLines() + ": The element " + element + " cannot be used in the encoding");
+		fileAnalysis.reportErrorAtToken("invalid-encoding", "The element " + element + " cannot be used in the encoding");
 	}
 
 	/**
@@ -161,42 +168,30 @@ public class GridReader {
 	private void readEncoding(Lexer lexer, FileAnalysis fileAnalysis) {
 		if (!checkAlreadyRead(encodingsAlreadyRead, "Encodings", fileAnalysis)) {
 			encodingsAlreadyRead = true;
-			Result result = lexer.nextResult();
-			fileAnalysis.exceptedToken(result, Token.COLON);
+			fileAnalysis.exceptedToken(lexer.next(), Token.COLON);
 			while (true) {
-				result = lexer.nextResult();
-				if (readSpecialIdentifier(lexer, result, false, fileAnalysis)) {
+				lexer.next();
+				if (readSpecialIdentifier(lexer, true, false, fileAnalysis)) {
 					return;
 				}
-				if (fileAnalysis.exceptedToken(result, Token.IDENTIFIER)) {
-					String element = result.content();
-					if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.LEFT_PARENS)) {
-						if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.IDENTIFIER)
-								&& result.content().length() == 1) {
-							verifyAndAddEncoding(element, result.content().charAt(0), fileAnalysis);
-							if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.RIGHT_PARENS)) {
+				if (fileAnalysis.exceptedToken(lexer.getToken(), Token.IDENTIFIER)) {
+					String element = lexer.getContent();
+					if (fileAnalysis.exceptedToken(lexer.next(), Token.LEFT_PARENS)) {
+						if (fileAnalysis.exceptedToken(lexer.next(), Token.IDENTIFIER)
+								&& lexer.getEnd() - lexer.getStart() == 1) {
+							verifyAndAddEncoding(element, lexer.getView().charAt(0), fileAnalysis);
+							if (fileAnalysis.exceptedToken(lexer.next(), Token.RIGHT_PARENS)) {
 								continue;
 							}
 						}
 					}
-					if (readSpecialIdentifier(lexer, result, false, fileAnalysis)) {
+					if (readSpecialIdentifier(lexer, true, false, fileAnalysis)) {
 						return;
 					}
 				}
 			}
 		}
-		readSpecialIdentifier(lexer, null, true, fileAnalysis);
-	}
-
-	/**
-	 * Counts the number of lines in the given input string.
-	 *
-	 * @param inputString The input string to count lines for.
-	 * @return The number of lines in the input string.
-	 */
-	private int countLines(String inputString) {
-		String[] lines = inputString.split("\n");
-		return lines.length;
+		readSpecialIdentifier(lexer, false, true, fileAnalysis);
 	}
 
 	/**
@@ -208,38 +203,86 @@ public class GridReader {
 	 */
 	private void readData(Lexer lexer, FileAnalysis fileAnalysis) {
 		if (!checkAlreadyRead(dataAlreadyRead, "Data", fileAnalysis)) {
-			lineDataRead = Lexer.getNbLines();
+			lineDataRead = fileAnalysis.getNbLines();
 			dataAlreadyRead = true;
-			Result result = lexer.nextResult();
-			if (fileAnalysis.exceptedToken(result, Token.COLON)) {
-				if (fileAnalysis.exceptedToken((result = lexer.nextResult()), Token.QUOTE)) {
-					fileAnalysis.setMapToRead(result.content());
-					lexer.addLines(countLines(fileAnalysis.getMapToRead()));
-					readSpecialIdentifier(lexer, null, true, fileAnalysis);
+			if (fileAnalysis.exceptedToken(lexer.next(), Token.COLON)) {
+				if (fileAnalysis.exceptedToken(lexer.next(), Token.QUOTE)) {
+					fileAnalysis.setMapToRead(lexer.getView());
+					readSpecialIdentifier(lexer, false, true, fileAnalysis);
 					return;
 				}
 			}
-			readSpecialIdentifier(lexer, result, true, fileAnalysis);
+			readSpecialIdentifier(lexer, true, true, fileAnalysis);
 		}
-		readSpecialIdentifier(lexer, null, true, fileAnalysis);
+		readSpecialIdentifier(lexer, false, true, fileAnalysis);
 	}
 
 	/**
-	 * Checks if there is a reference for the specified character in the encoding
-	 * and updates FileAnalysis accordingly.
+	 * Creates the table giving the id of the skin of each character of the
+	 * encoding. The skin of the empty tiles, NOTHING, has the id 0, the other
+	 * skins of the encoding follow.
 	 *
-	 * @param actuel       The character for which to check the encoding reference.
-	 * @param fileAnalysis The FileAnalysis object to check and update based on the
-	 *                     encoding.
-	 * @param line         The current line being processed.
+	 * @param fileAnalysis The FileAnalysis object containing the encoding.
+	 * @param skins        The list to fill with the skins, indexed by their id.
+	 * @return The id of the skin of each character, -1 if the character is not in
+	 *         the encoding.
 	 */
-	private void inEncoding(char actuel, FileAnalysis fileAnalysis, int line) {
-		String res = fileAnalysis.getGridEncoding().get(actuel);
-		if (res == null) {
-			fileAnalysis.setCanPlay(false);
-			System.err.println(
-					"At line " + (line + lineDataRead + 1) + ": No reference for the letter " + actuel + " in the encoding");
+	private int[] createIdOfCharacter(FileAnalysis fileAnalysis, List<String> skins) {
+		var idOfCharacter = new int[256];
+		Arrays.fill(idOfCharacter, -1);
+		idOfCharacter[' '] = 0;
+		skins.add("NOTHING");
+		for (var encoding : fileAnalysis.getGridEncoding().entrySet()) {
+			if (encoding.getKey() != ' ') {
+				idOfCharacter[encoding.getKey()] = skins.size();
+				skins.add(encoding.getValue());
+			}
 		}
+		return idOfCharacter;
+	}
+
+	/**
+	 * Gets the id of the skin of the specified character and reports an error if
+	 * there is no reference for it in the encoding.
+	 *
+	 * @param actuel        The character for which to check the encoding reference.
+	 * @param idOfCharacter The id of the skin of each character of the encoding.
+	 * @param fileAnalysis  The FileAnalysis object to update if there is no
+	 *                      reference.
+	 * @param line          The current line being processed.
+	 * @param column        The column of the character in its line of the file.
+	 * @return The id of the skin of the character, or -1 if there is no reference.
+	 */
+	private int inEncoding(char actuel, int[] idOfCharacter, FileAnalysis fileAnalysis, int line, int column) {
+		var id = actuel < idOfCharacter.length ? idOfCharacter[actuel] : -1;
+		if (id == -1) {
+			fileAnalysis.reportError(noReference(actuel, line + lineDataRead + 1, column));
+		}
+		return id;
+	}
+
+	/**
+	 * Creates the error of a character which is not in the encoding.
+	 *
+	 * @param actuel The character which is not in the encoding.
+	 * @param line   The line of the file containing the character.
+	 * @param column The column of the character in its line.
+	 * @return The error.
+	 */
+	static Diagnostic noReference(char actuel, int line, int column) {
+		return new Diagnostic("unknown-letter", line, column, "No reference for the letter " + actuel + " in the encoding");
+	}
+
+	/**
+	 * Creates the error of a row of data which does not have the width of the
+	 * size.
+	 *
+	 * @param line   The line of the file containing the row.
+	 * @param column The column of the end of the row.
+	 * @return The error.
+	 */
+	static Diagnostic wrongWidth(int line, int column) {
+		return new Diagnostic("width", line, column, "Error with the width");
 	}
 
 	/**
@@ -251,14 +294,13 @@ public class GridReader {
 	 *                     margin.
 	 * @return The found margin of data.
 	 */
-	private int foundMarginOfData(String data, FileAnalysis fileAnalysis) {
+	private int foundMarginOfData(CharSequence data, FileAnalysis fileAnalysis) {
 		int count = 0, read = 4, line = 1;
 		while (true) {
 			char current = data.charAt(read);
 			switch (current) {
 			case '\n':
-				fileAnalysis.setCanPlay(false);
-				System.err.println("At line " + (lineDataRead + line) + ": The line of data is empty");
+				fileAnalysis.reportError("empty-row", lineDataRead + line, 0, "The line of data is empty");
 				line++;
 				read++;
 				count = 0;
@@ -281,14 +323,14 @@ public class GridReader {
 	 *
 	 * @param line         The current line being checked.
 	 * @param column       The current column being checked.
+	 * @param margin       The margin of the data, to find the column in the file.
 	 * @param fileAnalysis The FileAnalysis object to check and update based on the
 	 *                     column size.
 	 */
-	private void checkColumnSize(int line, int column, FileAnalysis fileAnalysis) {
+	private void checkColumnSize(int line, int column, int margin, FileAnalysis fileAnalysis) {
 		if (fileAnalysis.getColumn() != -1) {
 			if ((column) != fileAnalysis.getColumn()) {
-				fileAnalysis.setCanPlay(false);
-				System.err.println("At line " + (line + lineDataRead + 1) + ": Error with the width");
+				fileAnalysis.reportError(wrongWidth(line + lineDataRead + 1, column + margin));
 			}
 		}
 	}
@@ -304,40 +346,77 @@ public class GridReader {
 	private void checkLineSize(int line, FileAnalysis fileAnalysis) {
 		if (fileAnalysis.getLine() != -1) {
 			if ((line) != fileAnalysis.getLine()) {
-				fileAnalysis.setCanPlay(false);
-				System.err.println("At line " + (line + lineDataRead + 1) + ": Error with the height in data");
+				fileAnalysis.reportError("height", line + lineDataRead + 1, 0, "Error with the height in data");
 			}
 		}
 	}
 
 	/**
 	 * Analyzes the data in the specified map, updating FileAnalysis based on the
-	 * map content.
+	 * map content. In the same pass, the ids of the skins of the tiles are written
+	 * in the grid given to FileAnalysis, so the data is never read again to create
+	 * the game.
+	 * <p>
+	 * When the data is big and all the errors are kept, its rows are found first
+	 * and then checked in parallel by {@link DataRows}, which reports the same
+	 * errors in the same order.
 	 *
 	 * @param map          The map data to be analyzed.
 	 * @param fileAnalysis The FileAnalysis object to update based on the analyzed
 	 *                     map content.
 	 */
-	private void analysOfData(String map, FileAnalysis fileAnalysis) {
+	private void analysOfData(CharSequence map, FileAnalysis fileAnalysis) {
 		int line = 0;
 		int column = 0;
 		int length = map.length();
+		var skins = new ArrayList<String>();
+		var idOfCharacter = createIdOfCharacter(fileAnalysis, skins);
+		var gridLine = fileAnalysis.getLine();
+		var gridColumn = fileAnalysis.getColumn();
+		// a valid grid has one character per tile, a bigger size cannot be valid
+		var tiles = gridLine < 1 || gridColumn < 1 || (long) gridLine * gridColumn > length ? null
+				: new byte[gridLine * gridColumn];
 		int margin = foundMarginOfData(map, fileAnalysis);
 		int read = margin + 3;
+		// with a limit of errors, the sequential loop stops at the last kept error
+		if (length - read >= PARALLEL_THRESHOLD
+				&& fileAnalysis.getDiagnostics().getMaxErrors() == Diagnostics.UNLIMITED) {
+			var rows = DataRows.find(map, read, margin);
+			if (rows != null) {
+				rows.check(idOfCharacter, tiles, gridLine, gridColumn, lineDataRead + 1, margin, fileAnalysis);
+				checkLineSize(rows.size() - 1, fileAnalysis);
+				if (tiles != null) {
+					fileAnalysis.setGrid(new TileGrid(gridLine, gridColumn, skins, tiles));
+				}
+				return;
+			}
+		}
 		while (read != length) {
 			char current = map.charAt(read);
 			switch (current) {
 			case '\n':
-				checkColumnSize(line, column, fileAnalysis);
+				checkColumnSize(line, column, margin, fileAnalysis);
+				if (fileAnalysis.isStopped()) {
+					return;
+				}
 				line++;
 				column = 0;
 				read += margin;
 				break;
 			case '"':
 				checkLineSize(line, fileAnalysis);
+				if (tiles != null) {
+					fileAnalysis.setGrid(new TileGrid(gridLine, gridColumn, skins, tiles));
+				}
 				return;
 			default:
-				inEncoding(current, fileAnalysis, line);
+				var id = inEncoding(current, idOfCharacter, fileAnalysis, line, column + margin);
+				if (id == -1 && fileAnalysis.isStopped()) {
+					return;
+				}
+				if (tiles != null && id != -1 && line < gridLine && column < gridColumn) {
+					tiles[line * gridColumn + column] = (byte) id;
+				}
 				column++;
 				read++;
 			}
@@ -353,16 +432,13 @@ public class GridReader {
 	 */
 	private void everythingHasBeenRead(FileAnalysis fileAnalysis) {
 		if (!sizeAlreadyRead) {
-			fileAnalysis.setCanPlay(false);
-			System.err.println("At line " + Lexer.getNbLines() + ": The size has not been read in [grid]");
+			fileAnalysis.reportErrorAtToken("missing-size", "The size has not been read in [grid]");
 		}
 		if (!encodingsAlreadyRead) {
-			fileAnalysis.setCanPlay(false);
-			System.err.println("At line " + Lexer.getNbLines() + ": The encoding has not been read in [grid]");
+			fileAnalysis.reportErrorAtToken("missing-encodings", "The encoding has not been read in [grid]");
 		}
 		if (!dataAlreadyRead) {
-			fileAnalysis.setCanPlay(false);
-			System.err.println("At line " + Lexer.getNbLines() + ": The data has not been read in [grid]");
+			fileAnalysis.reportErrorAtToken("missing-data", "The data has not been read in [grid]");
 		}
 	}
 
@@ -378,8 +454,9 @@ public class GridReader {
 		if (!checkAlreadyRead(fileAnalysis.isGreedHasBeenRead(), "[grid]", fileAnalysis)) {
 			fileAnalysis.setGreedHasBeenRead(true);
 			fileAnalysis.addGridEncoding(' ', "NOTHING");
-			readSpecialIdentifier(lexer, null, true, fileAnalysis);
-			if (fileAnalysis.getMapToRead() != null && fileAnalysis.getGridEncoding().size() > 1) {
+			readSpecialIdentifier(lexer, false, true, fileAnalysis);
+			if (fileAnalysis.getMapToRead() != null && fileAnalysis.getGridEncoding().size() > 1
+					&& !fileAnalysis.isStopped()) {
 				analysOfData(fileAnalysis.getMapToRead(), fileAnalysis);
 			}
 			everythingHasBeenRead(fileAnalysis);
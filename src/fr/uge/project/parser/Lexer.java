@@ -1,85 +1,380 @@
 package fr.uge.project.parser;
 
-import java.util.List;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 
 /**
  * Lexer class for tokenizing input text.
+ * The text is scanned in a single pass: the first character of each token
+ * selects the kind of token to read, and the characters that cannot start a
+ * token are skipped. The produced tokens are the ones described by the
+ * regular expressions of {@link Token}.
+ * <p>
+ * The current token is kept in the lexer as a kind and a span of the text, so
+ * reading a token with {@link #next()} does not allocate anything. Its content
+ * is only copied in a String when it is asked with {@link #getContent()}.
+ * <p>
+ * The lines are not counted while the tokens are read: the line of a token is
+ * found from its index with a {@link LineIndex}, so it is exact even inside a
+ * quote or after a part of the text which has been skipped.
  */
 public class Lexer {
-	private static int nbLines = 1;
-	private static final List<Token> TOKENS = List.of(Token.values());
-	private static final Pattern PATTERN = Pattern
-			.compile(TOKENS.stream().map(token -> "(" + token.regex + ")").collect(Collectors.joining("|")));
+	private final CharSequence text;
+	private final int length;
+	private final LineIndex lines;
+	private int position = 0;
+	private Token token = null;
+	private int start = 0;
+	private int farthest = -1;
 
-	private final String text;
-	private final Matcher matcher;
 
-	
 	/**
    * Constructs a new Lexer instance with the provided text.
    *
-   * @param text The input text to tokenize.
+   * @param text The input text to tokenize, a String or the text of a mapped
+   *             file.
    * @throws NullPointerException if text is null.
    */
 
-	public Lexer(String text) {
+	public Lexer(CharSequence text) {
+		this(text, new LineIndex(text));
+	}
+
+
+	/**
+	 * Constructs a new Lexer which finds the lines of its tokens with the
+	 * specified index, shared with the other lexers of the same text.
+	 *
+	 * @param text  The input text to tokenize.
+	 * @param lines The index of the lines of the text.
+	 * @throws NullPointerException if text or lines is null.
+	 */
+	Lexer(CharSequence text, LineIndex lines) {
 		this.text = Objects.requireNonNull(text);
-		this.matcher = PATTERN.matcher(text);
+		this.lines = Objects.requireNonNull(lines);
+		this.length = text.length();
+	}
+
+
+	/**
+	 * Checks if the specified character is a letter of an identifier.
+	 *
+	 * @param current The character to check.
+	 * @return true if the character is in [A-Za-z], false otherwise.
+	 */
+	private static boolean isLetter(char current) {
+		return (current >= 'a' && current <= 'z') || (current >= 'A' && current <= 'Z');
+	}
+
+
+	/**
+	 * Checks if the specified character is a digit of a number.
+	 *
+	 * @param current The character to check.
+	 * @return true if the character is in [0-9], false otherwise.
+	 */
+	private static boolean isDigit(char current) {
+		return current >= '0' && current <= '9';
 	}
 
-	
+
+	/**
+	 * Checks if there are three double quotes starting at the specified index.
+	 *
+	 * @param index The index to check.
+	 * @return true if the text contains """ at this index, false otherwise.
+	 */
+	private boolean isTripleQuote(int index) {
+		farthest = Math.max(farthest, Math.min(index + 2, length - 1));
+		return index + 2 < length && text.charAt(index) == '"' && text.charAt(index + 1) == '"'
+				&& text.charAt(index + 2) == '"';
+	}
+
+
+	/**
+	 * Finds the end of a quote token starting at the specified index.
+	 * A quote is three double quotes, at least one character that is not a double
+	 * quote, and three double quotes.
+	 *
+	 * @param start The index of the first double quote.
+	 * @return The index just after the closing quotes, or -1 if there is no quote
+	 *         token at this index.
+	 */
+	private int endOfQuote(int start) {
+		if (!isTripleQuote(start)) {
+			return -1;
+		}
+		var read = start + 3;
+		while (read < length && text.charAt(read) != '"') {
+			read++;
+		}
+		farthest = Math.max(farthest, Math.min(read, length - 1));
+		if (read == start + 3 || !isTripleQuote(read)) {
+			return -1;
+		}
+		return read + 3;
+	}
+
+
+	/**
+	 * Sets the current token, found between start and the current position of the
+	 * lexer.
+	 *
+	 * @param found The token that was read.
+	 * @param first The index of the first character of the token.
+	 * @return The token that was read.
+	 */
+	private Token found(Token found, int first) {
+		token = found;
+		start = first;
+		return found;
+	}
+
+
+	/**
+	 * Advances the lexer to the next token. The kind and the span of this token
+	 * can then be read with the getters of the lexer.
+	 *
+	 * @return The kind of the next token, or {@code null} if there are no more
+	 *         tokens.
+	 */
+	public Token next() {
+		while (position < length) {
+			var first = position;
+			var current = text.charAt(position++);
+			switch (current) {
+			case '(':
+				return found(Token.LEFT_PARENS, first);
+			case ')':
+				return found(Token.RIGHT_PARENS, first);
+			case '[':
+				return found(Token.LEFT_BRACKET, first);
+			case ']':
+				return found(Token.RIGHT_BRACKET, first);
+			case ',':
+				return found(Token.COMMA, first);
+			case ':':
+				return found(Token.COLON, first);
+			case '"':
+				var end = endOfQuote(first);
+				if (end != -1) {
+					position = end;
+					return found(Token.QUOTE, first);
+				}
+				break;
+			default:
+				if (isLetter(current)) {
+					while (position < length && isLetter(text.charAt(position))) {
+						position++;
+					}
+					return found(Token.IDENTIFIER, first);
+				}
+				if (isDigit(current)) {
+					while (position < length && isDigit(text.charAt(position))) {
+						position++;
+					}
+					return found(Token.NUMBER, first);
+				}
+				break;
+			}
+		}
+		token = null;
+		start = position;
+		return null;
+	}
+
+
 	/**
 	 * Gets the next token result from the lexer.
-	 * Advances the internal state of the lexer to the next token.
+	 * Advances the internal state of the lexer to the next token. Unlike
+	 * {@link #next()}, a new Result is created for each token.
 	 *
 	 * @return The next token result, or {@code null} if there are no more tokens.
-	 * @throws AssertionError If unexpected internal state is encountered.
 	 */
 	public Result nextResult() {
-		var matches = matcher.find();
-		if (!matches) {
+		if (next() == null) {
 			return null;
 		}
-		for (var group = 1; group <= matcher.groupCount(); group++) {
-			var start = matcher.start(group);
-			if (start != -1) {
-				var end = matcher.end(group);
-				var content = text.substring(start, end);
-				var result = new Result(TOKENS.get(group - 1), content);
-				if (result.token() == Token.NEW_LINE) {
-					nbLines++;
-					return nextResult();
-				}
-				return result;
+		return new Result(token, text, start, position);
+	}
+
+
+	/**
+	 * Gets the kind of the current token.
+	 *
+	 * @return The current token, or {@code null} if the end of the text has been
+	 *         reached or if no token has been read yet.
+	 */
+	public Token getToken() {
+		return token;
+	}
+
+
+	/**
+	 * Gets the index of the first character of the current token in the text.
+	 *
+	 * @return The start of the current token.
+	 */
+	public int getStart() {
+		return start;
+	}
+
+
+	/**
+	 * Gets the index just after the last character of the current token in the
+	 * text.
+	 *
+	 * @return The end of the current token.
+	 */
+	public int getEnd() {
+		return token == null ? start : position;
+	}
+
+
+	/**
+	 * Gets the column of the first character of the current token, in its line.
+	 *
+	 * @return The column of the current token, starting at 1.
+	 */
+	public int getColumn() {
+		return lines.columnOf(start);
+	}
+
+
+	/**
+	 * Gets the index of the lines of the text, to share it with another lexer of
+	 * the same text.
+	 *
+	 * @return The index of the lines.
+	 */
+	LineIndex getLineIndex() {
+		return lines;
+	}
+
 
+	/**
+	 * Stops the lexer: there is no current token anymore and {@link #next()}
+	 * returns {@code null}, as at the end of the text.
+	 */
+	public void stop() {
+		position = length;
+		start = length;
+		token = null;
+	}
+
+
+	/**
+	 * Gets the index of the farthest character read by the lexer to find the end
+	 * of a quote since the last call to {@link #clearFarthest()}.
+	 *
+	 * @return The index of the farthest character read, -1 if there is none.
+	 */
+	int getFarthest() {
+		return farthest;
+	}
+
+
+	/**
+	 * Forgets the farthest character read to find the end of a quote.
+	 */
+	void clearFarthest() {
+		farthest = -1;
+	}
+
+
+	/**
+	 * Moves the lexer after a part of the text which has already been read
+	 * before, or back to a part of the text to read it again. There is no current
+	 * token until {@link #next()} is called.
+	 *
+	 * @param end The index of the next character to read.
+	 */
+	void skip(int end) {
+		position = end;
+		token = null;
+		start = end;
+	}
+
+
+	/**
+	 * Checks if the content of the current token is the specified text, without
+	 * copying the content.
+	 *
+	 * @param expected The text to compare with.
+	 * @return true if there is a current token and its content is equal to
+	 *         expected, false otherwise.
+	 */
+	public boolean contentEquals(String expected) {
+		if (token == null || position - start != expected.length()) {
+			return false;
+		}
+		for (int i = 0; i < expected.length(); i++) {
+			if (text.charAt(start + i) != expected.charAt(i)) {
+				return false;
 			}
 		}
-		throw new AssertionError();
+		return true;
 	}
 
-	
+
 	/**
-   * Gets the current line number.
-   *
-   * @return The current line number.
-   */
-	public static int getNbLines() {
-		return nbLines;
+	 * Gets the content of the current token as a new String.
+	 *
+	 * @return The content of the current token.
+	 * @throws IllegalStateException if there is no current token.
+	 */
+	public String getContent() {
+		return getView().toString();
 	}
 
-	
+
 	/**
-	 * Advances the line number by the specified amount.
+	 * Gets the content of the current token without copying it when the text
+	 * allows it, as a {@link MappedText} does.
 	 *
-	 * @param toAdd The number of lines to add.
+	 * @return The content of the current token.
+	 * @throws IllegalStateException if there is no current token.
 	 */
-	public void addLines(int toAdd) {
-		nbLines += toAdd;
+	public CharSequence getView() {
+		if (token == null) {
+			throw new IllegalStateException("There is no current token");
+		}
+		return text.subSequence(start, position);
+	}
+
+
+	/**
+	 * Gets the value of the current token, which must be a number, without
+	 * copying its content.
+	 *
+	 * @return The value of the number.
+	 * @throws IllegalStateException if the current token is not a number.
+	 * @throws NumberFormatException if the number is too big for an int.
+	 */
+	public int getNumber() {
+		if (token != Token.NUMBER) {
+			throw new IllegalStateException("The current token is not a number");
+		}
+		var value = 0;
+		for (int i = start; i < position; i++) {
+			var digit = text.charAt(i) - '0';
+			if (value > (Integer.MAX_VALUE - digit) / 10) {
+				throw new NumberFormatException("For input string: \"" + getContent() + "\"");
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+
+	/**
+   * Gets the current line number in the text read by this lexer, which is the
+   * line of the character just after the current token.
+   *
+   * @return The current line number.
+   */
+	public int getNbLines() {
+		return lines.lineOf(position);
 	}
 
 }
@@ -0,0 +1,124 @@
+package fr.uge.project.parser;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+
+/**
+ * Finds the line and the column of a character of a text from its index. The
+ * index of the first character of each line is kept in an array of ints, which
+ * is filled the first time a line after the part already indexed is asked, so
+ * each character of the text is read at most once. The line of an index is
+ * then found by binary search.
+ * <p>
+ * The lexers which read the same text can share the same LineIndex. A
+ * LineIndex is not thread safe.
+ */
+public class LineIndex {
+	private final CharSequence text;
+	private int[] lineStarts = new int[64];
+	private int lineCount = 1;
+	private int indexed = 0;
+	private int lastLine = 0;
+
+
+	/**
+	 * Constructs a new LineIndex for the specified text. Nothing is read before a
+	 * line is asked.
+	 *
+	 * @param text The text whose lines are indexed.
+	 * @throws NullPointerException if text is null.
+	 */
+	public LineIndex(CharSequence text) {
+		this.text = Objects.requireNonNull(text);
+	}
+
+
+	/**
+	 * Indexes the lines of the text up to the specified index.
+	 *
+	 * @param index The index of the last character which must be indexed.
+	 */
+	private void indexUpTo(int index) {
+		var end = Math.min(index, text.length());
+		for (var newLine = nextNewLine(indexed, end); newLine != -1; newLine = nextNewLine(newLine + 1, end)) {
+			if (lineCount == lineStarts.length) {
+				lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+			}
+			lineStarts[lineCount++] = newLine + 1;
+		}
+		indexed = Math.max(indexed, end);
+	}
+
+
+	/**
+	 * Finds the next new line of the text, with the fast search of the text when
+	 * it has one.
+	 *
+	 * @param from The index where the search starts, inclusive.
+	 * @param to   The index where the search ends, exclusive.
+	 * @return The index of the new line, or -1 if there is none.
+	 */
+	private int nextNewLine(int from, int to) {
+		if (from >= to) {
+			return -1;
+		}
+		if (text instanceof MappedText mappedText) {
+			return mappedText.indexOf('\n', from, to);
+		}
+		if (text instanceof String string) {
+			var found = string.indexOf('\n', from);
+			return found < to ? found : -1;
+		}
+		for (int i = from; i < to; i++) {
+			if (text.charAt(i) == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Gets the line of the character at the specified index.
+	 *
+	 * @param index The index of the character, or the length of the text for the
+	 *              end of the text.
+	 * @return The line of the character, starting at 1.
+	 * @throws IndexOutOfBoundsException if index is not in the text.
+	 */
+	public int lineOf(int index) {
+		Objects.checkIndex(index, text.length() + 1);
+		indexUpTo(index);
+		var low = 0;
+		var high = lastLine;
+		if (index >= lineStarts[lastLine]) {
+			// the lines are usually asked in the order of the text, so the line is
+			// searched near the last found line, with steps which double
+			low = lastLine;
+			var step = 1;
+			while (low + step < lineCount && lineStarts[low + step] <= index) {
+				low += step;
+				step *= 2;
+			}
+			high = Math.min(low + step, lineCount);
+		}
+		var found = Arrays.binarySearch(lineStarts, low, high, index);
+		// without an exact match, the line is the one of the previous line start
+		lastLine = found >= 0 ? found : -found - 2;
+		return lastLine + 1;
+	}
+
+
+	/**
+	 * Gets the column of the character at the specified index.
+	 *
+	 * @param index The index of the character, or the length of the text for the
+	 *              end of the text.
+	 * @return The column of the character in its line, starting at 1.
+	 * @throws IndexOutOfBoundsException if index is not in the text.
+	 */
+	public int columnOf(int index) {
+		return index - lineStarts[lineOf(index) - 1] + 1;
+	}
+}
@@ -0,0 +1,30 @@
+package fr.uge.project.parser;
+
+import java.util.Objects;
+
+
+/**
+ * Represents the place of a section of a map, [grid] or [element], in the text
+ * of the map.
+ *
+ * @param name  The name of the section, "grid" or "element".
+ * @param start The index of the '[' starting the section in the text.
+ * @param end   The index just after the last character read for the section.
+ * @param line  The line of the '[' starting the section.
+ */
+public record MapSection(String name, int start, int end, int line) {
+
+	/**
+	 * Constructs a new MapSection.
+	 *
+	 * @throws NullPointerException     if name is null.
+	 * @throws IllegalArgumentException if the bounds of the section are not
+	 *                                  valid.
+	 */
+	public MapSection {
+		Objects.requireNonNull(name);
+		if (start < 0 || end < start || line < 1) {
+			throw new IllegalArgumentException("The bounds of the section are not valid");
+		}
+	}
+}
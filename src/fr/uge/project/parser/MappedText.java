@@ -0,0 +1,112 @@
+package fr.uge.project.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+
+/**
+ * Represents the text of a file mapped in memory.
+ * Each byte of the file is one character of the text, so the text can be read
+ * without being copied on the heap. The tokens of a map only use ASCII
+ * characters, the other bytes are never part of a token.
+ */
+public final class MappedText implements CharSequence {
+	private final ByteBuffer buffer;
+	private final int offset;
+	private final int length;
+
+
+	/**
+	 * Constructs a new MappedText reading length bytes of the buffer from the
+	 * specified offset.
+	 *
+	 * @param buffer The buffer containing the bytes of the text.
+	 * @param offset The index of the first byte of the text in the buffer.
+	 * @param length The number of bytes of the text.
+	 */
+	private MappedText(ByteBuffer buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+	}
+
+
+	/**
+	 * Maps the content of the specified file in memory.
+	 *
+	 * @param path The path of the file to map.
+	 * @return The text of the file.
+	 * @throws IOException              If an I/O error occurs while mapping the
+	 *                                  file.
+	 * @throws IllegalArgumentException If the file is larger than 2 GB.
+	 */
+	public static MappedText map(Path path) throws IOException {
+		Objects.requireNonNull(path);
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new MappedText(buffer, 0, buffer.capacity());
+		}
+	}
+
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+
+	@Override
+	public char charAt(int index) {
+		Objects.checkIndex(index, length);
+		return (char) (buffer.get(offset + index) & 0xFF);
+	}
+
+
+	/**
+	 * Finds the first occurrence of a character between two indexes. The bytes
+	 * are read directly in the buffer, which is faster than calling
+	 * {@link #charAt(int)} for each of them.
+	 *
+	 * @param current The character to find.
+	 * @param from    The index where the search starts, inclusive.
+	 * @param to      The index where the search ends, exclusive.
+	 * @return The index of the character, or -1 if it is not found.
+	 */
+	int indexOf(char current, int from, int to) {
+		Objects.checkFromToIndex(from, to, length);
+		for (int i = offset + from; i < offset + to; i++) {
+			if (buffer.get(i) == (byte) current) {
+				return i - offset;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Gets a part of the text. The returned text is a view on the same memory,
+	 * nothing is copied.
+	 *
+	 * @param start The index of the first character, inclusive.
+	 * @param end   The index of the last character, exclusive.
+	 * @return The text between start and end.
+	 */
+	@Override
+	public MappedText subSequence(int start, int end) {
+		Objects.checkFromToIndex(start, end, length);
+		return new MappedText(buffer, offset + start, end - start);
+	}
+
+
+	@Override
+	public String toString() {
+		var bytes = new byte[length];
+		buffer.get(offset, bytes);
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+}
@@ -4,22 +4,65 @@ import java.util.Objects;
 
 
 /**
- * Represents the result of a parsing operation, consisting of a token and its associated content.
+ * Represents the result of a parsing operation, consisting of a token and the
+ * part of the text where it was found.
  *
- * @param token   The token associated with the parsed content.
- * @param content The content that was parsed.
+ * @param token  The token associated with the parsed content.
+ * @param source The text that was parsed.
+ * @param start  The index of the first character of the token in the source.
+ * @param end    The index just after the last character of the token in the
+ *               source.
  */
-public record Result(Token token, String content) {
+public record Result(Token token, CharSequence source, int start, int end) {
 	/**
    * Constructs a new Result.
    *
+   * @param token  The token associated with the parsed content.
+   * @param source The text that was parsed.
+   * @param start  The index of the first character of the token in the source.
+   * @param end    The index just after the last character of the token in the
+   *               source.
+   * @throws NullPointerException      if either token or source is null.
+   * @throws IndexOutOfBoundsException if start and end are not a valid range of
+   *                                   the source.
+   */
+
+	public Result {
+		Objects.requireNonNull(token);
+		Objects.requireNonNull(source);
+		Objects.checkFromToIndex(start, end, source.length());
+	}
+
+
+	/**
+   * Constructs a new Result for the whole content.
+   *
    * @param token   The token associated with the parsed content.
    * @param content The content that was parsed.
    * @throws NullPointerException if either token or content is null.
    */
+	public Result(Token token, String content) {
+		this(token, content, 0, content.length());
+	}
 
-	public Result {
-		Objects.requireNonNull(token);
-		Objects.requireNonNull(content);
+
+	/**
+	 * Gets the content that was parsed.
+	 *
+	 * @return A new String containing the content of the token.
+	 */
+	public String content() {
+		return source.subSequence(start, end).toString();
+	}
+
+
+	/**
+	 * Gets the content that was parsed without copying it when the source allows
+	 * it, as a {@link MappedText} does.
+	 *
+	 * @return The content of the token.
+	 */
+	public CharSequence view() {
+		return source.subSequence(start, end);
 	}
-}
\ No newline at end of file
+}
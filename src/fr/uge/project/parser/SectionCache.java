@@ -0,0 +1,216 @@
+package fr.uge.project.parser;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import fr.uge.project.bigAdventure.ElementDescriptor;
+import fr.uge.project.bigAdventure.TileGrid;
+
+
+/**
+ * Parses the successive versions of a map, reusing the results of the sections
+ * which have not changed since the previous version.
+ * <p>
+ * A section is read again only if its text, from the start of the line of its
+ * '[' to the '[' of the next section, has changed. The text of a section is
+ * compared with a hash, and the lines of its errors are moved if the section has
+ * moved in the file. A section whose reading does not end on the '[' of the next
+ * section, or which made the lexer look after this '[' (a badly written
+ * section), is always read again.
+ * <p>
+ * All the errors are kept. A SectionCache is not thread safe.
+ */
+public class SectionCache {
+	private Map<Key, Entry> entries = new HashMap<>();
+	private Map<Key, Entry> nextEntries = new HashMap<>();
+	private int reusedCount;
+	private int parsedCount;
+
+	/**
+	 * Identifies the text of a section and the state of the analysis before the
+	 * section.
+	 *
+	 * @param name   The name of the section.
+	 * @param state  For a [grid], true if a grid has already been read; for an
+	 *               [element], true if the player has already been read.
+	 * @param length The length of the text of the section.
+	 * @param hash   The hash of the text of the section.
+	 */
+	private record Key(String name, boolean state, int length, long hash) {
+	}
+
+	/**
+	 * Represents the result of the reading of a section.
+	 *
+	 * @param line        The line of the '[' of the section when it was read.
+	 * @param diagnostics The errors found in the section.
+	 * @param elements    The elements described by the section.
+	 * @param player      true if the section describes the player.
+	 * @param gridRead    true if the section is a grid which has been read.
+	 * @param encodings   The encodings of the grid read in the section.
+	 * @param grid        The tiles decoded in the section, null if there are none.
+	 */
+	private record Entry(int line, List<Diagnostic> diagnostics, List<ElementDescriptor> elements,
+			boolean player, boolean gridRead, Map<Character, String> encodings, TileGrid grid) {
+	}
+
+
+	/**
+	 * Parses a version of the map. The sections of the previous version which are
+	 * not in this version are forgotten.
+	 *
+	 * @param text The text of the map.
+	 * @return A FileAnalysis object containing the parsed information.
+	 * @throws IllegalArgumentException If the map is so badly written that it
+	 *                                  cannot be parsed.
+	 */
+	public FileAnalysis parse(CharSequence text) {
+		Objects.requireNonNull(text);
+		reusedCount = 0;
+		parsedCount = 0;
+		nextEntries = new HashMap<>();
+		try {
+			return FileAnalysis.parse(text, new Diagnostics(), this, false);
+		} finally {
+			entries = nextEntries;
+		}
+	}
+
+
+	/**
+	 * Gets the number of sections reused during the last parse.
+	 *
+	 * @return The number of reused sections.
+	 */
+	public int getReusedCount() {
+		return reusedCount;
+	}
+
+
+	/**
+	 * Gets the number of sections read during the last parse.
+	 *
+	 * @return The number of read sections.
+	 */
+	public int getParsedCount() {
+		return parsedCount;
+	}
+
+
+	/**
+	 * Finds the start of the line containing the specified character.
+	 *
+	 * @param text  The text of the map.
+	 * @param index The index of the character.
+	 * @return The index of the first character of the line.
+	 */
+	private static int lineStart(CharSequence text, int index) {
+		var lineStart = index;
+		while (lineStart > 0 && text.charAt(lineStart - 1) != '\n') {
+			lineStart--;
+		}
+		return lineStart;
+	}
+
+
+	/**
+	 * Reads a section with the specified reader, or reuses the result of the same
+	 * text read during the previous parse. The lexer is left after the text of the
+	 * section in both cases.
+	 *
+	 * @param text         The text of the map.
+	 * @param name         The name of the section.
+	 * @param start        The index of the '[' of the section.
+	 * @param line         The line of the '[' of the section.
+	 * @param lexer        The lexer of the map, its current token is the ']' of
+	 *                     the header of the section.
+	 * @param fileAnalysis The analysis of the map.
+	 * @param reader       Reads the section with the lexer.
+	 */
+	void read(CharSequence text, String name, int start, int line, Lexer lexer, FileAnalysis fileAnalysis,
+			Runnable reader) {
+		var first = lineStart(text, start);
+		// FNV-1a from the start of the line to the '[' of the next section
+		var hash = 0xcbf29ce484222325L;
+		var end = first;
+		var length = text.length();
+		var headerEnd = lexer.getEnd();
+		while (end < length) {
+			var current = text.charAt(end);
+			hash = (hash ^ current) * 0x100000001b3L;
+			end++;
+			if (current == '[' && end > headerEnd) {
+				break;
+			}
+		}
+		var state = name.equals("grid") ? fileAnalysis.isGreedHasBeenRead() : fileAnalysis.isPlayerAlreadyRead();
+		var key = new Key(name, state, end - first, hash);
+		var entry = entries.get(key);
+		if (entry != null) {
+			replay(text, entry, line, end, lexer, fileAnalysis);
+			nextEntries.put(key, entry);
+			reusedCount++;
+			return;
+		}
+		var diagnostics = fileAnalysis.getDiagnostics().getDiagnostics();
+		var diagnosticCount = diagnostics.size();
+		var elementCount = fileAnalysis.getDataOfElements().size();
+		var playerRead = fileAnalysis.isPlayerAlreadyRead();
+		lexer.clearFarthest();
+		reader.run();
+		parsedCount++;
+		// the result only depends on the text of the section if the lexer did not look after it
+		if (lexer.getEnd() != end || lexer.getFarthest() >= end || fileAnalysis.isStopped()) {
+			return;
+		}
+		var elements = fileAnalysis.getDataOfElements();
+		var gridRead = name.equals("grid") && !state;
+		nextEntries.put(key, new Entry(line, List.copyOf(diagnostics.subList(diagnosticCount, diagnostics.size())),
+				List.copyOf(elements.subList(elementCount, elements.size())),
+				!playerRead && fileAnalysis.isPlayerAlreadyRead(), gridRead,
+				gridRead ? Map.copyOf(fileAnalysis.getGridEncoding()) : Map.of(),
+				gridRead && fileAnalysis.hasGrid() ? fileAnalysis.getGrid() : null));
+	}
+
+
+	/**
+	 * Gives to the analysis the result of a section read during the previous
+	 * parse, as if the section was read again. The lexer is left on the '[' of
+	 * the next section, as after the reader, or at the end of the text.
+	 *
+	 * @param text         The text of the map.
+	 * @param entry        The result of the section.
+	 * @param line         The line of the '[' of the section in this version.
+	 * @param end          The index just after the text of the section.
+	 * @param lexer        The lexer of the map.
+	 * @param fileAnalysis The analysis of the map.
+	 */
+	private static void replay(CharSequence text, Entry entry, int line, int end, Lexer lexer,
+			FileAnalysis fileAnalysis) {
+		var shift = line - entry.line();
+		for (var diagnostic : entry.diagnostics()) {
+			fileAnalysis.reportError(new Diagnostic(diagnostic.code(), diagnostic.line() + shift, diagnostic.column(),
+					diagnostic.message()));
+		}
+		entry.elements().forEach(fileAnalysis::addDataOfElement);
+		if (entry.player()) {
+			fileAnalysis.setPlayerAlreadyRead(true);
+		}
+		if (entry.gridRead()) {
+			fileAnalysis.setGreedHasBeenRead(true);
+			entry.encodings().forEach(fileAnalysis::addGridEncoding);
+			if (entry.grid() != null) {
+				fileAnalysis.setGrid(entry.grid());
+			}
+		}
+		// a section is only kept when its reader stopped on the '[' just before end, so it is a real token
+		if (text.charAt(end - 1) == '[') {
+			lexer.skip(end - 1);
+			lexer.next();
+		} else {
+			lexer.skip(end);
+		}
+	}
+}
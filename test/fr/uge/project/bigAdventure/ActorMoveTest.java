@@ -0,0 +1,82 @@
+package fr.uge.project.bigAdventure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import fr.uge.project.parser.Diagnostics;
+import fr.uge.project.parser.FileAnalysis;
+
+
+/**
+ * Checks that the actors are moved by their ids, so that an enemy and a friend
+ * on the same cell are moved one without the other.
+ */
+public class ActorMoveTest {
+
+	/**
+	 * Loads fun.map with a friend added on the cell of the enemy waldo.
+	 *
+	 * @return The game of the map.
+	 * @throws IOException If the map cannot be read.
+	 */
+	private static GameInformation sharedCell() throws IOException {
+		var text = Files.readString(Path.of("maps", "fun.map"))
+				+ "\n[element]\n  name: bob\n  skin: BUNNY\n  position: (38, 24)\n  kind: friend\n  health: 5\n"
+				+ "  zone: (38, 24) (10 x 8)\n  behavior: stroll\n";
+		var analysis = FileAnalysis.readParser(text, new Diagnostics());
+		assertTrue(analysis.canPlay());
+		var game = new GameInformation();
+		game.initialiseFromParseur(analysis);
+		return game;
+	}
+
+
+	/**
+	 * Moves the friend, then the enemy, of a shared cell.
+	 *
+	 * @throws IOException If the map cannot be read.
+	 */
+	@Test
+	public void enemyAndFriendOnTheSameCell() throws IOException {
+		var game = sharedCell();
+		var enemy = game.getEnemyMap().get(24, 38);
+		var friend = game.getFriendMap().get(24, 38);
+		game.changeActorPosition(friend.getId(), 25, 38);
+		assertSame(enemy, game.getEnemyMap().get(24, 38));
+		assertSame(friend, game.getFriendMap().get(25, 38));
+		assertNull(game.getFriendMap().get(24, 38));
+		assertTrue(game.isOccupied(24, 38, GameInformation.ENEMY));
+		assertFalse(game.isOccupied(24, 38, GameInformation.FRIEND));
+		assertTrue(game.isOccupied(25, 38, GameInformation.FRIEND));
+		var entities = game.getEntities();
+		assertEquals(24, entities.rowOf(enemy.getId()));
+		assertEquals(25, entities.rowOf(friend.getId()));
+		game.changeActorPosition(enemy.getId(), 23, 38);
+		assertSame(enemy, game.getEnemyMap().get(23, 38));
+		assertSame(friend, game.getFriendMap().get(25, 38));
+		assertEquals(23, entities.rowOf(enemy.getId()));
+	}
+
+
+	/**
+	 * Checks that an element which is not an enemy or a friend is not moved.
+	 *
+	 * @throws IOException If the map cannot be read.
+	 */
+	@Test
+	public void onlyActors() throws IOException {
+		var game = sharedCell();
+		var player = game.getPerso().getId();
+		assertThrows(IllegalArgumentException.class, () -> game.changeActorPosition(player, 1, 1));
+	}
+}
@@ -0,0 +1,127 @@
+package fr.uge.project.bigAdventure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.uge.project.parser.Diagnostics;
+import fr.uge.project.parser.FileAnalysis;
+
+
+/**
+ * Checks that a reloaded map keeps the state of the running game for the
+ * elements whose sections have not been edited.
+ */
+public class CarryStateTest {
+	private static final Position SWORD = new Position(29, 1);
+	private static final Position KEY = new Position(8, 63);
+	private static final Position WALDO = new Position(24, 38);
+	private String text;
+	private GameInformation running;
+
+
+	/**
+	 * Loads a game from a text.
+	 *
+	 * @param text The text of the map.
+	 * @return The game of the map.
+	 * @throws IOException If the images of the skins cannot be read.
+	 */
+	private static GameInformation gameOf(String text) throws IOException {
+		var analysis = FileAnalysis.readParser(text, new Diagnostics());
+		assertTrue(analysis.canPlay());
+		var game = new GameInformation();
+		game.initialiseFromParseur(analysis);
+		return game;
+	}
+
+
+	/**
+	 * Finds a cell next to a position where an actor can walk.
+	 *
+	 * @param game     The game.
+	 * @param position The position.
+	 * @return The free cell next to the position.
+	 */
+	private static Position nextTo(GameInformation game, Position position) {
+		for (var cell : new Position[] { new Position(position.i() + 1, position.j()),
+				new Position(position.i() - 1, position.j()), new Position(position.i(), position.j() + 1),
+				new Position(position.i(), position.j() - 1) }) {
+			if (game.canWalk(cell.i(), cell.j()) && !game.isOccupied(cell.i(), cell.j(), -1)) {
+				return cell;
+			}
+		}
+		throw new AssertionError("No free cell next to " + position);
+	}
+
+
+	/**
+	 * Loads fun.map and plays it: the player character and waldo move, the player
+	 * character is hurt, and the sword and the key are picked.
+	 *
+	 * @throws IOException If the map cannot be read.
+	 */
+	@BeforeEach
+	public void play() throws IOException {
+		text = Files.readString(Path.of("maps", "fun.map"));
+		running = gameOf(text);
+		running.changePlayerPosition(nextTo(running, running.getPositionOfPerso()));
+		running.getEntities().changeHealth(running.getPerso().getId(), 3);
+		var waldo = running.getEnemyMap().get(WALDO.i(), WALDO.j());
+		running.changeActorPosition(waldo.getId(), nextTo(running, WALDO));
+		running.removeItem(SWORD);
+		running.removeItem(KEY);
+	}
+
+
+	/**
+	 * Checks that nothing is lost when the map is saved without any change.
+	 *
+	 * @throws IOException If the map cannot be read.
+	 */
+	@Test
+	public void unchangedMap() throws IOException {
+		var reloaded = gameOf(text);
+		assertEquals(running.getEntities().size(), reloaded.carryStateFrom(running) - 2);
+		assertEquals(running.getPositionOfPerso(), reloaded.getPositionOfPerso());
+		assertEquals(3, reloaded.getPerso().getHealth());
+		assertNull(reloaded.getItemMap().get(SWORD.i(), SWORD.j()));
+		assertNull(reloaded.getItemMap().get(KEY.i(), KEY.j()));
+		assertNull(reloaded.getEnemyMap().get(WALDO.i(), WALDO.j()));
+		var waldo = nextTo(gameOf(text), WALDO);
+		assertNotNull(reloaded.getEnemyMap().get(waldo.i(), waldo.j()));
+		assertTrue(reloaded.isOccupied(waldo.i(), waldo.j(), GameInformation.ENEMY));
+		assertFalse(reloaded.isOccupied(WALDO.i(), WALDO.j(), GameInformation.ENEMY));
+	}
+
+
+	/**
+	 * Checks that the edited elements start again as the new version describes
+	 * them, while the other ones keep their state.
+	 *
+	 * @throws IOException If the map cannot be read.
+	 */
+	@Test
+	public void editedSections() throws IOException {
+		var edited = text.replace("name: durendale", "name: excalibur").replace("damage: 5", "damage: 6");
+		assertNotEquals(text, edited);
+		var reloaded = gameOf(edited);
+		reloaded.carryStateFrom(running);
+		assertEquals(running.getPositionOfPerso(), reloaded.getPositionOfPerso());
+		assertEquals(3, reloaded.getPerso().getHealth());
+		assertNotNull(reloaded.getItemMap().get(SWORD.i(), SWORD.j()));
+		assertNull(reloaded.getItemMap().get(KEY.i(), KEY.j()));
+		assertNotNull(reloaded.getEnemyMap().get(WALDO.i(), WALDO.j()));
+		assertTrue(reloaded.isOccupied(WALDO.i(), WALDO.j(), GameInformation.ENEMY));
+	}
+}
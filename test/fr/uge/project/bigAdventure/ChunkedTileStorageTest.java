@@ -0,0 +1,102 @@
+package fr.uge.project.bigAdventure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Checks the chunks kept in memory by a ChunkedTileStorage under a small memory
+ * budget.
+ */
+public class ChunkedTileStorageTest {
+	private static final int CHUNK_SIZE = 8;
+	private static final int CHUNK_BYTES = CHUNK_SIZE * CHUNK_SIZE;
+
+
+	/**
+	 * Writes a grid of 8 x 8 chunks whose tiles are the number of their chunk, and
+	 * opens it with a budget of three chunks.
+	 *
+	 * @param directory The directory of the chunk file.
+	 * @return The opened chunk file.
+	 * @throws IOException If the chunk file cannot be written or read.
+	 */
+	private static ChunkedTileStorage open(Path directory) throws IOException {
+		var path = directory.resolve("grid.chunks");
+		var skins = List.of("GRASS", "WALL", "FLOWER", "TREE", "ROAD", "WATER", "TILE", "ROCK");
+		ChunkedTileStorage.write(8 * CHUNK_SIZE, 8 * CHUNK_SIZE, skins, CHUNK_SIZE,
+				(i, j) -> (i / CHUNK_SIZE + j / CHUNK_SIZE) % skins.size(), path);
+		return ChunkedTileStorage.open(path, 3 * CHUNK_BYTES);
+	}
+
+
+	/**
+	 * Reads all the tiles of a chunk many times.
+	 *
+	 * @param grid   The grid.
+	 * @param row    The row of the chunk.
+	 * @param column The column of the chunk.
+	 */
+	private static void readChunk(ChunkedTileStorage grid, int row, int column) {
+		for (var times = 0; times < 10; times++) {
+			for (int i = row * CHUNK_SIZE; i < (row + 1) * CHUNK_SIZE; i++) {
+				for (int j = column * CHUNK_SIZE; j < (column + 1) * CHUNK_SIZE; j++) {
+					assertEquals((row + column) % 8, grid.getTileId(i, j));
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Checks that the least recently used chunk is the one removed from memory,
+	 * when the chunks are read one after the other many times.
+	 *
+	 * @param directory The directory of the chunk file.
+	 * @throws IOException If the chunk file cannot be written or read.
+	 */
+	@Test
+	public void hotChunkIsKept(@TempDir Path directory) throws IOException {
+		try (var grid = open(directory)) {
+			readChunk(grid, 0, 0);
+			readChunk(grid, 0, 1);
+			readChunk(grid, 4, 4);
+			assertEquals(3, grid.loads());
+			// the chunk (0, 0) is the least recently used one, it is removed
+			readChunk(grid, 0, 2);
+			assertEquals(4, grid.loads());
+			readChunk(grid, 4, 4);
+			assertEquals(4, grid.loads());
+			assertEquals(3, grid.residentChunks());
+			readChunk(grid, 0, 0);
+			assertEquals(5, grid.loads());
+		}
+	}
+
+
+	/**
+	 * Reads a hot chunk between each new chunk: the hot chunk is never read again
+	 * from the file.
+	 *
+	 * @param directory The directory of the chunk file.
+	 * @throws IOException If the chunk file cannot be written or read.
+	 */
+	@Test
+	public void hotChunkSurvivesEviction(@TempDir Path directory) throws IOException {
+		try (var grid = open(directory)) {
+			readChunk(grid, 4, 4);
+			for (var chunk = 0; chunk < 8; chunk++) {
+				readChunk(grid, 1, chunk);
+				readChunk(grid, 4, 4);
+				readChunk(grid, 4, 4);
+				assertEquals(chunk + 2, grid.loads());
+			}
+		}
+	}
+}
@@ -0,0 +1,329 @@
+package fr.uge.project.bigAdventure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.uge.project.main.MapGenerator;
+import fr.uge.project.parser.Diagnostics;
+import fr.uge.project.parser.FileAnalysis;
+
+
+/**
+ * Checks that a map loaded from its compiled form is the same game as the map
+ * parsed from its text: the same tiles, the same skins and the same elements,
+ * for the compiled maps of version 1, the chunked compiled maps and the grids
+ * off the heap.
+ */
+public class CompiledMapTest {
+
+	/**
+	 * Checks that two games have the same grid and the same elements.
+	 *
+	 * @param name     The name of the map, used in the messages.
+	 * @param expected The game of the map parsed from its text.
+	 * @param actual   The game of the compiled map.
+	 */
+	static void assertSameGame(String name, GameInformation expected, GameInformation actual) {
+		assertEquals(expected.getLine(), actual.getLine(), name);
+		assertEquals(expected.getColumn(), actual.getColumn(), name);
+		for (int i = 0; i < expected.getLine(); i++) {
+			for (int j = 0; j < expected.getColumn(); j++) {
+				var cell = name + " at (" + i + ", " + j + ")";
+				assertEquals(expected.getSkinIdInGrid(i, j), actual.getSkinIdInGrid(i, j), cell);
+				assertEquals(expected.canWalk(i, j), actual.canWalk(i, j), cell);
+				for (var layer = 1; layer <= GameInformation.PLAYER; layer <<= 1) {
+					assertEquals(expected.isOccupied(i, j, layer), actual.isOccupied(i, j, layer), cell);
+				}
+			}
+		}
+		assertEquals(expected.getPositionOfPerso(), actual.getPositionOfPerso(), name);
+		var entities = expected.getEntities();
+		var others = actual.getEntities();
+		assertEquals(entities.idCount(), others.idCount(), name);
+		assertEquals(entities.size(), others.size(), name);
+		for (int id = 0; id < entities.idCount(); id++) {
+			var element = name + ", element " + id;
+			assertEquals(entities.kindOf(id), others.kindOf(id), element);
+			if (entities.kindOf(id) == null) {
+				continue;
+			}
+			assertEquals(entities.nameOf(id), others.nameOf(id), element);
+			assertEquals(entities.skinIdOf(id), others.skinIdOf(id), element);
+			assertEquals(entities.rowOf(id), others.rowOf(id), element);
+			assertEquals(entities.columnOf(id), others.columnOf(id), element);
+			assertEquals(entities.behaviorOf(id), others.behaviorOf(id), element);
+			assertEquals(entities.hasHealth(id), others.hasHealth(id), element);
+			assertEquals(entities.healthOf(id), others.healthOf(id), element);
+			assertEquals(entities.maxHealthOf(id), others.maxHealthOf(id), element);
+			assertEquals(entities.damageOf(id), others.damageOf(id), element);
+			assertEquals(entities.canMove(id), others.canMove(id), element);
+			for (int i = 0; i < expected.getLine(); i++) {
+				for (int j = 0; j < expected.getColumn(); j++) {
+					assertEquals(entities.isInZone(id, i, j), others.isInZone(id, i, j), element + " zone");
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Parses a map from its text.
+	 *
+	 * @param path The path of the map.
+	 * @return The analysis of the map.
+	 * @throws IOException If the map cannot be read.
+	 */
+	private static FileAnalysis parse(Path path) throws IOException {
+		return FileAnalysis.readParser(path, new Diagnostics());
+	}
+
+
+	/**
+	 * Creates the game of a parsed map.
+	 *
+	 * @param analysis The analysis of the map.
+	 * @param offHeap  true to keep the grid off the heap.
+	 * @return The game of the map.
+	 * @throws IOException If the images of the skins cannot be read.
+	 */
+	private static GameInformation gameOf(FileAnalysis analysis, boolean offHeap) throws IOException {
+		var game = new GameInformation(offHeap);
+		game.initialiseFromParseur(analysis);
+		return game;
+	}
+
+
+	/**
+	 * Compiles a map in the three forms, loads each of them on the heap and off
+	 * the heap, and compares them with the game of the text.
+	 *
+	 * @param map       The path of the map.
+	 * @param directory The directory of the compiled maps.
+	 * @throws IOException If a map cannot be read or written.
+	 */
+	private static void assertRoundTrip(Path map, Path directory) throws IOException {
+		var analysis = parse(map);
+		assertTrue(analysis.canPlay(), map + " cannot be played");
+		var name = map.getFileName().toString();
+		var compiled = directory.resolve(name + ".bmap");
+		var chunked = directory.resolve(name + ".chunked.bmap");
+		CompiledMap.compile(analysis, compiled);
+		// chunks smaller than the grid, and a budget of two chunks, so that chunks are evicted
+		CompiledMap.compile(analysis, chunked, 8);
+		for (var offHeap : new boolean[] { false, true }) {
+			var expected = gameOf(analysis, offHeap);
+			assertSameGame(name + " v1, offHeap " + offHeap, expected, CompiledMap.load(compiled, 0, offHeap));
+			try (var game = CompiledMap.load(chunked, 2 * 8 * 8, offHeap)) {
+				assertTrue(game.isChunked());
+				assertSameGame(name + " chunked, offHeap " + offHeap, expected, game);
+			}
+		}
+	}
+
+
+	/**
+	 * Checks the round trip of the maps of the maps directory which can be
+	 * played.
+	 *
+	 * @param directory The directory of the compiled maps.
+	 * @throws IOException If a map cannot be read or written.
+	 */
+	@Test
+	public void shippedMaps(@TempDir Path directory) throws IOException {
+		var maps = new ArrayList<Path>();
+		try (var paths = Files.list(Path.of("maps"))) {
+			for (var path : paths.filter(path -> path.toString().endsWith(".map")).sorted().toList()) {
+				if (parse(path).canPlay()) {
+					maps.add(path);
+				}
+			}
+		}
+		assertFalse(maps.isEmpty());
+		for (var map : maps) {
+			assertRoundTrip(map, directory);
+		}
+	}
+
+
+	/**
+	 * Checks the round trip of generated maps with all the kinds of elements.
+	 *
+	 * @param directory The directory of the maps.
+	 * @throws IOException If a map cannot be read or written.
+	 */
+	@Test
+	public void generatedMaps(@TempDir Path directory) throws IOException {
+		for (var seed = 1; seed <= 3; seed++) {
+			var settings = new MapGenerator.Settings(30 * seed, 20 * seed, 10 * seed, 5 * seed, 5 * seed, 5 * seed,
+					5 * seed, seed, 0);
+			var map = directory.resolve("generated" + seed + ".map");
+			new MapGenerator(settings).generate(map);
+			assertRoundTrip(map, directory);
+		}
+	}
+
+
+	/**
+	 * Checks that a generated map started from its text, from its compiled map of
+	 * version 1 and from its chunked compiled map, with the default chunk size and
+	 * budget, gives the same game. The times of these starts are measured by
+	 * {@link StartupTime}.
+	 *
+	 * @param directory The directory of the maps.
+	 * @throws IOException If a map cannot be read or written.
+	 */
+	@Test
+	public void defaultLoads(@TempDir Path directory) throws IOException {
+		var settings = new MapGenerator.Settings(96, 96, 52, 64, 64, 64, 64, 96, 0);
+		var map = directory.resolve("default.map");
+		new MapGenerator(settings).generate(map);
+		var compiled = directory.resolve("default.bmap");
+		var chunked = directory.resolve("default.chunked.bmap");
+		var analysis = parse(map);
+		CompiledMap.compile(analysis, compiled);
+		CompiledMap.compile(analysis, chunked, ChunkedTileStorage.DEFAULT_CHUNK_SIZE);
+		var text = gameOf(parse(map), false);
+		assertSameGame("default.map compiled", text, CompiledMap.load(compiled));
+		try (var fromChunked = CompiledMap.load(chunked)) {
+			assertTrue(fromChunked.isChunked());
+			assertSameGame("default.map chunked", text, fromChunked);
+		}
+	}
+
+
+	/**
+	 * Compiles monster_house.map in a version 1 compiled map and changes an int
+	 * of its header.
+	 *
+	 * @param directory The directory of the compiled map.
+	 * @param offset    The offset of the int to change.
+	 * @param value     The new value of the int.
+	 * @return The path of the corrupt compiled map.
+	 * @throws IOException If the map cannot be read or written.
+	 */
+	private static Path corruptHeader(Path directory, int offset, int value) throws IOException {
+		var compiled = directory.resolve("corrupt" + offset + "_" + value + ".bmap");
+		CompiledMap.compile(parse(Path.of("maps", "monster_house.map")), compiled);
+		var bytes = Files.readAllBytes(compiled);
+		ByteBuffer.wrap(bytes).putInt(offset, value);
+		Files.write(compiled, bytes);
+		return compiled;
+	}
+
+
+	/**
+	 * Checks that a compiled map whose size is negative, zero or bigger than the
+	 * file is refused with an IOException, on the heap and off the heap.
+	 *
+	 * @param directory The directory of the compiled maps.
+	 * @throws IOException If a map cannot be read or written.
+	 */
+	@Test
+	public void corruptSize(@TempDir Path directory) throws IOException {
+		// the rows then the columns come after the magic number and the version
+		for (var offset : new int[] { 6, 10 }) {
+			for (var value : new int[] { -1, 0, Integer.MIN_VALUE, Integer.MAX_VALUE }) {
+				var compiled = corruptHeader(directory, offset, value);
+				assertThrows(IOException.class, () -> CompiledMap.load(compiled, 0, false));
+				assertThrows(IOException.class, () -> CompiledMap.load(compiled, 0, true));
+			}
+		}
+	}
+
+
+	/**
+	 * Checks that a compiled map with a tile which is not a skin of its table is
+	 * refused with an IOException, on the heap and off the heap.
+	 *
+	 * @param directory The directory of the compiled maps.
+	 * @throws IOException If a map cannot be read or written.
+	 */
+	@Test
+	public void corruptTile(@TempDir Path directory) throws IOException {
+		var analysis = parse(Path.of("maps", "monster_house.map"));
+		var compiled = directory.resolve("corrupt.bmap");
+		CompiledMap.compile(analysis, compiled);
+		// the tiles come after the magic number, the version, the size and the skin table
+		var offset = 16;
+		for (var skin : analysis.getGrid().getSkins()) {
+			offset += 2 + skin.length();
+		}
+		var bytes = Files.readAllBytes(compiled);
+		bytes[offset + 5] = (byte) analysis.getGrid().getSkins().size();
+		Files.write(compiled, bytes);
+		assertThrows(IOException.class, () -> CompiledMap.load(compiled, 0, false));
+		assertThrows(IOException.class, () -> CompiledMap.load(compiled, 0, true));
+	}
+
+
+	/**
+	 * Checks that the chunk of a chunked compiled map with a tile which is not a
+	 * skin of its table is refused with an UncheckedIOException when it is read.
+	 *
+	 * @param directory The directory of the compiled maps.
+	 * @throws IOException If a map cannot be read or written.
+	 */
+	@Test
+	public void corruptChunk(@TempDir Path directory) throws IOException {
+		var analysis = parse(Path.of("maps", "monster_house.map"));
+		var compiled = directory.resolve("corrupt.bmap");
+		CompiledMap.compile(analysis, compiled, 8);
+		var chunks = CompiledMap.chunkFileOf(compiled);
+		var bytes = Files.readAllBytes(chunks);
+		// the last byte is a tile of the last chunk
+		bytes[bytes.length - 1] = (byte) 0xFF;
+		Files.write(chunks, bytes);
+		try (var game = CompiledMap.load(compiled)) {
+			assertThrows(UncheckedIOException.class, () -> readAllTiles(game));
+		}
+	}
+
+
+	/**
+	 * Reads the skin of every tile of the grid of a game.
+	 *
+	 * @param game The game.
+	 */
+	private static void readAllTiles(GameInformation game) {
+		for (int i = 0; i < game.getLine(); i++) {
+			for (int j = 0; j < game.getColumn(); j++) {
+				game.getSkinIdInGrid(i, j);
+			}
+		}
+	}
+
+
+	/**
+	 * Checks that closing a game loaded from a chunked compiled map closes its
+	 * chunk file, and that closing a game read from a text does nothing.
+	 *
+	 * @param directory The directory of the compiled map.
+	 * @throws IOException If a map cannot be read or written.
+	 */
+	@Test
+	public void closeChunkFile(@TempDir Path directory) throws IOException {
+		var analysis = parse(Path.of("maps", "monster_house.map"));
+		var compiled = directory.resolve("closed.bmap");
+		CompiledMap.compile(analysis, compiled, 8);
+		// a budget of one chunk, so that the chunks are read again from the file
+		var game = CompiledMap.load(compiled, 8 * 8, false);
+		readAllTiles(game);
+		game.close();
+		assertThrows(UncheckedIOException.class, () -> readAllTiles(game));
+		var text = gameOf(analysis, false);
+		text.close();
+		readAllTiles(text);
+	}
+}
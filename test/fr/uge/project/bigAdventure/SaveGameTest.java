@@ -0,0 +1,211 @@
+package fr.uge.project.bigAdventure;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.uge.project.parser.Diagnostics;
+import fr.uge.project.parser.FileAnalysis;
+
+
+/**
+ * Checks that a saved game is put back field for field in a game loaded again
+ * from its map, that a save which does not match its map is refused, and that
+ * writing a save never leaves its temporary file behind.
+ */
+public class SaveGameTest {
+	private static final Path MAP = Path.of("maps", "fun.map");
+	private static final String FRIEND = "\n[element]\n  name: bob\n  skin: BUNNY\n  position: (10, 20)\n"
+			+ "  kind: friend\n  health: 5\n  zone: (5, 15) (10 x 10)\n  behavior: stroll\n";
+	private static final Position SWORD = new Position(29, 1);
+	private static final Position KEY = new Position(8, 63);
+	private static final Position WALDO = new Position(24, 38);
+	private static final Position BOB = new Position(20, 10);
+
+
+	/**
+	 * Loads a game from a map file, with the friend bob added to fun.map.
+	 *
+	 * @param map The path of the map.
+	 * @return The game of the map.
+	 * @throws IOException If the map cannot be read.
+	 */
+	private static GameInformation gameOf(Path map) throws IOException {
+		var text = Files.readString(map);
+		var analysis = FileAnalysis.readParser(map.equals(MAP) ? text + FRIEND : text, new Diagnostics());
+		assertTrue(analysis.canPlay());
+		var game = new GameInformation();
+		game.initialiseFromParseur(analysis);
+		return game;
+	}
+
+
+	/**
+	 * Finds a cell next to a position where an actor can walk.
+	 *
+	 * @param game     The game.
+	 * @param position The position.
+	 * @return The free cell next to the position.
+	 */
+	private static Position nextTo(GameInformation game, Position position) {
+		for (var cell : new Position[] { new Position(position.i() + 1, position.j()),
+				new Position(position.i() - 1, position.j()), new Position(position.i(), position.j() + 1),
+				new Position(position.i(), position.j() - 1) }) {
+			if (game.canWalk(cell.i(), cell.j()) && !game.isOccupied(cell.i(), cell.j(), -1)) {
+				return cell;
+			}
+		}
+		throw new AssertionError("No free cell next to " + position);
+	}
+
+
+	/**
+	 * Gets the state of all the elements of a game, in the order of the save: the
+	 * kinds, the rows, the columns and the healths indexed by the ids.
+	 *
+	 * @param game The game.
+	 * @return The text of the four arrays.
+	 */
+	private static String stateOf(GameInformation game) {
+		var entities = game.getEntities();
+		var count = entities.idCount();
+		var kinds = new byte[count];
+		var rows = new int[count];
+		var columns = new int[count];
+		var healths = new int[count];
+		entities.copyState(kinds, rows, columns, healths);
+		return Arrays.toString(kinds) + Arrays.toString(rows) + Arrays.toString(columns) + Arrays.toString(healths);
+	}
+
+
+	/**
+	 * Plays fun.map: the player character, waldo and bob move, the player
+	 * character is hurt, and the sword and the key are picked.
+	 *
+	 * @return The game.
+	 * @throws IOException If the map cannot be read.
+	 */
+	private static GameInformation play() throws IOException {
+		var game = gameOf(MAP);
+		game.changePlayerPosition(nextTo(game, game.getPositionOfPerso()));
+		game.getEntities().changeHealth(game.getPerso().getId(), 3);
+		game.changeActorPosition(game.getEnemyMap().get(WALDO.i(), WALDO.j()).getId(), nextTo(game, WALDO));
+		game.changeActorPosition(game.getFriendMap().get(BOB.i(), BOB.j()).getId(), nextTo(game, BOB));
+		game.removeItem(SWORD);
+		game.removeItem(KEY);
+		return game;
+	}
+
+
+	/**
+	 * Saves a played game, plain and compressed, then puts the save in a game
+	 * loaded again from the map and checks the positions, the healths, the
+	 * removed items and the occupancy of the cells.
+	 *
+	 * @param directory The directory of the save.
+	 * @throws IOException If the map or the save cannot be read or written.
+	 */
+	@Test
+	public void restoreAPlayedGame(@TempDir Path directory) throws IOException {
+		var played = play();
+		var fresh = gameOf(MAP);
+		var waldo = nextTo(fresh, WALDO);
+		var bob = nextTo(fresh, BOB);
+		var path = directory.resolve("game.save");
+		for (var compress : new boolean[] { false, true }) {
+			SaveGame.of(played, MAP).write(path, compress);
+			var game = gameOf(MAP);
+			SaveGame.read(path).restore(game);
+			assertEquals(stateOf(played), stateOf(game));
+			assertEquals(played.getPositionOfPerso(), game.getPositionOfPerso());
+			assertEquals(3, game.getPerso().getHealth());
+			assertNull(game.getEnemyMap().get(WALDO.i(), WALDO.j()));
+			assertNotNull(game.getEnemyMap().get(waldo.i(), waldo.j()));
+			assertFalse(game.isOccupied(WALDO.i(), WALDO.j(), GameInformation.ENEMY));
+			assertTrue(game.isOccupied(waldo.i(), waldo.j(), GameInformation.ENEMY));
+			assertNull(game.getFriendMap().get(BOB.i(), BOB.j()));
+			assertNotNull(game.getFriendMap().get(bob.i(), bob.j()));
+			assertFalse(game.isOccupied(BOB.i(), BOB.j(), GameInformation.FRIEND));
+			assertTrue(game.isOccupied(bob.i(), bob.j(), GameInformation.FRIEND));
+			assertNull(game.getItemMap().get(SWORD.i(), SWORD.j()));
+			assertNull(game.getItemMap().get(KEY.i(), KEY.j()));
+			assertFalse(game.isOccupied(SWORD.i(), SWORD.j(), GameInformation.ITEM));
+			assertFalse(game.isOccupied(KEY.i(), KEY.j(), GameInformation.ITEM));
+		}
+	}
+
+
+	/**
+	 * Checks that a save is refused by a game of another map, and that a save
+	 * file cut before its end is refused, plain and compressed.
+	 *
+	 * @param directory The directory of the save.
+	 * @throws IOException If the map or the save cannot be read or written.
+	 */
+	@Test
+	public void refusedSaves(@TempDir Path directory) throws IOException {
+		var save = SaveGame.of(play(), MAP);
+		var other = gameOf(Path.of("maps", "monster_house.map"));
+		assertThrows(IllegalArgumentException.class, () -> save.restore(other));
+		var path = directory.resolve("game.save");
+		for (var compress : new boolean[] { false, true }) {
+			save.write(path, compress);
+			var bytes = Files.readAllBytes(path);
+			Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+			assertThrows(IOException.class, () -> SaveGame.read(path));
+		}
+	}
+
+
+	/**
+	 * Checks that a save written and read again keeps its map, and that only the
+	 * save file is left in the directory.
+	 *
+	 * @param directory The directory of the save.
+	 * @throws IOException If the save cannot be written or read.
+	 */
+	@Test
+	public void writeAndRead(@TempDir Path directory) throws IOException {
+		var path = directory.resolve("game.save");
+		for (var compress : new boolean[] { false, true }) {
+			SaveGame.of(gameOf(MAP), MAP).write(path, compress);
+			assertEquals(MAP.toAbsolutePath(), SaveGame.read(path).map());
+			try (var files = Files.list(directory)) {
+				assertEquals(1, files.count());
+			}
+		}
+	}
+
+
+	/**
+	 * Checks that the temporary file is deleted when the save cannot be moved to
+	 * its path, here a directory which is not empty.
+	 *
+	 * @param directory The directory of the save.
+	 * @throws IOException If the directory cannot be created.
+	 */
+	@Test
+	public void failedWriteDeletesTemporary(@TempDir Path directory) throws IOException {
+		var path = directory.resolve("game.save");
+		Files.createDirectory(path);
+		Files.writeString(path.resolve("other"), "other");
+		var save = SaveGame.of(gameOf(MAP), MAP);
+		for (var compress : new boolean[] { false, true }) {
+			assertThrows(IOException.class, () -> save.write(path, compress));
+			assertFalse(Files.exists(directory.resolve("game.save.tmp")));
+			assertTrue(Files.isDirectory(path));
+		}
+	}
+}
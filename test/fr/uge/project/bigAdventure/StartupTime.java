@@ -0,0 +1,107 @@
+package fr.uge.project.bigAdventure;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import fr.uge.project.main.MapGenerator;
+import fr.uge.project.parser.Diagnostics;
+import fr.uge.project.parser.FileAnalysis;
+
+
+/**
+ * Measures the time taken to start a game from the text of a generated map of
+ * 512 x 512 tiles and 16384 elements, from its compiled map of version 1 and
+ * from its chunked compiled map. It is run with the startup-bench target of
+ * ant.
+ */
+public class StartupTime {
+	private static final int WARMUP_RUNS = 3;
+	private static final int RUNS = 5;
+
+
+	/**
+	 * A way to start a game.
+	 */
+	@FunctionalInterface
+	private interface Start {
+
+		/**
+		 * Starts the game.
+		 *
+		 * @return The game.
+		 * @throws IOException If the map cannot be read.
+		 */
+		GameInformation start() throws IOException;
+	}
+
+
+	/**
+	 * Starts a game several times, a few times to warm up, then several times;
+	 * the best time is kept.
+	 *
+	 * @param start Starts the game.
+	 * @return The best time, in milliseconds.
+	 * @throws IOException If the map cannot be read.
+	 */
+	private static double measure(Start start) throws IOException {
+		var best = Long.MAX_VALUE;
+		for (var run = 0; run < WARMUP_RUNS + RUNS; run++) {
+			var begin = System.nanoTime();
+			var game = start.start();
+			var time = System.nanoTime() - begin;
+			game.close();
+			if (run >= WARMUP_RUNS) {
+				best = Math.min(best, time);
+			}
+		}
+		return best / 1_000_000.0;
+	}
+
+
+	/**
+	 * Starts a game from the text of a map.
+	 *
+	 * @param map The path of the map.
+	 * @return The game.
+	 * @throws IOException If the map cannot be read.
+	 */
+	private static GameInformation fromText(Path map) throws IOException {
+		var game = new GameInformation();
+		game.initialiseFromParseur(FileAnalysis.readParser(map, new Diagnostics()));
+		return game;
+	}
+
+
+	/**
+	 * Runs the measures.
+	 *
+	 * @param args Not used.
+	 * @throws IOException If a map cannot be written or read.
+	 */
+	public static void main(String[] args) throws IOException {
+		var directory = Files.createTempDirectory("startup");
+		try {
+			var settings = new MapGenerator.Settings(512, 512, 52, 4096, 4096, 4096, 4096, 512, 0);
+			var map = directory.resolve("startup.map");
+			new MapGenerator(settings).generate(map);
+			var compiled = directory.resolve("startup.bmap");
+			var chunked = directory.resolve("startup.chunked.bmap");
+			var analysis = FileAnalysis.readParser(map, new Diagnostics());
+			CompiledMap.compile(analysis, compiled);
+			CompiledMap.compile(analysis, chunked, ChunkedTileStorage.DEFAULT_CHUNK_SIZE);
+			var text = measure(() -> fromText(map));
+			var flat = measure(() -> CompiledMap.load(compiled));
+			var chunks = measure(() -> CompiledMap.load(chunked));
+			System.out.printf("start of a 512x512 map: text %.1f ms, compiled %.1f ms, chunked %.1f ms%n", text, flat,
+					chunks);
+		} finally {
+			try (var files = Files.list(directory)) {
+				for (var file : files.toList()) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+	}
+}
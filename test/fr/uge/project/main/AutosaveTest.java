@@ -0,0 +1,66 @@
+package fr.uge.project.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.uge.project.bigAdventure.GameInformation;
+import fr.uge.project.bigAdventure.SaveGame;
+import fr.uge.project.parser.Diagnostics;
+import fr.uge.project.parser.FileAnalysis;
+
+
+/**
+ * Checks that an autosave writes the last snapshot of a game, prints a single
+ * summary when it is closed, and ignores the games saved after it.
+ */
+public class AutosaveTest {
+	private static final Path MAP = Path.of("maps", "fun.map");
+
+
+	/**
+	 * Saves a game, closes the autosave, then saves the game again.
+	 *
+	 * @param directory The directory of the save file.
+	 * @throws IOException If the map or the save cannot be read.
+	 */
+	@Test
+	public void saveAfterClose(@TempDir Path directory) throws IOException {
+		var analysis = FileAnalysis.readParser(MAP, new Diagnostics());
+		assertTrue(analysis.canPlay());
+		var game = new GameInformation();
+		game.initialiseFromParseur(analysis);
+		var path = directory.resolve("game.save");
+		var bytes = new ByteArrayOutputStream();
+		var error = System.err;
+		System.setErr(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+		try {
+			var autosave = new Autosave(path, MAP);
+			autosave.prepare(game);
+			autosave.save(game);
+			autosave.close();
+			var written = Files.getLastModifiedTime(path);
+			autosave.save(game);
+			autosave.close();
+			assertEquals(written, Files.getLastModifiedTime(path));
+		} finally {
+			System.setErr(error);
+		}
+		assertEquals(MAP.toAbsolutePath(), SaveGame.read(path).map());
+		assertFalse(Files.exists(directory.resolve("game.save.tmp")));
+		var lines = bytes.toString(StandardCharsets.UTF_8).lines().toList();
+		assertEquals(1, lines.size(), lines.toString());
+		assertTrue(lines.get(0).contains(": 1 snapshots, the longest in "), lines.get(0));
+		assertTrue(lines.get(0).contains(" ms, 1 writes, the longest in "), lines.get(0));
+	}
+}
@@ -0,0 +1,87 @@
+package fr.uge.project.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.uge.project.parser.Diagnostics;
+
+
+/**
+ * Checks the answers of the validation server to valid requests and to
+ * requests which do not follow the protocol.
+ */
+public class ValidationServerTest {
+
+	/**
+	 * Sends requests to a server and gets its answers.
+	 *
+	 * @param requests The text of the requests.
+	 * @return The answers, one per line, sorted by request number.
+	 * @throws IOException If the requests cannot be read.
+	 */
+	private static List<String> serve(String requests) throws IOException {
+		var bytes = new ByteArrayOutputStream();
+		var output = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+		new ValidationServer(Diagnostics.UNLIMITED, output)
+				.serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)));
+		return bytes.toString(StandardCharsets.UTF_8).lines().sorted().toList();
+	}
+
+
+	/**
+	 * Checks a map file and an unsaved map.
+	 *
+	 * @throws IOException If the requests cannot be read.
+	 */
+	@Test
+	public void validRequests() throws IOException {
+		var answers = serve("maps/fun.map\n@2 unsaved.map\n[grid]\n  size: (1 x 1)\n");
+		assertEquals(2, answers.size());
+		assertTrue(answers.get(0).startsWith("{\"request\":1,\"valid\":true"), answers.get(0));
+		assertTrue(answers.get(1).startsWith("{\"request\":2,\"valid\":false"), answers.get(1));
+		assertTrue(answers.get(1).contains("\"file\":\"unsaved.map\""), answers.get(1));
+		assertFalse(answers.get(1).contains("bad-request"), answers.get(1));
+	}
+
+
+	/**
+	 * Checks that the lines of a map after a bad header are not read as paths of
+	 * map files.
+	 *
+	 * @throws IOException If the requests cannot be read.
+	 */
+	@Test
+	public void badHeader() throws IOException {
+		for (var header : List.of("@x broken.map", "@-2 broken.map", "@ broken.map")) {
+			var answers = serve("maps/fun.map\n" + header + "\n[grid]\n  size: (1 x 1)\nmaps/fun.map\n");
+			assertEquals(2, answers.size(), header);
+			assertTrue(answers.get(0).startsWith("{\"request\":1,\"valid\":true"), answers.get(0));
+			assertTrue(answers.get(1).startsWith("{\"request\":2,\"valid\":false"), answers.get(1));
+			assertTrue(answers.get(1).contains("\"code\":\"bad-request\""), answers.get(1));
+		}
+	}
+
+
+	/**
+	 * Checks that a map cut by the end of the input is answered as a bad request.
+	 *
+	 * @throws IOException If the requests cannot be read.
+	 */
+	@Test
+	public void incompleteMap() throws IOException {
+		var answers = serve("@5 cut.map\n[grid]\n  size: (1 x 1)\n");
+		assertEquals(1, answers.size());
+		assertTrue(answers.get(0).contains("\"code\":\"bad-request\""), answers.get(0));
+		assertTrue(answers.get(0).contains("\"file\":\"cut.map\""), answers.get(0));
+	}
+}
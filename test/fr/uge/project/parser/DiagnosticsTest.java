@@ -0,0 +1,89 @@
+package fr.uge.project.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that an analysis is only said to be stopped when an error has not been
+ * kept because of the limit of errors.
+ */
+public class DiagnosticsTest {
+
+	/**
+	 * Checks a collector which gets exactly as many errors as its limit, then one
+	 * more.
+	 */
+	@Test
+	public void stoppedAfterTheLimit() {
+		var diagnostics = new Diagnostics(2);
+		assertTrue(diagnostics.add(new Diagnostic("first", 1, 0, "first error")));
+		assertTrue(diagnostics.add(new Diagnostic("second", 2, 0, "second error")));
+		assertTrue(diagnostics.isFull());
+		assertFalse(diagnostics.isStopped());
+		assertFalse(diagnostics.toText().contains("stopped"));
+		assertTrue(diagnostics.toJson("map").endsWith("\"stopped\":false}"));
+		assertFalse(diagnostics.add(new Diagnostic("third", 3, 0, "third error")));
+		assertTrue(diagnostics.isStopped());
+		assertEquals(1, diagnostics.getDroppedCount());
+		assertTrue(diagnostics.toText().contains("The analysis has stopped after 2 errors"));
+		assertTrue(diagnostics.toJson("map").endsWith("\"stopped\":true}"));
+	}
+
+
+	/**
+	 * Checks a map with two errors analyzed with a limit of three errors, then
+	 * with a limit of two errors and a limit of one error, which stop the
+	 * analysis at the error which makes the collector full.
+	 *
+	 * @throws IOException If the map cannot be read.
+	 */
+	@Test
+	public void mapWithAsManyErrorsAsTheLimit() throws IOException {
+		var path = Path.of("maps", "badGridDataWidth.map");
+		var diagnostics = new Diagnostics(3);
+		assertFalse(FileAnalysis.readParser(path, diagnostics).isStopped());
+		assertEquals(2, diagnostics.size());
+		assertFalse(diagnostics.toText().contains("stopped"));
+		diagnostics = new Diagnostics(2);
+		assertTrue(FileAnalysis.readParser(path, diagnostics).isStopped());
+		assertEquals(2, diagnostics.size());
+		assertTrue(diagnostics.toText().contains("The analysis has stopped after 2 errors"));
+		diagnostics = new Diagnostics(1);
+		assertTrue(FileAnalysis.readParser(path, diagnostics).isStopped());
+		assertEquals(1, diagnostics.size());
+		assertTrue(diagnostics.toText().contains("The analysis has stopped after 1 errors"));
+	}
+
+
+	/**
+	 * Checks that with a limit of one error, as with --fail-fast, the lexer stops
+	 * at the first error of the first [element] section of a map: the sections
+	 * after it are not read.
+	 *
+	 * @throws IOException If the map cannot be read.
+	 */
+	@Test
+	public void failFastStopsAtTheFirstError() throws IOException {
+		var text = Files.readString(Path.of("maps", "fun.map")).replaceFirst("\\[element\\]\n",
+				"[element]\n  zzz: 1\n");
+		var all = FileAnalysis.readParser(text, new Diagnostics());
+		assertEquals(3, all.getErrorCount());
+		assertEquals(29, all.getSections().size());
+		var diagnostics = new Diagnostics(1);
+		var analysis = FileAnalysis.readParser(text, diagnostics);
+		assertTrue(analysis.isStopped());
+		assertEquals(1, diagnostics.size());
+		assertEquals(58, diagnostics.getDiagnostics().get(0).line());
+		// the [grid] section and the first [element] section
+		assertEquals(2, analysis.getSections().size());
+		assertTrue(diagnostics.toJson("fun.map").endsWith("\"stopped\":true}"));
+	}
+}
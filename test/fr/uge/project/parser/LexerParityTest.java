@@ -0,0 +1,122 @@
+package fr.uge.project.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.uge.project.main.MapGenerator;
+
+
+/**
+ * Checks that the scanner of {@link Lexer} gives the same tokens, with the same
+ * contents and the same lines, as the regular expression of the first lexer,
+ * kept in {@link RegexLexer}.
+ */
+public class LexerParityTest {
+
+	/**
+	 * Reads all the tokens of a text with both lexers and checks that they are the
+	 * same.
+	 *
+	 * @param name The name of the text, used in the messages.
+	 * @param text The text to read.
+	 * @return The number of tokens read.
+	 */
+	static int assertSameTokens(String name, String text) {
+		var expected = new RegexLexer(text);
+		var lexer = new Lexer(text);
+		var count = 0;
+		for (;;) {
+			var result = expected.nextResult();
+			var token = lexer.next();
+			if (result == null) {
+				assertEquals(null, token, name + ": token " + count + " is not expected");
+				return count;
+			}
+			assertEquals(result.token(), token, name + ": kind of token " + count);
+			assertEquals(result.content(), lexer.getContent(), name + ": content of token " + count);
+			assertEquals(expected.getNbLines(), lexer.getNbLines(), name + ": line of token " + count);
+			count++;
+		}
+	}
+
+
+	/**
+	 * Checks the tokens of every map of the maps directory.
+	 *
+	 * @throws IOException If a map cannot be read.
+	 */
+	@Test
+	public void shippedMaps() throws IOException {
+		try (var maps = Files.list(Path.of("maps"))) {
+			var paths = maps.filter(path -> path.toString().endsWith(".map")).sorted().toList();
+			assertFalse(paths.isEmpty());
+			for (var path : paths) {
+				assertSameTokens(path.toString(), Files.readString(path));
+			}
+		}
+	}
+
+
+	/**
+	 * Checks the tokens of valid and broken generated maps.
+	 *
+	 * @param directory The directory of the generated maps.
+	 * @throws IOException If a map cannot be written or read.
+	 */
+	@Test
+	public void generatedMaps(@TempDir Path directory) throws IOException {
+		var rates = new double[] { 0, 0.05, 0.5 };
+		for (var seed = 0; seed < 6; seed++) {
+			var settings = new MapGenerator.Settings(20 + seed * 30, 10 + seed * 20, 4 + seed * 8, seed * 10, seed * 5,
+					seed * 7, seed * 3, seed, rates[seed % rates.length]);
+			var path = directory.resolve("generated" + seed + ".map");
+			new MapGenerator(settings).generate(path);
+			assertSameTokens(path.toString(), Files.readString(path));
+		}
+	}
+
+
+	/**
+	 * Checks the tokens of random texts made of the characters of the tokens and
+	 * of characters which are not part of a token, so that quotes which are not
+	 * closed, empty quotes and quotes over several lines are read.
+	 */
+	@Test
+	public void randomTexts() {
+		var characters = "aZ09():,[]\"\"\"\n\n  #_-\u00e9";
+		var random = new SplittableRandom(42);
+		var text = new StringBuilder();
+		for (var i = 0; i < 2_000; i++) {
+			text.setLength(0);
+			var length = random.nextInt(200);
+			for (var j = 0; j < length; j++) {
+				text.append(characters.charAt(random.nextInt(characters.length())));
+			}
+			assertSameTokens("random text " + i, text.toString());
+		}
+	}
+
+
+	/**
+	 * Checks that the texts of the maps are not empty of tokens, so that the other
+	 * tests compare something.
+	 *
+	 * @throws IOException If the map cannot be read.
+	 */
+	@Test
+	public void monsterHouseHasTokens() throws IOException {
+		var text = Files.readString(Path.of("maps", "monster_house.map"));
+		assertNotNull(new Lexer(text).next());
+		assertNotEquals(0, assertSameTokens("monster_house.map", text));
+	}
+}
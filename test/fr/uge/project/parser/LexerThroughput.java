@@ -0,0 +1,141 @@
+package fr.uge.project.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import fr.uge.project.main.MapGenerator;
+
+
+/**
+ * Measures the number of tokens read per second by the scanner of
+ * {@link Lexer} and by the regular expression of the first lexer, kept in
+ * {@link RegexLexer}, on maps/monster_house.map and on generated maps of several
+ * megabytes. It is run with the lexer-bench target of ant; the paths of other
+ * maps to measure can be given as arguments.
+ */
+public class LexerThroughput {
+	private static final long RUN_TIME = 1_000_000_000L;
+	private static final int WARMUP_RUNS = 3;
+	private static final int RUNS = 5;
+
+
+	/**
+	 * Reads all the tokens of a text with the scanner.
+	 *
+	 * @param text The text to read.
+	 * @return The number of tokens.
+	 */
+	private static long scan(String text) {
+		var lexer = new Lexer(text);
+		var count = 0L;
+		while (lexer.next() != null) {
+			count++;
+		}
+		return count;
+	}
+
+
+	/**
+	 * Reads all the tokens of a text with the regular expression.
+	 *
+	 * @param text The text to read.
+	 * @return The number of tokens.
+	 */
+	private static long match(String text) {
+		var lexer = new RegexLexer(text);
+		var count = 0L;
+		while (lexer.nextResult() != null) {
+			count++;
+		}
+		return count;
+	}
+
+
+	/**
+	 * Measures the number of tokens per second of a lexer on a text. The text is
+	 * read again and again for about a second, a few times to warm up, then
+	 * several times; the best run is kept.
+	 *
+	 * @param text    The text to read.
+	 * @param scanner true to measure the scanner, false for the regular
+	 *                expression.
+	 * @return The number of tokens per second.
+	 */
+	private static double measure(String text, boolean scanner) {
+		var best = 0.0;
+		for (var run = 0; run < WARMUP_RUNS + RUNS; run++) {
+			var tokens = 0L;
+			var start = System.nanoTime();
+			var time = 0L;
+			do {
+				tokens += scanner ? scan(text) : match(text);
+				time = System.nanoTime() - start;
+			} while (time < RUN_TIME);
+			if (run >= WARMUP_RUNS) {
+				best = Math.max(best, tokens * 1e9 / time);
+			}
+		}
+		return best;
+	}
+
+
+	/**
+	 * Measures both lexers on a text and prints the result.
+	 *
+	 * @param name The name of the text.
+	 * @param text The text to read.
+	 */
+	private static void report(String name, String text) {
+		var regex = measure(text, false);
+		var scanner = measure(text, true);
+		System.out.printf("%-28s %10d bytes %10d tokens  regex %,14.0f tokens/s  scanner %,14.0f tokens/s  x%.1f%n", name,
+				text.length(), scan(text), regex, scanner, scanner / regex);
+	}
+
+
+	/**
+	 * Generates a valid map with a square grid and an element for 16 tiles.
+	 *
+	 * @param directory The directory of the map.
+	 * @param size      The number of rows and columns of the grid.
+	 * @return The text of the map.
+	 * @throws IOException If the map cannot be written or read.
+	 */
+	private static String generate(Path directory, int size) throws IOException {
+		var elements = size * size / 16;
+		var settings = new MapGenerator.Settings(size, size, 52, elements / 4, elements / 4, elements / 4,
+				elements / 4, size, 0);
+		var path = directory.resolve("generated" + size + ".map");
+		new MapGenerator(settings).generate(path);
+		return Files.readString(path);
+	}
+
+
+	/**
+	 * Runs the measures.
+	 *
+	 * @param args The paths of other maps to measure.
+	 * @throws IOException If a map cannot be written or read.
+	 */
+	public static void main(String[] args) throws IOException {
+		report("monster_house.map", Files.readString(Path.of("maps", "monster_house.map")));
+		var directory = Files.createTempDirectory("lexer");
+		try {
+			for (var size : new int[] { 512, 1024, 2048 }) {
+				var text = generate(directory, size);
+				report("generated " + size + "x" + size, text);
+			}
+		} finally {
+			try (var files = Files.list(directory)) {
+				for (var file : files.toList()) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(directory);
+		}
+		for (var arg : args) {
+			report(arg, Files.readString(Path.of(arg)));
+		}
+	}
+}
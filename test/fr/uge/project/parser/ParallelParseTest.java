@@ -0,0 +1,118 @@
+package fr.uge.project.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that several maps can be parsed at the same time: the lines of the
+ * diagnostics of each parse must be the ones of its own map, which would not be
+ * the case if the lines were counted in a shared variable.
+ */
+public class ParallelParseTest {
+	private static final int TASKS = 64;
+	private static final int THREADS = 8;
+	private static final int PARSES = 50;
+
+	/**
+	 * A broken map of the maps directory.
+	 *
+	 * @param name The name of the map file.
+	 * @param code The code of the error of the grid.
+	 * @param line The line of the error of the grid.
+	 */
+	private record BrokenMap(String name, String code, int line) {
+	}
+
+	private static final List<BrokenMap> MAPS = List.of(
+			new BrokenMap("badGridDataEncodingNotALetter.map", "unexpected-token", 3),
+			new BrokenMap("badGridDataEncodingUnknownTile.map", "invalid-encoding", 3),
+			new BrokenMap("badGridDataHeight.map", "height", 8),
+			new BrokenMap("badGridDataMissingEncodings.map", "missing-encodings", 8),
+			new BrokenMap("badGridDataMissingGridData.map", "missing-data", 4),
+			new BrokenMap("badGridDataMissingSize.map", "missing-size", 7),
+			new BrokenMap("badGridDataWidth.map", "width", 7));
+
+
+	/**
+	 * Parses a broken map many times, moved down by some empty lines, and checks
+	 * the lines of its diagnostics each time.
+	 *
+	 * @param map   The broken map.
+	 * @param text  The text of the map.
+	 * @param shift The number of empty lines added before the map.
+	 * @return The number of parses.
+	 */
+	private static int parse(BrokenMap map, String text, int shift) {
+		var shifted = "\n".repeat(shift) + text;
+		for (var i = 0; i < PARSES; i++) {
+			var diagnostics = new Diagnostics();
+			FileAnalysis.readParser(shifted, diagnostics);
+			var errors = diagnostics.getDiagnostics();
+			assertEquals(2, errors.size(), map.name() + " shifted by " + shift + ": " + errors);
+			assertEquals(map.code(), errors.get(0).code(), map.name());
+			assertEquals(map.line() + shift, errors.get(0).line(), map.name() + " shifted by " + shift);
+			assertEquals(0, errors.get(1).line(), map.name() + " shifted by " + shift);
+			assertEquals("missing-player", errors.get(1).code());
+		}
+		return PARSES;
+	}
+
+
+	/**
+	 * Parses the broken maps in 64 tasks on a fixed pool of threads. Each task has
+	 * its own map and its own number of empty lines, so its lines are different
+	 * from the lines of the other tasks.
+	 *
+	 * @throws Exception If a map cannot be read or if a task fails.
+	 */
+	@Test
+	public void linesOfParallelParses() throws Exception {
+		var texts = new ArrayList<String>();
+		for (var map : MAPS) {
+			texts.add(Files.readString(Path.of("maps", map.name())));
+		}
+		var pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			var tasks = new ArrayList<Callable<Integer>>();
+			for (var task = 0; task < TASKS; task++) {
+				var index = task % MAPS.size();
+				var shift = task;
+				tasks.add(() -> parse(MAPS.get(index), texts.get(index), shift));
+			}
+			var parses = 0;
+			for (Future<Integer> future : pool.invokeAll(tasks)) {
+				parses += future.get();
+			}
+			assertEquals(TASKS * PARSES, parses);
+		} finally {
+			pool.shutdown();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+	}
+
+
+	/**
+	 * Checks the error lines of the broken maps parsed one by one, which are the
+	 * lines expected by the parallel test.
+	 *
+	 * @throws IOException If a map cannot be read.
+	 */
+	@Test
+	public void linesOfSequentialParses() throws IOException {
+		for (var map : MAPS) {
+			parse(map, Files.readString(Path.of("maps", map.name())), 0);
+		}
+	}
+}
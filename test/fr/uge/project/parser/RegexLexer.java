@@ -0,0 +1,77 @@
+package fr.uge.project.parser;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+
+/**
+ * The first lexer of the parser, which finds the tokens with a single regular
+ * expression made of the regular expressions of {@link Token}. It is kept in the
+ * tests as the reference of the scanner of {@link Lexer}.
+ * <p>
+ * Unlike the first lexer, its number of lines is not static, so several of them
+ * can run at the same time, and the lines inside a quote are counted, as
+ * {@link Lexer} does.
+ */
+final class RegexLexer {
+	private static final List<Token> TOKENS = List.of(Token.values());
+	private static final Pattern PATTERN = Pattern
+			.compile(TOKENS.stream().map(token -> "(" + token.regex + ")").collect(Collectors.joining("|")));
+	private final String text;
+	private final Matcher matcher;
+	private int nbLines = 1;
+
+
+	/**
+	 * Constructs a new RegexLexer with the provided text.
+	 *
+	 * @param text The input text to tokenize.
+	 * @throws NullPointerException if text is null.
+	 */
+	RegexLexer(String text) {
+		this.text = Objects.requireNonNull(text);
+		this.matcher = PATTERN.matcher(text);
+	}
+
+
+	/**
+	 * Gets the next token result from the lexer. The new lines are not returned,
+	 * they are only counted.
+	 *
+	 * @return The next token result, or {@code null} if there are no more tokens.
+	 */
+	Result nextResult() {
+		while (matcher.find()) {
+			for (var group = 1; group <= matcher.groupCount(); group++) {
+				var start = matcher.start(group);
+				if (start != -1) {
+					var token = TOKENS.get(group - 1);
+					if (token == Token.NEW_LINE) {
+						nbLines++;
+						break;
+					}
+					var content = text.substring(start, matcher.end(group));
+					if (token == Token.QUOTE) {
+						nbLines += (int) content.chars().filter(current -> current == '\n').count();
+					}
+					return new Result(token, content);
+				}
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Gets the current line number, which is the line of the character just after
+	 * the last token.
+	 *
+	 * @return The current line number.
+	 */
+	int getNbLines() {
+		return nbLines;
+	}
+}
@@ -0,0 +1,57 @@
+package fr.uge.project.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks that a map parsed again with the sections of its previous version
+ * gives the same result as a map parsed from scratch.
+ */
+public class SectionCacheTest {
+
+	/**
+	 * Checks that two analyses have the same sections, elements and errors.
+	 *
+	 * @param expected The analysis of the map parsed from scratch.
+	 * @param actual   The analysis of the map parsed with the cache.
+	 */
+	private static void assertSameAnalysis(FileAnalysis expected, FileAnalysis actual) {
+		assertEquals(expected.getSections(), actual.getSections());
+		assertEquals(expected.getDataOfElements(), actual.getDataOfElements());
+		assertEquals(expected.getDiagnostics().toText(), actual.getDiagnostics().toText());
+		assertEquals(expected.canPlay(), actual.canPlay());
+	}
+
+
+	/**
+	 * Parses fun.map, then a version with a bad parameter in its first [element]
+	 * section, then a version with the damage of the sword changed and two more
+	 * lines before it, so that the sections after it are reused at other lines.
+	 *
+	 * @throws IOException If the map cannot be read.
+	 */
+	@Test
+	public void editedVersions() throws IOException {
+		var text = Files.readString(Path.of("maps", "fun.map"));
+		var broken = text.replaceFirst("\\[element\\]\\n", "[element]\n  zzz: 1\n");
+		var edited = broken.replace("damage: 5", "\n\ndamage: 6");
+		assertNotEquals(broken, edited);
+		var cache = new SectionCache();
+		assertSameAnalysis(FileAnalysis.readParser(text, new Diagnostics()), cache.parse(text));
+		assertEquals(0, cache.getReusedCount());
+		for (var version : new String[] { broken, edited, text }) {
+			var analysis = cache.parse(version);
+			assertTrue(cache.getReusedCount() > 0);
+			assertTrue(cache.getParsedCount() > 0);
+			assertSameAnalysis(FileAnalysis.readParser(version, new Diagnostics()), analysis);
+		}
+	}
+}